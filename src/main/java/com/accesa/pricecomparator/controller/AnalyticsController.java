@@ -0,0 +1,58 @@
+package com.accesa.pricecomparator.controller;
+
+import com.accesa.pricecomparator.model.CategoryStats;
+import com.accesa.pricecomparator.service.CategoryAnalytics;
+import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.NameBrandIndex;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.ResultCache;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller for analytics endpoints.
+ * Provides endpoints to get price statistics per product category and store.
+ */
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+    // Estimated size of a cached entry, with a few reporting units
+    private static final long STATS_BYTES = 512;
+
+    private final CsvDataLoaderService csvDataLoaderService;
+    private final ResultCache resultCache;
+
+    public AnalyticsController(CsvDataLoaderService csvDataLoaderService, ResultCache resultCache) {
+        this.csvDataLoaderService = csvDataLoaderService;
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Returns, for each store and product category, the min, median, 90th percentile and max of the effective
+     * price and of the unit price (per reporting unit), and the average discount of the discounted products.
+     * The statistics of all stores and categories are computed in parallel once per date and catalog version.
+     * @param date The date (YYYY-MM-DD).
+     * @param store Only this store (optional).
+     * @param category Only this category (optional, case and diacritics are ignored).
+     * @return List of statistics, by store and then category name.
+     */
+    @GetMapping("/categories")
+    public List<CategoryStats> getCategoryStats(@RequestParam String date, @RequestParam(required = false) String store,
+                                                @RequestParam(required = false) String category) {
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        LocalDate localDate = LocalDate.parse(date);
+        List<CategoryStats> all = resultCache.get("analytics", catalog, new String[]{localDate.toString()}, STATS_BYTES,
+            () -> CategoryAnalytics.compute(catalog, localDate));
+        if (store == null && category == null) return all;
+        String categoryKey = category == null ? null : NameBrandIndex.normalize(category);
+        List<CategoryStats> selected = new ArrayList<>();
+        for (CategoryStats stats : all) {
+            if (store != null && !stats.getStore().equalsIgnoreCase(store)) continue;
+            if (categoryKey != null && !NameBrandIndex.normalize(stats.getCategory()).equals(categoryKey)) continue;
+            selected.add(stats);
+        }
+        return selected;
+    }
+}
@@ -1,12 +1,34 @@
 package com.accesa.pricecomparator.controller;
 
 import com.accesa.pricecomparator.model.BasketItem;
-import com.accesa.pricecomparator.model.Product;
-import com.accesa.pricecomparator.model.Discount;
+import com.accesa.pricecomparator.model.BasketLine;
+import com.accesa.pricecomparator.model.BasketRequest;
+import com.accesa.pricecomparator.model.BasketSplit;
+import com.accesa.pricecomparator.model.BatchBasketResult;
+import com.accesa.pricecomparator.model.OptimizedBasket;
+import com.accesa.pricecomparator.service.BasketOffer;
+import com.accesa.pricecomparator.service.BasketOffers;
+import com.accesa.pricecomparator.service.BasketOptimizer;
+import com.accesa.pricecomparator.service.BasketPlan;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.Money;
+import com.accesa.pricecomparator.service.NdjsonWriter;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST controller for basket optimization endpoints.
@@ -15,7 +37,10 @@ import java.util.*;
 @RestController
 @RequestMapping("/basket")
 public class BasketController {
+    // How long the batch stream waits for the next basket before reporting the rest as failed
+    private static final long BATCH_IDLE_TIMEOUT_MS = 30_000;
     private final CsvDataLoaderService csvDataLoaderService;
+    private final ObjectMapper mapper = new ObjectMapper();
 
     /**
      * Constructor for dependency injection.
@@ -26,102 +51,296 @@ public class BasketController {
     }
 
     /**
-     * Calculates the discounted price for a product, considering brand and date.
-     * @param product The product.
-     * @param discounts List of discounts.
-     * @param date The date for which to check discounts.
-     * @param brand The brand to filter discounts (optional).
-     * @return The discounted price.
+     * Describes the purchase of an item at an offer.
      */
-    private double calculateDiscountedPriceWithBrand(Product product, List<Discount> discounts, LocalDate date, String brand) {
-        double price = product.getPrice();
-        Optional<Discount> applicableDiscount = discounts.stream()
-            .filter(d -> d.getProductName().equalsIgnoreCase(product.getProductName()) &&
-                        (brand == null || brand.isEmpty() || d.getBrand().equalsIgnoreCase(brand)) &&
-                        !date.isBefore(d.getFromDate()) &&
-                        !date.isAfter(d.getToDate()))
-            .findFirst();
-        if (applicableDiscount.isPresent()) {
-            double discountPercentage = applicableDiscount.get().getPercentageOfDiscount();
-            price = price - (price * discountPercentage / 100);
-        }
-        return price;
+    private BasketLine line(BasketItem item, BasketOffer offer, long total) {
+        String brand = item.getBrand() != null && !item.getBrand().isEmpty() ? item.getBrand() : offer.getBrand();
+        return new BasketLine(item.getProductName(), offer.getProductId(), brand, offer.getStore(),
+            Money.toDouble(offer.getPrice()), item.getQuantity(), Money.toDouble(total));
     }
 
     /**
-     * Rounds a value to two decimal places.
-     * @param value The value to round.
-     * @return The rounded value.
+     * Buys every item of a basket at its cheapest offer.
+     * @return The items with their chosen store, the total per store and the overall total.
      */
-    private double round2(double value) {
-        return Math.round(value * 100.0) / 100.0;
+    private BasketSplit split(List<BasketItem> items, BasketOffers offers) {
+        List<BasketLine> resultItems = new ArrayList<>();
+        List<String> stores = offers.getStores();
+        long[] storeTotals = new long[stores.size()];
+        boolean[] visited = new boolean[stores.size()];
+        long overallTotal = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BasketItem item = items.get(i);
+            int store = offers.bestStore(i);
+            if (store < 0) continue;
+            BasketOffer best = offers.getOffer(i, store);
+            long total = Money.times(best.getPrice(), item.getQuantity());
+            resultItems.add(line(item, best, total));
+            storeTotals[store] += total;
+            visited[store] = true;
+            overallTotal += total;
+        }
+
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (int s = 0; s < stores.size(); s++) {
+            if (visited[s]) totals.put(stores.get(s), Money.toDouble(storeTotals[s]));
+        }
+        return new BasketSplit(resultItems, totals, Money.toDouble(overallTotal));
     }
 
+    /**
+     * Splits a basket across stores, buying every item where it is cheapest after discounts.
+     * @param items The basket items.
+     * @param date The purchase date (YYYY-MM-DD).
+     * @param debug When true, adds a "debug" field with per-stage timings.
+     * @return The items with their chosen store, the total per store and the overall total.
+     */
     @PostMapping("/split-optimize")
-    public Map<String, Object> splitOptimizeBasket(@RequestBody List<BasketItem> items, @RequestParam String date) {
-        CsvDataLoaderService loader = csvDataLoaderService;
-        List<String> stores = loader.getAvailableStores();
-        List<Map<String, Object>> resultItems = new ArrayList<>();
-        Map<String, Double> storeTotals = new HashMap<>();
-        double overallTotal = 0;
+    public BasketSplit splitOptimizeBasket(@RequestBody List<BasketItem> items, @RequestParam String date,
+                                                   @RequestParam(defaultValue = "false") boolean debug) {
+        long started = System.nanoTime();
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
         LocalDate purchaseDate = LocalDate.parse(date);
+        BasketOffers offers = BasketOffers.resolve(catalog, items, purchaseDate);
+        long resolved = System.nanoTime();
+
+        BasketSplit result = split(items, offers);
+        long optimized = System.nanoTime();
+        if (debug) {
+            Map<String, Object> timings = new LinkedHashMap<>();
+            timings.put("resolveOffersMs", (resolved - started) / 1e6);
+            timings.put("optimizeMs", (optimized - resolved) / 1e6);
+            timings.put("totalMs", (optimized - started) / 1e6);
+            Map<String, Object> debugInfo = new LinkedHashMap<>();
+            debugInfo.put("catalogVersion", catalog.getVersion());
+            debugInfo.put("stores", offers.getStores().size());
+            debugInfo.put("items", items.size());
+            debugInfo.put("timings", timings);
+            result = result.withDebug(debugInfo);
+        }
+        return result;
+    }
+
+    /**
+     * Splits many baskets at once, each bought on its own date, and streams one JSON line per basket
+     * (application/x-ndjson) as soon as it is done, so results are not in request order.
+     * Baskets are grouped by date so the tables of every store are looked up once per date and item offers are
+     * resolved once per date across all baskets; the baskets are evaluated in parallel on the common fork/join pool.
+     * A basket that cannot be evaluated, or is not done within the idle timeout, gets a line with an error instead.
+     * @param baskets The baskets, each with an optional id, a date (YYYY-MM-DD) and its items.
+     * @return A stream of lines with the basket's index in the request, its id and date, and either the
+     *         split-optimize result or an error.
+     */
+    @PostMapping(value = "/batch-split-optimize", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> batchSplitOptimize(@RequestBody List<BasketRequest> baskets) {
+        if (baskets.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "baskets must not be null");
+        }
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        BlockingQueue<BatchBasketResult> results = new LinkedBlockingQueue<>();
+        Map<String, List<Integer>> byDate = new LinkedHashMap<>();
+        for (int i = 0; i < baskets.size(); i++) {
+            String date = baskets.get(i).getDate();
+            byDate.computeIfAbsent(date == null ? "" : date, k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<String, List<Integer>> group : byDate.entrySet()) {
+            List<Integer> indices = group.getValue();
+            ForkJoinPool.commonPool().execute(() -> {
+                BasketOffers.Snapshot snapshot = null;
+                String error = null;
+                try {
+                    snapshot = BasketOffers.Snapshot.of(catalog, LocalDate.parse(group.getKey()));
+                } catch (DateTimeParseException e) {
+                    error = "invalid date: " + group.getKey();
+                } catch (RuntimeException e) {
+                    error = "cannot evaluate baskets on " + group.getKey() + ": " + e;
+                }
+                try {
+                    new BatchTask(baskets, indices, 0, indices.size(), snapshot, error, results).invoke();
+                } catch (RuntimeException e) {
+                    // Baskets that already have a line keep it; the stream drops the duplicates
+                    for (int index : indices) {
+                        results.add(BatchBasketResult.failed(index, baskets.get(index), String.valueOf(e)));
+                    }
+                }
+            });
+        }
 
-        for (BasketItem item : items) {
-            double minPrice = Double.MAX_VALUE;
-            String bestStore = null;
-            double bestUnitPrice = 0;
-            String bestProductId = null;
-            String bestProductBrand = null;
-            String itemBrand = item.getBrand();
-
-            for (String store : stores) {
-                List<Product> products = loader.loadProducts(store, date);
-                List<Discount> discounts = loader.loadDiscounts(store, date);
-                Optional<Product> p = products.stream()
-                    .filter(prod -> prod.getProductName().equalsIgnoreCase(item.getProductName()) &&
-                        (itemBrand == null || itemBrand.isEmpty() || prod.getBrand().equalsIgnoreCase(itemBrand)))
-                    .findFirst();
-
-                if (p.isPresent()) {
-                    double discountedPrice = calculateDiscountedPriceWithBrand(p.get(), discounts, purchaseDate, itemBrand);
-                    if (discountedPrice < minPrice) {
-                        minPrice = discountedPrice;
-                        bestStore = store;
-                        bestUnitPrice = discountedPrice;
-                        bestProductId = p.get().getProductId();
-                        bestProductBrand = p.get().getBrand();
+        StreamingResponseBody body = out -> {
+            List<BatchBasketResult> ready = new ArrayList<>();
+            boolean[] reported = new boolean[baskets.size()];
+            int written = 0;
+            try {
+                while (written < baskets.size()) {
+                    BatchBasketResult next = results.poll(BATCH_IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        // Nothing finished in time: end the stream rather than holding the servlet thread
+                        for (int i = 0; i < baskets.size(); i++) {
+                            if (!reported[i]) ready.add(BatchBasketResult.failed(i, baskets.get(i), "timed out"));
+                        }
+                    } else {
+                        ready.add(next);
+                        results.drainTo(ready);
+                    }
+                    for (BatchBasketResult line : ready) {
+                        if (reported[line.getIndex()]) continue;
+                        reported[line.getIndex()] = true;
+                        out.write(mapper.writeValueAsBytes(line));
+                        out.write('\n');
+                        written++;
                     }
+                    out.flush();
+                    ready.clear();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE)).body(body);
+    }
 
-            if (bestStore != null) {
-                double total = round2(bestUnitPrice * item.getQuantity());
-                Map<String, Object> itemMap = new HashMap<>();
-                itemMap.put("productName", item.getProductName());
-                itemMap.put("productId", bestProductId);
-                itemMap.put("store", bestStore);
-                itemMap.put("price", round2(bestUnitPrice));
-                itemMap.put("quantity", item.getQuantity());
-                itemMap.put("total", total);
-                if (itemBrand != null && !itemBrand.isEmpty()) {
-                    itemMap.put("brand", itemBrand);
+    /**
+     * Splits a range of the baskets bought on one date, forking until a single basket is left.
+     */
+    private class BatchTask extends RecursiveAction {
+        private final List<BasketRequest> baskets;
+        private final List<Integer> indices;
+        private final int from;
+        private final int to;
+        private final BasketOffers.Snapshot snapshot;
+        private final String error;
+        private final BlockingQueue<BatchBasketResult> results;
+
+        BatchTask(List<BasketRequest> baskets, List<Integer> indices, int from, int to, BasketOffers.Snapshot snapshot,
+                  String error, BlockingQueue<BatchBasketResult> results) {
+            this.baskets = baskets;
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+            this.snapshot = snapshot;
+            this.error = error;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(baskets, indices, from, mid, snapshot, error, results),
+                    new BatchTask(baskets, indices, mid, to, snapshot, error, results));
+                return;
+            }
+            int index = indices.get(from);
+            BasketRequest basket = baskets.get(index);
+            BatchBasketResult line;
+            try {
+                if (error != null) {
+                    line = BatchBasketResult.failed(index, basket, error);
                 } else {
-                    itemMap.put("brand", bestProductBrand);
+                    List<BasketItem> items = basket.getItems() == null ? Collections.emptyList() : basket.getItems();
+                    line = BatchBasketResult.of(index, basket, split(items, BasketOffers.resolve(snapshot, items)));
                 }
-                resultItems.add(itemMap);
-                storeTotals.put(bestStore, round2(storeTotals.getOrDefault(bestStore, 0.0) + total));
-                overallTotal += total;
+            } catch (RuntimeException e) {
+                line = BatchBasketResult.failed(index, basket, e.getMessage() != null ? e.getMessage() : e.toString());
             }
+            // Every basket yields exactly one line, or the response would wait forever
+            results.add(line);
         }
+    }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("items", resultItems);
-        Map<String, Double> roundedStoreTotals = new HashMap<>();
-        for (Map.Entry<String, Double> entry : storeTotals.entrySet()) {
-            roundedStoreTotals.put(entry.getKey(), round2(entry.getValue()));
+    /**
+     * Chooses which stores to visit when every visit has a cost and/or the number of stores is limited,
+     * then buys every item in the cheapest chosen store.
+     * @param items The basket items.
+     * @param date The purchase date (YYYY-MM-DD).
+     * @param maxStores The maximum number of stores to visit, at least 1 (optional, default no limit).
+     * @param visitCost The fixed cost of visiting one store, not negative (default 0).
+     * @param budgetMs The time allowed for the search, in milliseconds, not negative (default 200).
+     * @param debug When true, adds a "debug" field with per-stage timings and the search size.
+     * @return The chosen stores, the items bought in each, the item, visit and overall totals, the items no
+     *         chosen store carries, and whether the plan is proven optimal.
+     */
+    @PostMapping("/optimize")
+    public OptimizedBasket optimizeBasket(@RequestBody List<BasketItem> items, @RequestParam String date,
+                                              @RequestParam(required = false) Integer maxStores,
+                                              @RequestParam(defaultValue = "0") double visitCost,
+                                              @RequestParam(defaultValue = "200") long budgetMs,
+                                              @RequestParam(defaultValue = "false") boolean debug) {
+        if (maxStores != null && maxStores < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxStores must be positive");
         }
-        result.put("storeTotals", roundedStoreTotals);
-        result.put("overallTotal", round2(overallTotal));
-        return result;
+        // A negative cost would make the search bound unsound; NaN fails this check too
+        if (!(visitCost >= 0) || Double.isInfinite(visitCost)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "visitCost must be a non-negative amount");
+        }
+        if (budgetMs < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "budgetMs must not be negative");
+        }
+        long started = System.nanoTime();
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        BasketOffers offers = BasketOffers.resolve(catalog, items, LocalDate.parse(date));
+        long resolved = System.nanoTime();
+        BasketPlan plan = BasketOptimizer.optimize(offers, items, maxStores, visitCost, budgetMs * 1_000_000L);
+        long optimized = System.nanoTime();
+
+        List<String> stores = offers.getStores();
+        List<String> chosenStores = new ArrayList<>();
+        for (int s = 0; s < stores.size(); s++) {
+            if (plan.isSelected(s)) chosenStores.add(stores.get(s));
+        }
+        List<BasketLine> resultItems = new ArrayList<>();
+        List<String> unavailable = new ArrayList<>();
+        long[] storeTotals = new long[stores.size()];
+        // Stores in the order their first item appears in the basket
+        int[] visitOrder = new int[stores.size()];
+        boolean[] seen = new boolean[stores.size()];
+        int visited = 0;
+        long itemsTotal = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BasketItem item = items.get(i);
+            int store = -1;
+            for (int s = 0; s < stores.size(); s++) {
+                BasketOffer offer = offers.getOffer(i, s);
+                if (plan.isSelected(s) && offer != null
+                        && (store < 0 || offer.getPrice() < offers.getOffer(i, store).getPrice())) {
+                    store = s;
+                }
+            }
+            if (store < 0) {
+                unavailable.add(item.getProductName());
+                continue;
+            }
+            BasketOffer best = offers.getOffer(i, store);
+            long total = Money.times(best.getPrice(), item.getQuantity());
+            resultItems.add(line(item, best, total));
+            if (!seen[store]) {
+                seen[store] = true;
+                visitOrder[visited++] = store;
+            }
+            storeTotals[store] += total;
+            itemsTotal += total;
+        }
+        long visitsTotal = Money.of(visitCost) * chosenStores.size();
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (int k = 0; k < visited; k++) {
+            totals.put(stores.get(visitOrder[k]), Money.toDouble(storeTotals[visitOrder[k]]));
+        }
+
+        Map<String, Object> debugInfo = null;
+        if (debug) {
+            long finished = System.nanoTime();
+            Map<String, Object> timings = new LinkedHashMap<>();
+            timings.put("resolveOffersMs", (resolved - started) / 1e6);
+            timings.put("optimizeMs", (optimized - resolved) / 1e6);
+            timings.put("totalMs", (finished - started) / 1e6);
+            debugInfo = new LinkedHashMap<>();
+            debugInfo.put("catalogVersion", catalog.getVersion());
+            debugInfo.put("stores", stores.size());
+            debugInfo.put("items", items.size());
+            debugInfo.put("searchNodes", plan.getNodes());
+            debugInfo.put("timings", timings);
+        }
+        return new OptimizedBasket(chosenStores, resultItems, unavailable, totals, Money.toDouble(itemsTotal),
+            Money.toDouble(visitsTotal), Money.toDouble(itemsTotal + visitsTotal), plan.isExact(), debugInfo);
     }
-} 
\ No newline at end of file
+}
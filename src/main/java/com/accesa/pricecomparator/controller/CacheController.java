@@ -0,0 +1,28 @@
+package com.accesa.pricecomparator.controller;
+
+import com.accesa.pricecomparator.model.CacheStats;
+import com.accesa.pricecomparator.service.ResultCache;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the result cache.
+ * Provides an endpoint to monitor how often cached results are reused.
+ */
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+    private final ResultCache resultCache;
+
+    public CacheController(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters and the current size of the result cache.
+     * @return The CacheStats.
+     */
+    @GetMapping("/stats")
+    public CacheStats getStats() {
+        return resultCache.getStats();
+    }
+}
@@ -1,11 +1,22 @@
 package com.accesa.pricecomparator.controller;
 
+import com.accesa.pricecomparator.model.BestProductDiscount;
 import com.accesa.pricecomparator.model.Discount;
+import com.accesa.pricecomparator.model.StoreDiscount;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.DiscountIntervalIndex;
+import com.accesa.pricecomparator.service.NdjsonWriter;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.RankedDiscount;
+import com.accesa.pricecomparator.service.RowCursor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * REST controller for discount-related endpoints.
@@ -26,114 +37,227 @@ public class DiscountController {
      * @return List of discounts with store info.
      */
     @GetMapping
-    public List<java.util.Map<String, Object>> getDiscounts(@RequestParam String date) {
+    public List<StoreDiscount> getDiscounts(@RequestParam String date) {
         LocalDate queryDate = LocalDate.parse(date);
-        List<String> stores = csvDataLoaderService.getAvailableStores();
-        List<java.util.Map<String, Object>> allDiscounts = new java.util.ArrayList<>();
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        List<String> stores = catalog.getStores();
+        List<StoreDiscount> allDiscounts = new java.util.ArrayList<>();
         for (String store : stores) {
-            List<Discount> discounts = csvDataLoaderService.loadAllDiscountsForStore(store);
-            for (Discount d : discounts) {
-                if ((d.getFromDate().isBefore(queryDate) || d.getFromDate().isEqual(queryDate)) &&
-                    (d.getToDate().isAfter(queryDate) || d.getToDate().isEqual(queryDate))) {
-                    java.util.Map<String, Object> discountWithStore = new java.util.HashMap<>();
-                    discountWithStore.put("store", store);
-                    discountWithStore.put("discount", d);
-                    allDiscounts.add(discountWithStore);
-                }
+            for (Discount d : catalog.getActiveDiscounts(store, queryDate)) {
+                allDiscounts.add(new StoreDiscount(store, d));
             }
         }
         return allDiscounts;
     }
 
     /**
-     * Returns the top 10 discounts (by percentage) valid on the given date, across all stores.
+     * Streams all discounts from all stores valid on the given date as newline-delimited JSON, one discount with
+     * its store per line, written straight from the discount tables. Lines come in the same order as
+     * {@link #getDiscounts(String)}.
+     * Selected with {@code Accept: application/x-ndjson}. With a limit, at most that many discounts are written and,
+     * if more remain, the X-Next-Cursor header holds the cursor to pass as {@code after} for the next page.
+     * Rows are taken from each store's interval index, so a page only visits the rows valid on the date.
+     * @param date The date to check (YYYY-MM-DD).
+     * @param limit The maximum number of discounts to return (optional, all by default).
+     * @param after The cursor returned with the previous page (optional).
+     * @return A stream of discount lines with store info.
+     */
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamDiscounts(@RequestParam String date,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) String after) {
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        int day = (int) LocalDate.parse(date).toEpochDay();
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        int query = RowCursor.queryHash("discounts", date);
+        ActiveDiscounts page = new ActiveDiscounts(catalog, day);
+        if (after != null) {
+            page.resume(resume(after, catalog, query));
+        }
+
+        // The end of the page is found by counting over the stores' active rows, which the body then reuses
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE));
+        if (limit != null) {
+            RowCursor next = page.cursorAfter(limit, query);
+            if (next != null) response.header(RowCursor.NEXT_CURSOR, next.encode());
+        }
+        int rows = limit == null ? Integer.MAX_VALUE : limit;
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(out)) {
+                for (int i = 0; i < rows && page.seek(); i++) {
+                    int entry = page.entries[page.position];
+                    writer.generator().writeStartObject();
+                    writer.generator().writeStringField("store", page.stores.get(page.store));
+                    writer.generator().writeFieldName("discount");
+                    page.index.getTable(entry).writeRow(writer.generator(), page.index.getRow(entry));
+                    writer.generator().writeEndObject();
+                    writer.endRow();
+                    page.position++;
+                }
+            }
+        };
+        return response.body(body);
+    }
+
+    private static RowCursor resume(String after, PriceCatalog catalog, int query) {
+        try {
+            return RowCursor.resume(after, catalog.getVersion(), query, 2);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage());
+        }
+    }
+
+    /**
+     * Walks the discount rows valid on a day in the order of {@link #getDiscounts(String)}: stores in catalog
+     * order, then each store's discount files oldest first, then file order. The rows of a store come from its
+     * interval index, looked up once per store and kept, so counting a page and writing it share the lookup.
+     * A cursor holds (store, sequence of the next row in the store's file order).
+     */
+    private static final class ActiveDiscounts {
+        private final PriceCatalog catalog;
+        private final List<String> stores;
+        private final int day;
+        private final int[][] active;
+        private int store;
+        private int position;
+        private DiscountIntervalIndex index;
+        private int[] entries;
+
+        ActiveDiscounts(PriceCatalog catalog, int day) {
+            this.catalog = catalog;
+            this.stores = catalog.getStores();
+            this.day = day;
+            this.active = new int[stores.size()][];
+        }
+
+        /**
+         * Moves to the first valid row at or after the cursor position.
+         */
+        void resume(RowCursor cursor) {
+            store = cursor.get(0);
+            if (!load()) return;
+            // First entry whose sequence is at or after the cursor's
+            int lo = 0;
+            int hi = entries.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (index.getSequence(entries[mid]) < cursor.get(1)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            position = lo;
+        }
+
+        /**
+         * Loads the active rows of the current store.
+         * @return False past the last store.
+         */
+        private boolean load() {
+            if (store >= stores.size()) return false;
+            index = catalog.getDiscountIntervalIndex(stores.get(store));
+            if (active[store] == null) {
+                active[store] = index == null ? new int[0] : index.activeEntries(day);
+            }
+            entries = active[store];
+            return true;
+        }
+
+        /**
+         * Moves to the next valid row if the current store has no more.
+         * @return False if there are no more valid rows.
+         */
+        boolean seek() {
+            if (entries == null && !load()) return false;
+            while (position == entries.length) {
+                store++;
+                position = 0;
+                if (!load()) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the cursor of the row that follows a page of the given size, without moving.
+         * @return The cursor, or null if the page reaches the last valid row.
+         */
+        RowCursor cursorAfter(int rows, int query) {
+            int s = store;
+            int p = position;
+            int[] e = entries;
+            DiscountIntervalIndex i = index;
+            long left = rows;
+            RowCursor next = null;
+            while (seek()) {
+                int remaining = entries.length - position;
+                if (remaining > left) {
+                    next = new RowCursor(catalog.getVersion(), query, store,
+                        index.getSequence(entries[position + (int) left]));
+                    break;
+                }
+                left -= remaining;
+                position = entries.length;
+            }
+            store = s;
+            position = p;
+            entries = e;
+            index = i;
+            return next;
+        }
+    }
+
+    /**
+     * Returns the top K discounts (by percentage) valid on the given date, across all stores.
+     * Served from the shared discount rankings; ties keep store order, then file order.
      * @param date The date to check (YYYY-MM-DD).
+     * @param k The number of discounts to return (default 10).
      * @return List of best discounts with store info.
      */
     @GetMapping("/best")
-    public List<java.util.Map<String, Object>> getBestDiscounts(@RequestParam String date) {
+    public List<StoreDiscount> getBestDiscounts(@RequestParam String date, @RequestParam(defaultValue = "10") int k) {
         LocalDate queryDate = LocalDate.parse(date);
-        List<String> stores = csvDataLoaderService.getAvailableStores();
-        List<java.util.Map<String, Object>> allDiscounts = new java.util.ArrayList<>();
-        for (String store : stores) {
-            List<Discount> discounts = csvDataLoaderService.loadAllDiscountsForStore(store);
-            for (Discount d : discounts) {
-                if ((d.getFromDate().isBefore(queryDate) || d.getFromDate().isEqual(queryDate)) &&
-                    (d.getToDate().isAfter(queryDate) || d.getToDate().isEqual(queryDate))) {
-                    java.util.Map<String, Object> discountWithStore = new java.util.HashMap<>();
-                    discountWithStore.put("store", store);
-                    discountWithStore.put("discount", d);
-                    allDiscounts.add(discountWithStore);
-                }
-            }
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        List<StoreDiscount> best = new java.util.ArrayList<>();
+        for (RankedDiscount ranked : catalog.getDiscountRankings().top(queryDate, k)) {
+            best.add(new StoreDiscount(ranked.getStore(), ranked.getDiscount()));
         }
-        return allDiscounts.stream()
-            .sorted((a, b) -> Double.compare(
-                ((Discount) b.get("discount")).getPercentageOfDiscount(),
-                ((Discount) a.get("discount")).getPercentageOfDiscount()
-            ))
-            .limit(10)
-            .collect(Collectors.toList());
+        return best;
     }
 
     @GetMapping("/new")
-    public List<java.util.Map<String, Object>> getNewDiscounts(@RequestParam String date) {
+    public List<StoreDiscount> getNewDiscounts(@RequestParam String date) {
         LocalDate queryDate = LocalDate.parse(date);
-        List<String> stores = csvDataLoaderService.getAvailableStores();
-        List<java.util.Map<String, Object>> newDiscounts = new java.util.ArrayList<>();
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        List<String> stores = catalog.getStores();
+        List<StoreDiscount> newDiscounts = new java.util.ArrayList<>();
         for (String store : stores) {
-            List<Discount> discounts = csvDataLoaderService.loadAllDiscountsForStore(store);
-            for (Discount d : discounts) {
-                if (d.getFromDate().isEqual(queryDate)) {
-                    java.util.Map<String, Object> discountWithStore = new java.util.HashMap<>();
-                    discountWithStore.put("store", store);
-                    discountWithStore.put("discount", d);
-                    newDiscounts.add(discountWithStore);
-                }
+            for (Discount d : catalog.getNewDiscounts(store, queryDate)) {
+                newDiscounts.add(new StoreDiscount(store, d));
             }
         }
         return newDiscounts;
     }
 
     /**
-     * Returns, for each unique product name, the best discount valid for the date, including the store, limited to 10 products.
+     * Returns, for each unique product name, the best discount valid for the date, including the store, limited to K products.
+     * Served from the shared discount rankings; ties keep store order, then file order.
      * @param date The date to check (YYYY-MM-DD).
+     * @param k The number of products to return (default 10).
      * @return List of best discounts for unique products.
      */
     @GetMapping("/bestDiscountForProductsWithDifferentName")
-    public List<java.util.Map<String, Object>> getBestDiscountsForProductsWithDifferentName(@RequestParam String date) {
+    public List<BestProductDiscount> getBestDiscountsForProductsWithDifferentName(@RequestParam String date, @RequestParam(defaultValue = "10") int k) {
         LocalDate queryDate = LocalDate.parse(date);
-        List<String> stores = csvDataLoaderService.getAvailableStores();
-        java.util.Map<String, java.util.Map<String, Object>> bestDiscountsByProduct = new java.util.HashMap<>();
-
-        for (String store : stores) {
-            List<Discount> discounts = csvDataLoaderService.loadAllDiscountsForStore(store);
-            for (Discount d : discounts) {
-                if ((d.getFromDate().isBefore(queryDate) || d.getFromDate().isEqual(queryDate)) &&
-                    (d.getToDate().isAfter(queryDate) || d.getToDate().isEqual(queryDate))) {
-                    
-                    String productName = d.getProductName();
-                    double currentPercentage = d.getPercentageOfDiscount();
-                    
-                    if (!bestDiscountsByProduct.containsKey(productName) ||
-                        currentPercentage > ((Discount) bestDiscountsByProduct.get(productName).get("discount")).getPercentageOfDiscount()) {
-                        
-                        java.util.Map<String, Object> discountWithStore = new java.util.HashMap<>();
-                        discountWithStore.put("store", store);
-                        discountWithStore.put("discount", d);
-                        discountWithStore.put("productName", productName);
-                        discountWithStore.put("percentage", currentPercentage);
-                        bestDiscountsByProduct.put(productName, discountWithStore);
-                    }
-                }
-            }
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        List<BestProductDiscount> best = new java.util.ArrayList<>();
+        for (RankedDiscount ranked : catalog.getDiscountRankings().topPerProduct(queryDate, k)) {
+            best.add(new BestProductDiscount(ranked.getStore(), ranked.getDiscount()));
         }
-
-        return bestDiscountsByProduct.values().stream()
-            .sorted((a, b) -> Double.compare(
-                (double) b.get("percentage"),
-                (double) a.get("percentage")))
-            .limit(10)
-            .collect(java.util.stream.Collectors.toList());
+        return best;
     }
-} 
\ No newline at end of file
+}
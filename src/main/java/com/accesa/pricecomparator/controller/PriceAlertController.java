@@ -1,10 +1,15 @@
 package com.accesa.pricecomparator.controller;
 
 import com.accesa.pricecomparator.model.PriceAlert;
+import com.accesa.pricecomparator.model.TriggeredAlert;
 import com.accesa.pricecomparator.model.User;
+import com.accesa.pricecomparator.service.AlertEngine;
 import com.accesa.pricecomparator.service.UserService;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import java.util.ArrayList;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -13,15 +18,27 @@ import java.util.List;
 @RestController
 @RequestMapping("/alerts")
 public class PriceAlertController {
+    private final UserService userService;
+    private final AlertEngine alertEngine;
+
+    public PriceAlertController(UserService userService, AlertEngine alertEngine) {
+        this.userService = userService;
+        this.alertEngine = alertEngine;
+    }
 
     /**
      * Registers a new user.
      * @param user The user to register.
-     * @return Success message or validation error.
+     * @return Success message or validation error; 503 if the user could not be saved.
      */
     @PostMapping("/user")
     public String addUser(@RequestBody User user) {
-        String validation = UserService.addUser(user);
+        String validation;
+        try {
+            validation = userService.addUser(user);
+        } catch (UncheckedIOException e) {
+            throw notSaved(e);
+        }
         if (validation != null) {
             return validation;
         }
@@ -35,17 +52,24 @@ public class PriceAlertController {
      */
     @GetMapping("/user")
     public User getUser(@RequestParam String userId) {
-        return UserService.getUser(userId);
+        return userService.getUser(userId);
     }
 
     /**
      * Sets a price alert for a user.
      * @param userId The user's ID.
-     * @param alert The price alert to set.
+     * @param alert The price alert to set; 503 if it could not be saved.
      */
     @PostMapping
     public void setAlert(@RequestParam String userId, @RequestBody PriceAlert alert) {
-        UserService.addAlert(userId, alert);
+        try {
+            userService.addAlert(userId, alert);
+        } catch (UncheckedIOException e) {
+            throw notSaved(e);
+        } finally {
+            // The alert is set in memory even when saving it failed
+            alertEngine.reindex(userId);
+        }
     }
 
     /**
@@ -55,7 +79,7 @@ public class PriceAlertController {
      */
     @GetMapping
     public List<PriceAlert> getAlerts(@RequestParam String userId) {
-        return UserService.getAlerts(userId);
+        return userService.getAlerts(userId);
     }
 
     /**
@@ -65,59 +89,21 @@ public class PriceAlertController {
      * @return List of triggered alerts with store and product info.
      */
     @GetMapping("/check")
-    public List<java.util.Map<String, Object>> checkAlerts(@RequestParam String userId, @RequestParam String date) {
-        List<java.util.Map<String, Object>> triggered = new ArrayList<>();
-        List<PriceAlert> userAlerts = UserService.getAlerts(userId);
-        // For each alert, check all stores for the product
-        List<String> stores = new com.accesa.pricecomparator.service.CsvDataLoaderService().getAvailableStores();
-        User user = UserService.getUser(userId);
-        for (PriceAlert alert : userAlerts) {
-            for (String store : stores) {
-                List<com.accesa.pricecomparator.model.Product> products = new com.accesa.pricecomparator.service.CsvDataLoaderService().loadProducts(store, date);
-                List<com.accesa.pricecomparator.model.Discount> discounts = new com.accesa.pricecomparator.service.CsvDataLoaderService().loadDiscounts(store, date);
-                for (com.accesa.pricecomparator.model.Product p : products) {
-                    boolean nameMatch = p.getProductName().equalsIgnoreCase(alert.getProductName());
-                    boolean brandMatch = (alert.getBrand() == null || alert.getBrand().isEmpty() || (p.getBrand() != null && p.getBrand().equalsIgnoreCase(alert.getBrand())));
-                    if (nameMatch && brandMatch) {
-                        double price = p.getPrice();
-                        double bestDiscount = 0.0;
-                        // Find the best discount for this product
-                        for (com.accesa.pricecomparator.model.Discount d : discounts) {
-                            boolean dNameMatch = d.getProductName().equalsIgnoreCase(alert.getProductName());
-                            boolean dBrandMatch = (alert.getBrand() == null || alert.getBrand().isEmpty() || (d.getBrand() != null && d.getBrand().equalsIgnoreCase(alert.getBrand())));
-                            if (dNameMatch && dBrandMatch &&
-                                !java.time.LocalDate.parse(date).isBefore(d.getFromDate()) &&
-                                !java.time.LocalDate.parse(date).isAfter(d.getToDate())) {
-                                if (d.getPercentageOfDiscount() > bestDiscount) {
-                                    bestDiscount = d.getPercentageOfDiscount();
-                                }
-                            }
-                        }
-                        double finalPrice = price;
-                        if (bestDiscount > 0.0) {
-                            finalPrice = price - (price * bestDiscount / 100.0);
-                        }
-                        if (finalPrice <= alert.getTargetPrice()) {
-                            java.util.Map<String, Object> map = new java.util.LinkedHashMap<>();
-                            map.put("store", store);
-                            map.put("productName", p.getProductName());
-                            map.put("brand", p.getBrand());
-                            map.put("basePrice", price);
-                            map.put("discountPercent", bestDiscount);
-                            map.put("finalPrice", Math.round(finalPrice * 100.0) / 100.0);
-                            map.put("targetPrice", alert.getTargetPrice());
-                            map.put("currency", p.getCurrency());
-                            // Simulate email notification
-                            if (user != null) {
-                                System.out.println("[EMAIL] To: " + user.getEmail() + " | Subject: Price Alert Triggered | Body: Product '" + p.getProductName() + "' at store '" + store + "' is now " + finalPrice + " " + p.getCurrency() + ", below your target of " + alert.getTargetPrice());
-                                map.put("notification", "Email would be sent to: " + user.getEmail());
-                            }
-                            triggered.add(map);
-                        }
-                    }
-                }
-            }
-        }
-        return triggered;
+    public List<TriggeredAlert> checkAlerts(@RequestParam String userId, @RequestParam String date) {
+        return alertEngine.check(userId, LocalDate.parse(date));
+    }
+
+    /**
+     * Returns the alerts triggered by changes to the data files, the most recent ones of every user.
+     * @param userId The user's ID (optional, default all users).
+     * @return List of triggered alerts with user, date, store and product info, oldest first per user.
+     */
+    @GetMapping("/triggered")
+    public List<TriggeredAlert> getTriggeredAlerts(@RequestParam(required = false) String userId) {
+        return userId == null ? alertEngine.getTriggered() : alertEngine.getTriggered(userId);
+    }
+
+    private static ResponseStatusException notSaved(UncheckedIOException e) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Change could not be saved, retry later", e);
     }
-} 
\ No newline at end of file
+}
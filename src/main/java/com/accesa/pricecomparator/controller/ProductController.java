@@ -2,7 +2,17 @@ package com.accesa.pricecomparator.controller;
 
 import com.accesa.pricecomparator.model.Product;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.NdjsonWriter;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.ProductTable;
+import com.accesa.pricecomparator.service.RowCursor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -29,6 +39,56 @@ public class ProductController {
         return csvDataLoaderService.loadProducts(store, date);
     }
 
+    /**
+     * Streams the products for a given store and date as newline-delimited JSON, one product per line, written
+     * straight from the price table, so memory use does not depend on the number of products.
+     * Selected with {@code Accept: application/x-ndjson}. With a limit, at most that many products are written and,
+     * if more remain, the X-Next-Cursor header holds the cursor to pass as {@code after} for the next page.
+     * @param store The store name.
+     * @param date The date (YYYY-MM-DD).
+     * @param limit The maximum number of products to return (optional, all by default).
+     * @param after The cursor returned with the previous page (optional).
+     * @return A stream of Product lines.
+     */
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamProducts(@RequestParam String store, @RequestParam String date,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                @RequestParam(required = false) String after) {
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        ProductTable table = catalog.getProductTable(store, LocalDate.parse(date));
+        int size = table == null ? 0 : table.size();
+        int query = RowCursor.queryHash("products", store, date);
+        int from = after == null ? 0 : resume(after, catalog, query).get(0);
+        int to = limit == null ? size : (int) Math.min(size, (long) from + limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE));
+        if (to < size) {
+            response.header(RowCursor.NEXT_CURSOR, new RowCursor(catalog.getVersion(), query, to).encode());
+        }
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(out)) {
+                for (int row = from; row < to; row++) {
+                    table.writeRow(writer.generator(), row);
+                    writer.endRow();
+                }
+            }
+        };
+        return response.body(body);
+    }
+
+    private static RowCursor resume(String after, PriceCatalog catalog, int query) {
+        try {
+            return RowCursor.resume(after, catalog.getVersion(), query, 1);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage());
+        }
+    }
+
     /**
      * Returns a product by its ID for a given store and date.
      * @param productId The product ID.
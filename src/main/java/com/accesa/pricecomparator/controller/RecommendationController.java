@@ -1,7 +1,15 @@
 package com.accesa.pricecomparator.controller;
 
 import com.accesa.pricecomparator.model.Product;
+import com.accesa.pricecomparator.model.ValueOffer;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.DiscountIntervalIndex;
+import com.accesa.pricecomparator.service.DiscountTable;
+import com.accesa.pricecomparator.service.Money;
+import com.accesa.pricecomparator.service.NameBrandIndex;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.ProductTable;
+import com.accesa.pricecomparator.service.ResultCache;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -12,79 +20,200 @@ import java.util.List;
 @RestController
 @RequestMapping("/recommendations")
 public class RecommendationController {
+    // Estimated size of a cached offer; the product it refers to is shared with other offers
+    private static final long OFFER_BYTES = 160;
+
     private final CsvDataLoaderService csvDataLoaderService;
+    private final ResultCache resultCache;
 
-    public RecommendationController(CsvDataLoaderService csvDataLoaderService) {
+    public RecommendationController(CsvDataLoaderService csvDataLoaderService, ResultCache resultCache) {
         this.csvDataLoaderService = csvDataLoaderService;
+        this.resultCache = resultCache;
     }
 
     /**
      * Returns a list of best value products for a given product name and date, sorted by value per unit.
+     * Results are cached per catalog version, for names that are equal once normalized. Listings without a valid
+     * package size have no value per unit and are left out.
      * @param productName The product name to search for.
      * @param date The date (YYYY-MM-DD).
-     * @return List of product info maps sorted by value per unit.
+     * @return List of offers sorted by value per unit.
      */
     @GetMapping
-    public List<java.util.Map<String, Object>> getBestValueProducts(@RequestParam String productName, @RequestParam String date) {
-        java.util.List<java.util.Map<String, Object>> results = new java.util.ArrayList<>();
-        java.util.List<String> stores = csvDataLoaderService.getAvailableStores();
+    public List<ValueOffer> getBestValueProducts(@RequestParam String productName, @RequestParam String date) {
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
         java.time.LocalDate localDate = java.time.LocalDate.parse(date);
+        String[] params = {NameBrandIndex.normalize(productName), localDate.toString()};
+        return resultCache.get("recommendations", catalog, params, OFFER_BYTES,
+            () -> bestValueProducts(catalog, productName, localDate));
+    }
+
+    private List<ValueOffer> bestValueProducts(PriceCatalog catalog, String productName, java.time.LocalDate localDate) {
+        java.util.List<ValueOffer> results = new java.util.ArrayList<>();
+        java.util.List<String> stores = catalog.getStores();
+        long day = localDate.toEpochDay();
         for (String store : stores) {
-            java.util.List<Product> products = csvDataLoaderService.loadProducts(store, date);
-            java.util.List<com.accesa.pricecomparator.model.Discount> discounts = csvDataLoaderService.loadAllDiscountsForStore(store);
-            for (Product p : products) {
-                if (p.getProductName().equalsIgnoreCase(productName)) {
-                    double basePrice = p.getPrice();
-                    double bestDiscount = 0.0;
-                    for (com.accesa.pricecomparator.model.Discount d : discounts) {
-                        if (d.getProductName().equalsIgnoreCase(productName)
-                            && (!localDate.isBefore(d.getFromDate()) && !localDate.isAfter(d.getToDate()))) {
-                            if (d.getPercentageOfDiscount() > bestDiscount) {
-                                bestDiscount = d.getPercentageOfDiscount();
-                            }
-                        }
-                    }
-                    double finalPrice = basePrice;
-                    if (bestDiscount > 0.0) {
-                        finalPrice = basePrice - (basePrice * bestDiscount / 100.0);
-                    }
-                    // Calculate value per 100g, 100ml, or 1 unit
-                    String unit = p.getPackageUnit().toLowerCase();
-                    double quantity = p.getPackageQuantity();
-                    double valuePerUnit = finalPrice / quantity;
-                    String valuePerUnitLabel = "per 1 " + unit;
-                    if (unit.equals("kg")) {
-                        valuePerUnit = finalPrice / (quantity * 10); // 1kg = 10x100g
-                        valuePerUnitLabel = "per 100g";
-                    } else if (unit.equals("g")) {
-                        valuePerUnit = finalPrice / (quantity / 100.0);
-                        valuePerUnitLabel = "per 100g";
-                    } else if (unit.equals("l")) {
-                        valuePerUnit = finalPrice / (quantity * 10); // 1L = 10x100ml
-                        valuePerUnitLabel = "per 100ml";
-                    } else if (unit.equals("ml")) {
-                        valuePerUnit = finalPrice / (quantity / 100.0);
-                        valuePerUnitLabel = "per 100ml";
-                    }
-                    java.util.Map<String, Object> map = new java.util.LinkedHashMap<>();
-                    map.put("valuePerUnit", Math.round(valuePerUnit * 100.0) / 100.0);
-                    map.put("valuePerUnitLabel", valuePerUnitLabel);
-                    map.put("finalPrice", Math.round(finalPrice * 100.0) / 100.0);
-                    map.put("discountPercent", bestDiscount);
-                    map.put("basePrice", basePrice);
-                    map.put("store", store);
-                    map.put("productId", p.getProductId());
-                    map.put("productName", p.getProductName());
-                    map.put("brand", p.getBrand());
-                    map.put("packageQuantity", p.getPackageQuantity());
-                    map.put("packageUnit", p.getPackageUnit());
-                    map.put("currency", p.getCurrency());
-                    results.add(map);
+            ProductTable products = catalog.getProductTable(store, localDate);
+            if (products == null) continue;
+            int[] rows = products.findRows(productName, null);
+            if (rows.length == 0) continue;
+            double bestDiscount = bestDiscount(catalog, store, productName, day);
+            for (int row : rows) {
+                // Without a valid package size there is no value per unit to rank by
+                if (!products.hasUnitPrice(row)) continue;
+                Product p = products.toProduct(row);
+                double finalPrice = p.getPrice();
+                // Package sizes are normalized to 100g, 100ml or 1 unit when the table is built
+                double valuePerUnit = products.getUnitPrice(row);
+                if (bestDiscount > 0.0) {
+                    finalPrice = Money.toDouble(Money.discount(Money.of(finalPrice), bestDiscount));
+                    valuePerUnit = finalPrice / products.getUnitQuantity(row);
                 }
+                results.add(new ValueOffer(store, p, bestDiscount, finalPrice,
+                    Math.round(valuePerUnit * 100.0) / 100.0, products.getUnitLabel(row)));
             }
         }
         return results.stream()
-            .sorted(java.util.Comparator.comparingDouble(m -> (double) m.get("valuePerUnit")))
+            .sorted(java.util.Comparator.comparingDouble(ValueOffer::getValuePerUnit))
             .collect(java.util.stream.Collectors.toList());
     }
+
+    /**
+     * Returns the K cheapest alternatives to a product on a date, across all stores, by price per 100 g, 100 ml or
+     * unit after discounts. Alternatives are products of the same category sold in the same reporting unit as the
+     * first store's listing of the product; listings of the product itself are left out.
+     * Each store's category is read from its unit-price index, cheapest first, and the read stops once even the
+     * store's deepest discount of the day could not beat the K-th offer found so far.
+     * @param productName The product to replace.
+     * @param brand The brand of the product (optional); when given, other brands of the same product are alternatives too.
+     * @param date The date (YYYY-MM-DD).
+     * @param k The number of alternatives to return (default 5).
+     * @return List of offers sorted by value per unit, empty if no store lists the product.
+     */
+    @GetMapping("/substitutes")
+    public List<ValueOffer> getSubstitutes(@RequestParam String productName, @RequestParam(required = false) String brand,
+                                           @RequestParam String date, @RequestParam(defaultValue = "5") int k) {
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        java.time.LocalDate localDate = java.time.LocalDate.parse(date);
+        String lookup = brand == null || brand.isEmpty()
+            ? NameBrandIndex.normalize(productName)
+            : NameBrandIndex.key(productName, brand);
+        String[] params = {lookup, localDate.toString(), String.valueOf(k)};
+        return resultCache.get("substitutes", catalog, params, OFFER_BYTES,
+            () -> substitutes(catalog, productName, brand, localDate, k));
+    }
+
+    private List<ValueOffer> substitutes(PriceCatalog catalog, String productName, String brand,
+                                         java.time.LocalDate localDate, int k) {
+        java.util.List<String> stores = catalog.getStores();
+        long day = localDate.toEpochDay();
+        String category = null;
+        String unitLabel = null;
+        for (String store : stores) {
+            ProductTable products = catalog.getProductTable(store, localDate);
+            int[] rows = products == null ? new int[0] : products.findRows(productName, brand);
+            if (rows.length > 0) {
+                category = products.getProductCategory(rows[0]);
+                unitLabel = products.getUnitLabel(rows[0]);
+                break;
+            }
+        }
+        if (category == null || k <= 0) return new java.util.ArrayList<>();
+
+        // Max-heap of the best K candidates, worst on top
+        java.util.PriorityQueue<Substitute> best = new java.util.PriorityQueue<>(Substitute.ORDER.reversed());
+        for (int s = 0; s < stores.size(); s++) {
+            String store = stores.get(s);
+            ProductTable products = catalog.getProductTable(store, localDate);
+            if (products == null) continue;
+            int[] rows = products.findRowsByUnitPrice(category, unitLabel);
+            if (rows.length == 0) continue;
+            int[] own = products.findRows(productName, brand);
+            double maxFactor = 1.0 - maxActiveDiscount(catalog, store, (int) day) / 100.0;
+            // Discounted prices are rounded to the ban, so they can be up to half a ban below price * factor
+            double minQuantity = Double.MAX_VALUE;
+            for (int row : rows) {
+                minQuantity = Math.min(minQuantity, products.getUnitQuantity(row));
+            }
+            double slack = 0.005 / minQuantity;
+            for (int row : rows) {
+                if (best.size() == k && products.getUnitPrice(row) * maxFactor - slack > best.peek().valuePerUnit) break;
+                if (java.util.Arrays.binarySearch(own, row) >= 0) continue;
+                Substitute candidate = new Substitute(s, products, row,
+                    bestDiscount(catalog, store, products.getProductName(row), day));
+                if (best.size() < k) {
+                    best.add(candidate);
+                } else if (Substitute.ORDER.compare(candidate, best.peek()) < 0) {
+                    best.poll();
+                    best.add(candidate);
+                }
+            }
+        }
+
+        java.util.List<Substitute> sorted = new java.util.ArrayList<>(best);
+        sorted.sort(Substitute.ORDER);
+        java.util.List<ValueOffer> results = new java.util.ArrayList<>(sorted.size());
+        for (Substitute c : sorted) {
+            results.add(new ValueOffer(stores.get(c.store), c.products.toProduct(c.row), c.discount, c.finalPrice,
+                Math.round(c.valuePerUnit * 100.0) / 100.0, c.products.getUnitLabel(c.row)));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the best discount for a product name valid on a day, across all of a store's discount files.
+     */
+    private static double bestDiscount(PriceCatalog catalog, String store, String productName, long day) {
+        double bestDiscount = 0.0;
+        for (DiscountTable discounts : catalog.getDiscountTables(store)) {
+            for (int d : discounts.findRows(productName, null)) {
+                if (day >= discounts.getFromDay(d) && day <= discounts.getToDay(d)
+                    && discounts.getPercentageOfDiscount(d) > bestDiscount) {
+                    bestDiscount = discounts.getPercentageOfDiscount(d);
+                }
+            }
+        }
+        return bestDiscount;
+    }
+
+    /**
+     * Returns the deepest discount of any product valid on a day in a store, which bounds how far below its
+     * listed unit price any of the store's products can be. Read from the store's interval index.
+     */
+    private static double maxActiveDiscount(PriceCatalog catalog, String store, int day) {
+        DiscountIntervalIndex index = catalog.getDiscountIntervalIndex(store);
+        return index == null ? 0.0 : Math.max(0.0, Math.min(index.maxPercentageOn(day), 100.0));
+    }
+
+    /**
+     * A candidate substitute: a row of a store's price table with its discounted unit price.
+     */
+    private static final class Substitute {
+        // Cheapest first; ties in store order, then file order
+        static final java.util.Comparator<Substitute> ORDER = java.util.Comparator
+            .comparingDouble((Substitute c) -> c.valuePerUnit)
+            .thenComparingInt(c -> c.store)
+            .thenComparingInt(c -> c.row);
+
+        final int store;
+        final ProductTable products;
+        final int row;
+        final double discount;
+        final double finalPrice;
+        final double valuePerUnit;
+
+        Substitute(int store, ProductTable products, int row, double discount) {
+            this.store = store;
+            this.products = products;
+            this.row = row;
+            this.discount = discount;
+            if (discount > 0.0) {
+                this.finalPrice = Money.toDouble(Money.discount(Money.of(products.getPrice(row)), discount));
+                this.valuePerUnit = finalPrice / products.getUnitQuantity(row);
+            } else {
+                this.finalPrice = products.getPrice(row);
+                this.valuePerUnit = products.getUnitPrice(row);
+            }
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.accesa.pricecomparator.controller;
+
+import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Conditional GET for the read endpoints, whose responses only change when a new catalog version is published.
+ * The ETag is the catalog version plus a hash of the request (path, sorted parameters and Accept header), so it is
+ * computed before the handler runs; a matching If-None-Match is answered with 304 without calling the controller
+ * or touching the data. Every response also gets the Cache-Control policy of its endpoint.
+ */
+public class SnapshotETagInterceptor implements HandlerInterceptor {
+    // Catalog versions restart at 1 with the process, so tags from a previous run must not match
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private final CsvDataLoaderService csvDataLoaderService;
+    private final CacheControl cacheControl;
+
+    public SnapshotETagInterceptor(CsvDataLoaderService csvDataLoaderService, CacheControl cacheControl) {
+        this.csvDataLoaderService = csvDataLoaderService;
+        this.cacheControl = cacheControl;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String etag = etag(csvDataLoaderService.getCatalog().getVersion(), request);
+        // Sets the ETag header, or the 304 status when If-None-Match matches
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    /**
+     * Builds the ETag of a request against a catalog version.
+     * @param version The catalog version.
+     * @param request The request.
+     * @return The quoted ETag.
+     */
+    static String etag(long version, HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        for (Map.Entry<String, String[]> param : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            key.append('\u0000').append(param.getKey());
+            for (String value : param.getValue()) {
+                key.append('=').append(value);
+            }
+        }
+        key.append('\u0000').append(request.getHeader(HttpHeaders.ACCEPT));
+        return "\"" + BOOT_ID + "-" + version + "-" + Integer.toHexString(key.toString().hashCode()) + "\"";
+    }
+}
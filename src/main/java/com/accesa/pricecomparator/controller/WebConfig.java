@@ -0,0 +1,41 @@
+package com.accesa.pricecomparator.controller;
+
+import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the conditional GET support of the read endpoints, with the Cache-Control policy of each.
+ * Lists for a store and date may be reused for a minute; history and analytics span whole files and change least
+ * often.
+ * Clients revalidate with If-None-Match once the max-age has passed, which is answered with 304 until new
+ * data files are loaded.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final CsvDataLoaderService csvDataLoaderService;
+
+    public WebConfig(CsvDataLoaderService csvDataLoaderService) {
+        this.csvDataLoaderService = csvDataLoaderService;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        register(registry, maxAge(60), "/products/**");
+        register(registry, maxAge(30), "/discounts/**");
+        register(registry, maxAge(30), "/recommendations/**");
+        register(registry, maxAge(300), "/history/**");
+        register(registry, maxAge(300), "/analytics/**");
+    }
+
+    private void register(InterceptorRegistry registry, CacheControl cacheControl, String... paths) {
+        registry.addInterceptor(new SnapshotETagInterceptor(csvDataLoaderService, cacheControl)).addPathPatterns(paths);
+    }
+
+    private static CacheControl maxAge(long seconds) {
+        return CacheControl.maxAge(seconds, TimeUnit.SECONDS).mustRevalidate();
+    }
+}
@@ -0,0 +1,62 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * One basket item bought in a chosen store: the unit price after discount and the line total.
+ */
+@JsonSerialize(using = BasketLine.Serializer.class)
+public final class BasketLine {
+    private final String productName;
+    private final String productId;
+    private final String brand;
+    private final String store;
+    private final double price;
+    private final double quantity;
+    private final double total;
+
+    public BasketLine(String productName, String productId, String brand, String store, double price,
+                      double quantity, double total) {
+        this.productName = productName;
+        this.productId = productId;
+        this.brand = brand;
+        this.store = store;
+        this.price = price;
+        this.quantity = quantity;
+        this.total = total;
+    }
+
+    public String getProductName() { return productName; }
+    public String getProductId() { return productId; }
+    public String getBrand() { return brand; }
+    public String getStore() { return store; }
+    public double getPrice() { return price; }
+    public double getQuantity() { return quantity; }
+    public double getTotal() { return total; }
+
+    /**
+     * Writes the fields in a fixed order without bean introspection.
+     */
+    static final class Serializer extends StdSerializer<BasketLine> {
+        Serializer() {
+            super(BasketLine.class);
+        }
+
+        @Override
+        public void serialize(BasketLine value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("productName", value.productName);
+            gen.writeStringField("productId", value.productId);
+            gen.writeStringField("brand", value.brand);
+            gen.writeStringField("store", value.store);
+            gen.writeNumberField("price", value.price);
+            gen.writeNumberField("quantity", value.quantity);
+            gen.writeNumberField("total", value.total);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.accesa.pricecomparator.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * Represents one basket of a batch optimization request.
+ * Each basket carries its own purchase date and an optional caller-chosen id echoed in the result.
+ */
+public class BasketRequest {
+    /**
+     * Optional: echoed back with the result of this basket
+     */
+    @Schema(description = "Optional: echoed back with the result of this basket", example = "order-1")
+    private String id;
+    @Schema(example = "2025-05-02")
+    private String date;
+    private List<BasketItem> items;
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public List<BasketItem> getItems() { return items; }
+    public void setItems(List<BasketItem> items) { this.items = items; }
+}
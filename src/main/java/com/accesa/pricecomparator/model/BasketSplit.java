@@ -0,0 +1,44 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A basket split across stores, every item bought where it is cheapest.
+ */
+@JsonPropertyOrder({"items", "storeTotals", "overallTotal", "debug"})
+public final class BasketSplit {
+    private final List<BasketLine> items;
+    private final Map<String, Double> storeTotals;
+    private final double overallTotal;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Map<String, Object> debug;
+
+    public BasketSplit(List<BasketLine> items, Map<String, Double> storeTotals, double overallTotal) {
+        this(items, storeTotals, overallTotal, null);
+    }
+
+    private BasketSplit(List<BasketLine> items, Map<String, Double> storeTotals, double overallTotal,
+                        Map<String, Object> debug) {
+        this.items = items;
+        this.storeTotals = storeTotals;
+        this.overallTotal = overallTotal;
+        this.debug = debug;
+    }
+
+    /**
+     * Returns a copy of this split carrying diagnostic information.
+     * @param debug The timings and sizes to report.
+     * @return The split with a "debug" field.
+     */
+    public BasketSplit withDebug(Map<String, Object> debug) {
+        return new BasketSplit(items, storeTotals, overallTotal, debug);
+    }
+
+    public List<BasketLine> getItems() { return items; }
+    public Map<String, Double> getStoreTotals() { return storeTotals; }
+    public double getOverallTotal() { return overallTotal; }
+    public Map<String, Object> getDebug() { return debug; }
+}
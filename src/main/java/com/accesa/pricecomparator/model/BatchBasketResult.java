@@ -0,0 +1,42 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * One line of a batch split-optimize response: the basket's position in the request, its id and date, and
+ * either its split or the error that prevented it.
+ */
+@JsonPropertyOrder({"index", "id", "date", "result", "error"})
+public final class BatchBasketResult {
+    private final int index;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String id;
+    private final String date;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final BasketSplit result;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String error;
+
+    private BatchBasketResult(int index, String id, String date, BasketSplit result, String error) {
+        this.index = index;
+        this.id = id;
+        this.date = date;
+        this.result = result;
+        this.error = error;
+    }
+
+    public static BatchBasketResult of(int index, BasketRequest basket, BasketSplit result) {
+        return new BatchBasketResult(index, basket.getId(), basket.getDate(), result, null);
+    }
+
+    public static BatchBasketResult failed(int index, BasketRequest basket, String error) {
+        return new BatchBasketResult(index, basket.getId(), basket.getDate(), null, error);
+    }
+
+    public int getIndex() { return index; }
+    public String getId() { return id; }
+    public String getDate() { return date; }
+    public BasketSplit getResult() { return result; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,45 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * The best discount found for one product name, with the store offering it.
+ */
+@JsonSerialize(using = BestProductDiscount.Serializer.class)
+public final class BestProductDiscount {
+    private final String store;
+    private final Discount discount;
+
+    public BestProductDiscount(String store, Discount discount) {
+        this.store = store;
+        this.discount = discount;
+    }
+
+    public String getStore() { return store; }
+    public Discount getDiscount() { return discount; }
+    public String getProductName() { return discount.getProductName(); }
+    public double getPercentage() { return discount.getPercentageOfDiscount(); }
+
+    /**
+     * Writes the fields in a fixed order without bean introspection.
+     */
+    static final class Serializer extends StdSerializer<BestProductDiscount> {
+        Serializer() {
+            super(BestProductDiscount.class);
+        }
+
+        @Override
+        public void serialize(BestProductDiscount value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("store", value.store);
+            gen.writeStringField("productName", value.getProductName());
+            gen.writeNumberField("percentage", value.getPercentage());
+            provider.defaultSerializeField("discount", value.discount, gen);
+            gen.writeEndObject();
+        }
+    }
+}
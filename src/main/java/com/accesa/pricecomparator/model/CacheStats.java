@@ -0,0 +1,45 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Counters of the result cache, as reported by the cache statistics endpoint.
+ */
+@JsonPropertyOrder({"hits", "misses", "coalesced", "evictions", "hitRate", "entries", "bytes", "budgetBytes"})
+public final class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long coalesced;
+    private final long evictions;
+    private final int entries;
+    private final long bytes;
+    private final long budgetBytes;
+
+    public CacheStats(long hits, long misses, long coalesced, long evictions, int entries, long bytes, long budgetBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    /** Requests that arrived while the same result was being computed and waited for it. */
+    public long getCoalesced() { return coalesced; }
+    public long getEvictions() { return evictions; }
+    public int getEntries() { return entries; }
+    /** Estimated size of the cached results. */
+    public long getBytes() { return bytes; }
+    public long getBudgetBytes() { return budgetBytes; }
+
+    /**
+     * Returns the share of requests served without a computation of their own.
+     */
+    public double getHitRate() {
+        long total = hits + coalesced + misses;
+        return total == 0 ? 0.0 : (double) (hits + coalesced) / total;
+    }
+}
@@ -0,0 +1,46 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Price statistics of one product category in one store on one date, as returned by the analytics endpoint.
+ * Unit prices are only comparable within a reporting unit, so they are given per unit (e.g. "per 100g").
+ */
+@JsonPropertyOrder({"store", "category", "date", "products", "effectivePrice", "unitPrice", "discountedProducts",
+    "averageDiscount"})
+public final class CategoryStats {
+    private final String store;
+    private final String category;
+    private final LocalDate date;
+    private final int products;
+    private final PriceStats effectivePrice;
+    private final Map<String, PriceStats> unitPrice;
+    private final int discountedProducts;
+    private final double averageDiscount;
+
+    public CategoryStats(String store, String category, LocalDate date, int products, PriceStats effectivePrice,
+                         Map<String, PriceStats> unitPrice, int discountedProducts, double averageDiscount) {
+        this.store = store;
+        this.category = category;
+        this.date = date;
+        this.products = products;
+        this.effectivePrice = effectivePrice;
+        this.unitPrice = unitPrice;
+        this.discountedProducts = discountedProducts;
+        this.averageDiscount = averageDiscount;
+    }
+
+    public String getStore() { return store; }
+    public String getCategory() { return category; }
+    public LocalDate getDate() { return date; }
+    public int getProducts() { return products; }
+    /** Prices after the discounts valid on the date. */
+    public PriceStats getEffectivePrice() { return effectivePrice; }
+    /** Effective prices per 100 g, 100 ml or unit, by reporting unit. */
+    public Map<String, PriceStats> getUnitPrice() { return unitPrice; }
+    public int getDiscountedProducts() { return discountedProducts; }
+    /** Average discount percentage of the discounted products, 0 if there are none. */
+    public double getAverageDiscount() { return averageDiscount; }
+}
@@ -1,17 +1,19 @@
 package com.accesa.pricecomparator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
 /**
  * Represents a discount for a product in the price comparator system.
+ * Repeated string fields are held as {@link Symbols} codes and decoded by their getters.
  */
 public class Discount {
     private String productId;
-    private String productName;
-    private String brand;
+    private int productName;
+    private int brand;
     private double packageQuantity;
-    private String packageUnit;
-    private String productCategory;
+    private int packageUnit;
+    private int productCategory;
     private LocalDate fromDate;
     private LocalDate toDate;
     private double percentageOfDiscount;
@@ -19,16 +21,24 @@ public class Discount {
     // Getters and setters
     public String getProductId() { return productId; }
     public void setProductId(String productId) { this.productId = productId; }
-    public String getProductName() { return productName; }
-    public void setProductName(String productName) { this.productName = productName; }
-    public String getBrand() { return brand; }
-    public void setBrand(String brand) { this.brand = brand; }
+    public String getProductName() { return Symbols.decode(productName); }
+    public void setProductName(String productName) { this.productName = Symbols.encode(productName); }
+    @JsonIgnore public int getProductNameCode() { return productName; }
+    @JsonIgnore public void setProductNameCode(int productName) { this.productName = productName; }
+    public String getBrand() { return Symbols.decode(brand); }
+    public void setBrand(String brand) { this.brand = Symbols.encode(brand); }
+    @JsonIgnore public int getBrandCode() { return brand; }
+    @JsonIgnore public void setBrandCode(int brand) { this.brand = brand; }
     public double getPackageQuantity() { return packageQuantity; }
     public void setPackageQuantity(double packageQuantity) { this.packageQuantity = packageQuantity; }
-    public String getPackageUnit() { return packageUnit; }
-    public void setPackageUnit(String packageUnit) { this.packageUnit = packageUnit; }
-    public String getProductCategory() { return productCategory; }
-    public void setProductCategory(String productCategory) { this.productCategory = productCategory; }
+    public String getPackageUnit() { return Symbols.decode(packageUnit); }
+    public void setPackageUnit(String packageUnit) { this.packageUnit = Symbols.encode(packageUnit); }
+    @JsonIgnore public int getPackageUnitCode() { return packageUnit; }
+    @JsonIgnore public void setPackageUnitCode(int packageUnit) { this.packageUnit = packageUnit; }
+    public String getProductCategory() { return Symbols.decode(productCategory); }
+    public void setProductCategory(String productCategory) { this.productCategory = Symbols.encode(productCategory); }
+    @JsonIgnore public int getProductCategoryCode() { return productCategory; }
+    @JsonIgnore public void setProductCategoryCode(int productCategory) { this.productCategory = productCategory; }
     public LocalDate getFromDate() { return fromDate; }
     public void setFromDate(LocalDate fromDate) { this.fromDate = fromDate; }
     public LocalDate getToDate() { return toDate; }
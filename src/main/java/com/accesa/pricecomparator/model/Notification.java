@@ -0,0 +1,23 @@
+package com.accesa.pricecomparator.model;
+
+/**
+ * Represents a message waiting in the notification outbox.
+ */
+public class Notification {
+    private long id;
+    private String recipient;
+    private String subject;
+    private String body;
+    private long createdAt;
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,49 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A basket bought in a chosen set of stores, with the items no chosen store carries and whether the
+ * choice is proven optimal.
+ */
+@JsonPropertyOrder({"stores", "items", "unavailable", "storeTotals", "itemsTotal", "visitCost", "overallTotal",
+    "exact", "debug"})
+public final class OptimizedBasket {
+    private final List<String> stores;
+    private final List<BasketLine> items;
+    private final List<String> unavailable;
+    private final Map<String, Double> storeTotals;
+    private final double itemsTotal;
+    private final double visitCost;
+    private final double overallTotal;
+    private final boolean exact;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Map<String, Object> debug;
+
+    public OptimizedBasket(List<String> stores, List<BasketLine> items, List<String> unavailable,
+                           Map<String, Double> storeTotals, double itemsTotal, double visitCost, double overallTotal,
+                           boolean exact, Map<String, Object> debug) {
+        this.stores = stores;
+        this.items = items;
+        this.unavailable = unavailable;
+        this.storeTotals = storeTotals;
+        this.itemsTotal = itemsTotal;
+        this.visitCost = visitCost;
+        this.overallTotal = overallTotal;
+        this.exact = exact;
+        this.debug = debug;
+    }
+
+    public List<String> getStores() { return stores; }
+    public List<BasketLine> getItems() { return items; }
+    public List<String> getUnavailable() { return unavailable; }
+    public Map<String, Double> getStoreTotals() { return storeTotals; }
+    public double getItemsTotal() { return itemsTotal; }
+    public double getVisitCost() { return visitCost; }
+    public double getOverallTotal() { return overallTotal; }
+    public boolean isExact() { return exact; }
+    public Map<String, Object> getDebug() { return debug; }
+}
@@ -0,0 +1,26 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Distribution of a price over a group of products: minimum, median, 90th percentile and maximum.
+ */
+@JsonPropertyOrder({"min", "median", "p90", "max"})
+public final class PriceStats {
+    private final double min;
+    private final double median;
+    private final double p90;
+    private final double max;
+
+    public PriceStats(double min, double median, double p90, double max) {
+        this.min = min;
+        this.median = median;
+        this.p90 = p90;
+        this.max = max;
+    }
+
+    public double getMin() { return min; }
+    public double getMedian() { return median; }
+    public double getP90() { return p90; }
+    public double getMax() { return max; }
+}
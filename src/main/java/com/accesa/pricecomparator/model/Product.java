@@ -1,33 +1,46 @@
 package com.accesa.pricecomparator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Represents a product in the price comparator system.
+ * Repeated string fields are held as {@link Symbols} codes and decoded by their getters.
  */
 public class Product {
     private String productId;
-    private String productName;
-    private String productCategory;
-    private String brand;
+    private int productName;
+    private int productCategory;
+    private int brand;
     private double packageQuantity;
-    private String packageUnit;
+    private int packageUnit;
     private double price;
-    private String currency;
+    private int currency;
 
     // Getters and setters
     public String getProductId() { return productId; }
     public void setProductId(String productId) { this.productId = productId; }
-    public String getProductName() { return productName; }
-    public void setProductName(String productName) { this.productName = productName; }
-    public String getProductCategory() { return productCategory; }
-    public void setProductCategory(String productCategory) { this.productCategory = productCategory; }
-    public String getBrand() { return brand; }
-    public void setBrand(String brand) { this.brand = brand; }
+    public String getProductName() { return Symbols.decode(productName); }
+    public void setProductName(String productName) { this.productName = Symbols.encode(productName); }
+    @JsonIgnore public int getProductNameCode() { return productName; }
+    @JsonIgnore public void setProductNameCode(int productName) { this.productName = productName; }
+    public String getProductCategory() { return Symbols.decode(productCategory); }
+    public void setProductCategory(String productCategory) { this.productCategory = Symbols.encode(productCategory); }
+    @JsonIgnore public int getProductCategoryCode() { return productCategory; }
+    @JsonIgnore public void setProductCategoryCode(int productCategory) { this.productCategory = productCategory; }
+    public String getBrand() { return Symbols.decode(brand); }
+    public void setBrand(String brand) { this.brand = Symbols.encode(brand); }
+    @JsonIgnore public int getBrandCode() { return brand; }
+    @JsonIgnore public void setBrandCode(int brand) { this.brand = brand; }
     public double getPackageQuantity() { return packageQuantity; }
     public void setPackageQuantity(double packageQuantity) { this.packageQuantity = packageQuantity; }
-    public String getPackageUnit() { return packageUnit; }
-    public void setPackageUnit(String packageUnit) { this.packageUnit = packageUnit; }
+    public String getPackageUnit() { return Symbols.decode(packageUnit); }
+    public void setPackageUnit(String packageUnit) { this.packageUnit = Symbols.encode(packageUnit); }
+    @JsonIgnore public int getPackageUnitCode() { return packageUnit; }
+    @JsonIgnore public void setPackageUnitCode(int packageUnit) { this.packageUnit = packageUnit; }
     public double getPrice() { return price; }
     public void setPrice(double price) { this.price = price; }
-    public String getCurrency() { return currency; }
-    public void setCurrency(String currency) { this.currency = currency; }
+    public String getCurrency() { return Symbols.decode(currency); }
+    public void setCurrency(String currency) { this.currency = Symbols.encode(currency); }
+    @JsonIgnore public int getCurrencyCode() { return currency; }
+    @JsonIgnore public void setCurrencyCode(int currency) { this.currency = currency; }
 } 
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * A discount together with the store offering it, as listed by the discount endpoints.
+ */
+@JsonSerialize(using = StoreDiscount.Serializer.class)
+public final class StoreDiscount {
+    private final String store;
+    private final Discount discount;
+
+    public StoreDiscount(String store, Discount discount) {
+        this.store = store;
+        this.discount = discount;
+    }
+
+    public String getStore() { return store; }
+    public Discount getDiscount() { return discount; }
+
+    /**
+     * Writes the fields in a fixed order without bean introspection.
+     */
+    static final class Serializer extends StdSerializer<StoreDiscount> {
+        Serializer() {
+            super(StoreDiscount.class);
+        }
+
+        @Override
+        public void serialize(StoreDiscount value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("store", value.store);
+            provider.defaultSerializeField("discount", value.discount, gen);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.accesa.pricecomparator.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide symbol table for the string values that repeat across every store and date file: product names,
+ * categories, brands, package units and currencies. Each distinct value gets one int code for the life of the
+ * process, so tables and models store codes, share a single String instance per value, and compare values with
+ * an int comparison. Code 0 is null.
+ * Only assigning a new code is synchronized; looking up an existing code and decoding are lock-free. A code is
+ * published in the map after its value is stored, so any thread that sees the code can decode it.
+ */
+public final class Symbols {
+    public static final int NULL = 0;
+
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private static final Object appendLock = new Object();
+    private static volatile String[] values = new String[1024];
+    private static volatile int size = 1;
+
+    private Symbols() {
+    }
+
+    /**
+     * Returns the code for a value, assigning a new one if the value has not been seen yet.
+     * @param value The string value (may be null).
+     * @return The int code of the value.
+     */
+    public static int encode(String value) {
+        if (value == null) return NULL;
+        Integer code = codes.get(value);
+        if (code != null) return code;
+        synchronized (appendLock) {
+            code = codes.get(value);
+            if (code == null) {
+                code = size;
+                String[] current = values;
+                if (code == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[code] = value;
+                values = current;
+                codes.put(value, code);
+                size = code + 1;
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Returns the code of a value without assigning one, for lookups with values that come from requests.
+     * @param value The string value (may be null).
+     * @return The int code of the value, or -1 if the value has not been seen.
+     */
+    public static int lookup(String value) {
+        if (value == null) return NULL;
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the string value for a code.
+     * @param code An int code returned by {@link #encode(String)}.
+     * @return The string value, shared by every holder of the code.
+     */
+    public static String decode(int code) {
+        return values[code];
+    }
+
+    /**
+     * Returns the shared instance of a value, adding it to the table if needed.
+     * @param value The string value (may be null).
+     * @return The canonical instance equal to the value.
+     */
+    public static String intern(String value) {
+        return decode(encode(value));
+    }
+
+    /**
+     * Returns the number of codes assigned so far, including the one for null.
+     */
+    public static int size() {
+        return size;
+    }
+}
@@ -0,0 +1,98 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * A price alert whose product is at or below the target price in one store.
+ * Alerts triggered by a data reload also carry the user and the date they were evaluated for; a notification
+ * note is present when the user is known.
+ */
+@JsonSerialize(using = TriggeredAlert.Serializer.class)
+public final class TriggeredAlert {
+    private final String userId;
+    private final String date;
+    private final String store;
+    private final String productName;
+    private final String brand;
+    private final double basePrice;
+    private final double discountPercent;
+    private final double finalPrice;
+    private final double targetPrice;
+    private final String currency;
+    private final String notification;
+
+    public TriggeredAlert(String store, String productName, String brand, double basePrice, double discountPercent,
+                          double finalPrice, double targetPrice, String currency, String notification) {
+        this(null, null, store, productName, brand, basePrice, discountPercent, finalPrice, targetPrice, currency,
+            notification);
+    }
+
+    private TriggeredAlert(String userId, String date, String store, String productName, String brand,
+                           double basePrice, double discountPercent, double finalPrice, double targetPrice,
+                           String currency, String notification) {
+        this.userId = userId;
+        this.date = date;
+        this.store = store;
+        this.productName = productName;
+        this.brand = brand;
+        this.basePrice = basePrice;
+        this.discountPercent = discountPercent;
+        this.finalPrice = finalPrice;
+        this.targetPrice = targetPrice;
+        this.currency = currency;
+        this.notification = notification;
+    }
+
+    /**
+     * Returns a copy of this alert tagged with the user it belongs to and the date it was evaluated for.
+     * @param userId The user's ID.
+     * @param date The date (YYYY-MM-DD).
+     * @return The tagged alert.
+     */
+    public TriggeredAlert forUser(String userId, String date) {
+        return new TriggeredAlert(userId, date, store, productName, brand, basePrice, discountPercent, finalPrice,
+            targetPrice, currency, notification);
+    }
+
+    public String getUserId() { return userId; }
+    public String getDate() { return date; }
+    public String getStore() { return store; }
+    public String getProductName() { return productName; }
+    public String getBrand() { return brand; }
+    public double getBasePrice() { return basePrice; }
+    public double getDiscountPercent() { return discountPercent; }
+    public double getFinalPrice() { return finalPrice; }
+    public double getTargetPrice() { return targetPrice; }
+    public String getCurrency() { return currency; }
+    public String getNotification() { return notification; }
+
+    /**
+     * Writes the fields in a fixed order without bean introspection, leaving out the optional ones when absent.
+     */
+    static final class Serializer extends StdSerializer<TriggeredAlert> {
+        Serializer() {
+            super(TriggeredAlert.class);
+        }
+
+        @Override
+        public void serialize(TriggeredAlert value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            if (value.userId != null) gen.writeStringField("userId", value.userId);
+            if (value.date != null) gen.writeStringField("date", value.date);
+            gen.writeStringField("store", value.store);
+            gen.writeStringField("productName", value.productName);
+            gen.writeStringField("brand", value.brand);
+            gen.writeNumberField("basePrice", value.basePrice);
+            gen.writeNumberField("discountPercent", value.discountPercent);
+            gen.writeNumberField("finalPrice", value.finalPrice);
+            gen.writeNumberField("targetPrice", value.targetPrice);
+            gen.writeStringField("currency", value.currency);
+            if (value.notification != null) gen.writeStringField("notification", value.notification);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * A product listing with its discounted price and its price per standard unit (100 g, 100 ml or 1 piece),
+ * as returned by the recommendation endpoint.
+ */
+@JsonSerialize(using = ValueOffer.Serializer.class)
+public final class ValueOffer {
+    private final String store;
+    private final Product product;
+    private final double basePrice;
+    private final double discountPercent;
+    private final double finalPrice;
+    private final double valuePerUnit;
+    private final String valuePerUnitLabel;
+
+    public ValueOffer(String store, Product product, double discountPercent, double finalPrice, double valuePerUnit,
+                      String valuePerUnitLabel) {
+        this.store = store;
+        this.product = product;
+        this.basePrice = product.getPrice();
+        this.discountPercent = discountPercent;
+        this.finalPrice = finalPrice;
+        this.valuePerUnit = valuePerUnit;
+        this.valuePerUnitLabel = valuePerUnitLabel;
+    }
+
+    public String getStore() { return store; }
+    public String getProductId() { return product.getProductId(); }
+    public String getProductName() { return product.getProductName(); }
+    public String getBrand() { return product.getBrand(); }
+    public double getPackageQuantity() { return product.getPackageQuantity(); }
+    public String getPackageUnit() { return product.getPackageUnit(); }
+    public String getCurrency() { return product.getCurrency(); }
+    public double getBasePrice() { return basePrice; }
+    public double getDiscountPercent() { return discountPercent; }
+    public double getFinalPrice() { return finalPrice; }
+    public double getValuePerUnit() { return valuePerUnit; }
+    public String getValuePerUnitLabel() { return valuePerUnitLabel; }
+
+    /**
+     * Writes the fields in a fixed order without bean introspection.
+     */
+    static final class Serializer extends StdSerializer<ValueOffer> {
+        Serializer() {
+            super(ValueOffer.class);
+        }
+
+        @Override
+        public void serialize(ValueOffer value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("valuePerUnit", value.valuePerUnit);
+            gen.writeStringField("valuePerUnitLabel", value.valuePerUnitLabel);
+            gen.writeNumberField("finalPrice", value.finalPrice);
+            gen.writeNumberField("discountPercent", value.discountPercent);
+            gen.writeNumberField("basePrice", value.basePrice);
+            gen.writeStringField("store", value.store);
+            gen.writeStringField("productId", value.getProductId());
+            gen.writeStringField("productName", value.getProductName());
+            gen.writeStringField("brand", value.getBrand());
+            gen.writeNumberField("packageQuantity", value.getPackageQuantity());
+            gen.writeStringField("packageUnit", value.getPackageUnit());
+            gen.writeStringField("currency", value.getCurrency());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.PriceAlert;
+import com.accesa.pricecomparator.model.TriggeredAlert;
+import com.accesa.pricecomparator.model.User;
+import org.springframework.stereotype.Service;
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates price alerts against the catalog.
+ * Every user's alerts are indexed by normalized product name (for alerts without a brand) or by name and brand,
+ * the same keys NameBrandIndex uses. When a new catalog version is published, only the products whose listed
+ * price or best discount changed are looked up in the index, so the cost of a reload grows with the number of
+ * changed products and the alerts on them, not with the number of users. The alerts triggered by reloads are kept
+ * per user, up to the {@value #MAX_TRIGGERED_PER_USER} most recent.
+ */
+@Service
+public class AlertEngine implements CatalogReloadListener {
+    static final int MAX_TRIGGERED_PER_USER = 100;
+
+    private final CsvDataLoaderService csvDataLoaderService;
+    private final UserService userService;
+    private final NotificationOutbox notificationOutbox;
+    private final Map<String, List<IndexedAlert>> alertsByProduct = new HashMap<>();
+    private final Map<String, Set<String>> keysByUser = new HashMap<>();
+    // userId -> alerts triggered by reloads, oldest first; lists are immutable and replaced as a whole
+    private final Map<String, List<TriggeredAlert>> triggeredByUser = new ConcurrentHashMap<>();
+
+    public AlertEngine(CsvDataLoaderService csvDataLoaderService, UserService userService, NotificationOutbox notificationOutbox) {
+        this.csvDataLoaderService = csvDataLoaderService;
+        this.userService = userService;
+        this.notificationOutbox = notificationOutbox;
+        for (String userId : userService.getAlertUserIds()) {
+            reindex(userId);
+        }
+    }
+
+    /**
+     * Subscribes to catalog reloads.
+     */
+    @PostConstruct
+    public void start() {
+        csvDataLoaderService.addReloadListener(this);
+    }
+
+    /**
+     * Replaces the indexed alerts of a user with the ones currently stored for them.
+     * @param userId The user's ID.
+     */
+    public synchronized void reindex(String userId) {
+        Set<String> oldKeys = keysByUser.remove(userId);
+        if (oldKeys != null) {
+            for (String key : oldKeys) {
+                List<IndexedAlert> alerts = alertsByProduct.get(key);
+                alerts.removeIf(a -> a.userId.equals(userId));
+                if (alerts.isEmpty()) {
+                    alertsByProduct.remove(key);
+                }
+            }
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (PriceAlert alert : userService.getAlerts(userId)) {
+            String key = keyOf(alert);
+            alertsByProduct.computeIfAbsent(key, k -> new ArrayList<>()).add(new IndexedAlert(userId, alert));
+            keys.add(key);
+        }
+        if (!keys.isEmpty()) {
+            keysByUser.put(userId, keys);
+        }
+    }
+
+    /**
+     * Returns the number of indexed alerts on a product.
+     * @param productName The product name.
+     * @param brand The brand, or null/empty for alerts on any brand.
+     * @return The number of alerts.
+     */
+    public synchronized int countAlerts(String productName, String brand) {
+        List<IndexedAlert> alerts = alertsByProduct.get(brand == null || brand.isEmpty()
+            ? NameBrandIndex.normalize(productName)
+            : NameBrandIndex.key(productName, brand));
+        return alerts == null ? 0 : alerts.size();
+    }
+
+    /**
+     * Checks all alerts of a user on a date and returns the triggered ones.
+     * @param userId The user's ID.
+     * @param date The date to check.
+     * @return List of triggered alerts with store and product info.
+     */
+    public List<TriggeredAlert> check(String userId, LocalDate date) {
+        List<TriggeredAlert> triggered = new ArrayList<>();
+        PriceCatalog catalog = csvDataLoaderService.getCatalog();
+        User user = userService.getUser(userId);
+        for (PriceAlert alert : userService.getAlerts(userId)) {
+            for (String store : catalog.getStores()) {
+                triggered.addAll(evaluate(catalog, user, alert, store, date));
+            }
+        }
+        return triggered;
+    }
+
+    /**
+     * Returns the alerts triggered by catalog reloads, for all users.
+     * @return The most recent triggered alerts of every user, oldest first, each with the userId it belongs to.
+     */
+    public List<TriggeredAlert> getTriggered() {
+        List<TriggeredAlert> triggered = new ArrayList<>();
+        for (List<TriggeredAlert> alerts : new TreeMap<>(triggeredByUser).values()) {
+            triggered.addAll(alerts);
+        }
+        return triggered;
+    }
+
+    /**
+     * Returns the alerts of one user triggered by catalog reloads.
+     * @param userId The user's ID.
+     * @return The user's most recent triggered alerts, oldest first.
+     */
+    public List<TriggeredAlert> getTriggered(String userId) {
+        return triggeredByUser.getOrDefault(userId, Collections.emptyList());
+    }
+
+    /**
+     * Finds the products whose price or discounts changed in the reloaded files, and evaluates only the alerts
+     * on those products: for a price file on its date, for a discount file on the day each new discount takes effect.
+     */
+    @Override
+    public void catalogReloaded(PriceCatalog previous, PriceCatalog next, Collection<String> fileNames) {
+        // store key + date -> changed product keys
+        Map<String, Set<String>> changedByStoreDate = new LinkedHashMap<>();
+        Map<String, LocalDate> dates = new HashMap<>();
+        for (String fileName : fileNames) {
+            String storeKey = DataFileIndex.storeKeyOf(fileName);
+            LocalDate date = DataFileIndex.dateOf(fileName);
+            if (storeKey == null || date == null) continue;
+            Map<LocalDate, Set<String>> changed;
+            if (DataFileIndex.isDiscountFile(fileName)) {
+                DiscountTable table = next.getDiscountTable(fileName);
+                if (table == null) continue;
+                changed = newDiscounts(previous.getDiscountTable(storeKey, date), table, date.toEpochDay());
+            } else {
+                ProductTable table = next.getProductTable(fileName);
+                if (table == null) continue;
+                changed = Collections.singletonMap(date, diff(prices(previous.getProductTable(storeKey, date)), prices(table)));
+            }
+            for (Map.Entry<LocalDate, Set<String>> e : changed.entrySet()) {
+                String group = storeKey + '\u0000' + e.getKey();
+                changedByStoreDate.computeIfAbsent(group, k -> new LinkedHashSet<>()).addAll(e.getValue());
+                dates.put(group, e.getKey());
+            }
+        }
+
+        Map<String, List<TriggeredAlert>> triggered = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> e : changedByStoreDate.entrySet()) {
+            String store = next.getFileIndex().getStoreName(e.getKey().substring(0, e.getKey().indexOf('\u0000')));
+            if (store == null) continue;
+            LocalDate date = dates.get(e.getKey());
+            for (IndexedAlert indexed : lookup(e.getValue())) {
+                User user = userService.getUser(indexed.userId);
+                for (TriggeredAlert hit : evaluate(next, user, indexed.alert, store, date)) {
+                    triggered.computeIfAbsent(indexed.userId, k -> new ArrayList<>()).add(hit.forUser(indexed.userId, date.toString()));
+                }
+            }
+        }
+        for (Map.Entry<String, List<TriggeredAlert>> e : triggered.entrySet()) {
+            triggeredByUser.merge(e.getKey(), e.getValue(), AlertEngine::keepRecent);
+        }
+    }
+
+    private static List<TriggeredAlert> keepRecent(List<TriggeredAlert> older, List<TriggeredAlert> newer) {
+        List<TriggeredAlert> alerts = new ArrayList<>(older);
+        alerts.addAll(newer);
+        int from = Math.max(0, alerts.size() - MAX_TRIGGERED_PER_USER);
+        return Collections.unmodifiableList(new ArrayList<>(alerts.subList(from, alerts.size())));
+    }
+
+    private synchronized List<IndexedAlert> lookup(Set<String> productKeys) {
+        List<IndexedAlert> alerts = new ArrayList<>();
+        for (String key : productKeys) {
+            List<IndexedAlert> matches = alertsByProduct.get(key);
+            if (matches != null) {
+                alerts.addAll(matches);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Evaluates one alert against one store on a date.
+     * The price file and the discount file in effect on the date are used, and the best discount valid on the
+     * date is applied to every listing of the product. Triggered alerts are queued in the notification outbox.
+     */
+    private List<TriggeredAlert> evaluate(PriceCatalog catalog, User user, PriceAlert alert, String store, LocalDate date) {
+        ProductTable products = catalog.getProductTable(store, date);
+        if (products == null) return Collections.emptyList();
+        DiscountTable discounts = catalog.getDiscountTable(store, date);
+        long day = date.toEpochDay();
+        List<TriggeredAlert> triggered = new ArrayList<>();
+        for (int row : products.findRows(alert.getProductName(), alert.getBrand())) {
+            double price = products.getPrice(row);
+            double bestDiscount = 0.0;
+            // Find the best discount for this product
+            if (discounts != null) {
+                for (int d : discounts.findRows(alert.getProductName(), alert.getBrand())) {
+                    if (day >= discounts.getFromDay(d) && day <= discounts.getToDay(d)
+                        && discounts.getPercentageOfDiscount(d) > bestDiscount) {
+                        bestDiscount = discounts.getPercentageOfDiscount(d);
+                    }
+                }
+            }
+            long finalPrice = Money.of(price);
+            if (bestDiscount > 0.0) {
+                finalPrice = Money.discount(finalPrice, bestDiscount);
+            }
+            if (finalPrice <= Money.of(alert.getTargetPrice())) {
+                String notification = null;
+                if (user != null) {
+                    notificationOutbox.enqueue(user.getEmail(), "Price Alert Triggered", "Product '" + products.getProductName(row) + "' at store '" + store + "' is now " + Money.toDouble(finalPrice) + " " + products.getCurrency(row) + ", below your target of " + alert.getTargetPrice());
+                    notification = "Email would be sent to: " + user.getEmail();
+                }
+                triggered.add(new TriggeredAlert(store, products.getProductName(row), products.getBrand(row), price,
+                    bestDiscount, Money.toDouble(finalPrice), alert.getTargetPrice(), products.getCurrency(row),
+                    notification));
+            }
+        }
+        return triggered;
+    }
+
+    private static String keyOf(PriceAlert alert) {
+        return alert.getBrand() == null || alert.getBrand().isEmpty()
+            ? NameBrandIndex.normalize(alert.getProductName())
+            : NameBrandIndex.key(alert.getProductName(), alert.getBrand());
+    }
+
+    /**
+     * Returns the listed prices of every product of a table, under both its name key and its name and brand key.
+     */
+    private static Map<String, List<Double>> prices(ProductTable table) {
+        Map<String, List<Double>> prices = new HashMap<>();
+        if (table == null) return prices;
+        for (int row = 0; row < table.size(); row++) {
+            String name = NameBrandIndex.normalize(table.getProductName(row));
+            prices.computeIfAbsent(name, k -> new ArrayList<>()).add(table.getPrice(row));
+            prices.computeIfAbsent(NameBrandIndex.key(table.getProductName(row), table.getBrand(row)), k -> new ArrayList<>())
+                .add(table.getPrice(row));
+        }
+        return prices;
+    }
+
+    /**
+     * Returns the products, under both lookup keys, with a discount in the new table that the previous table did
+     * not have, grouped by the day that discount takes effect: its first day, or the file's day for a discount that
+     * started before it. Discounts that end before the file's day are skipped.
+     */
+    private static Map<LocalDate, Set<String>> newDiscounts(DiscountTable before, DiscountTable after, long fileDay) {
+        Set<String> previous = new HashSet<>();
+        if (before != null) {
+            for (int row = 0; row < before.size(); row++) {
+                previous.add(signature(before, row));
+            }
+        }
+        Map<LocalDate, Set<String>> changed = new TreeMap<>();
+        for (int row = 0; row < after.size(); row++) {
+            long day = Math.max(after.getFromDay(row), fileDay);
+            if (after.getPercentageOfDiscount(row) <= 0.0 || day > after.getToDay(row) || previous.contains(signature(after, row))) {
+                continue;
+            }
+            Set<String> keys = changed.computeIfAbsent(LocalDate.ofEpochDay(day), k -> new LinkedHashSet<>());
+            keys.add(NameBrandIndex.normalize(after.getProductName(row)));
+            keys.add(NameBrandIndex.key(after.getProductName(row), after.getBrand(row)));
+        }
+        return changed;
+    }
+
+    private static String signature(DiscountTable table, int row) {
+        return NameBrandIndex.key(table.getProductName(row), table.getBrand(row)) + '\u0000' + table.getFromDay(row)
+            + '\u0000' + table.getToDay(row) + '\u0000' + table.getPercentageOfDiscount(row);
+    }
+
+    private static <V> Set<String> diff(Map<String, V> before, Map<String, V> after) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, V> e : after.entrySet()) {
+            if (!Objects.equals(before.get(e.getKey()), e.getValue())) {
+                changed.add(e.getKey());
+            }
+        }
+        return changed;
+    }
+
+    private static final class IndexedAlert {
+        private final String userId;
+        private final PriceAlert alert;
+
+        private IndexedAlert(String userId, PriceAlert alert) {
+            this.userId = userId;
+            this.alert = alert;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.accesa.pricecomparator.service;
+
+/**
+ * The listing of a basket item in one store, with the discount in effect already applied.
+ */
+public class BasketOffer {
+    private final String store;
+    private final String productId;
+    private final String brand;
+    private final long price;
+
+    public BasketOffer(String store, String productId, String brand, long price) {
+        this.store = store;
+        this.productId = productId;
+        this.brand = brand;
+        this.price = price;
+    }
+
+    public String getStore() { return store; }
+    public String getProductId() { return productId; }
+    public String getBrand() { return brand; }
+
+    /**
+     * Returns the unit price after discount.
+     * @return The discounted price, in bani (see {@link Money}).
+     */
+    public long getPrice() { return price; }
+}
@@ -0,0 +1,157 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.BasketItem;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The offers of every store for every item of a basket on one date, resolved once per request.
+ * Each store's price and discount tables are looked up once per date in a {@link Snapshot}, and each distinct
+ * (name, brand) item is matched against them once with the best offer's discount already applied, so optimizers
+ * only read a small items x stores matrix. Baskets sharing a snapshot share its resolved rows.
+ */
+public class BasketOffers {
+    private final List<String> stores;
+    private final BasketOffer[][] offers;
+
+    private BasketOffers(List<String> stores, BasketOffer[][] offers) {
+        this.stores = stores;
+        this.offers = offers;
+    }
+
+    /**
+     * Resolves the offers of every store in the catalog for the given items.
+     * An item matches the first listing of its name (and brand, when given) in the price file in effect; the first
+     * discount on that product name (and item brand) valid on the date is applied.
+     * @param catalog The catalog version to read.
+     * @param items The basket items.
+     * @param date The purchase date.
+     * @return The resolved offers.
+     */
+    public static BasketOffers resolve(PriceCatalog catalog, List<BasketItem> items, LocalDate date) {
+        return resolve(Snapshot.of(catalog, date), items);
+    }
+
+    /**
+     * Resolves the offers of every store for the given items against tables already looked up for a date.
+     * Rows already resolved by another basket on the same snapshot are reused.
+     * @param snapshot The tables in effect on the purchase date.
+     * @param items The basket items.
+     * @return The resolved offers.
+     */
+    public static BasketOffers resolve(Snapshot snapshot, List<BasketItem> items) {
+        BasketOffer[][] offers = new BasketOffer[items.size()][];
+        for (int i = 0; i < items.size(); i++) {
+            BasketItem item = items.get(i);
+            // Identical items share one row of offers
+            offers[i] = snapshot.rows.computeIfAbsent(NameBrandIndex.key(item.getProductName(), item.getBrand()),
+                k -> snapshot.resolveRow(item));
+        }
+        return new BasketOffers(snapshot.stores, offers);
+    }
+
+    public List<String> getStores() {
+        return stores;
+    }
+
+    public int getItemCount() {
+        return offers.length;
+    }
+
+    /**
+     * Returns the offer of a store for an item.
+     * @param item The item index.
+     * @param store The store index in {@link #getStores()}.
+     * @return The BasketOffer, or null if the store does not carry the item.
+     */
+    public BasketOffer getOffer(int item, int store) {
+        return offers[item][store];
+    }
+
+    /**
+     * Returns the cheapest offer for an item; on a tie the store listed first wins.
+     * @param item The item index.
+     * @return The BasketOffer, or null if no store carries the item.
+     */
+    public BasketOffer best(int item) {
+        int store = bestStore(item);
+        return store < 0 ? null : offers[item][store];
+    }
+
+    /**
+     * Returns the store of the cheapest offer for an item; on a tie the store listed first wins.
+     * @param item The item index.
+     * @return The store index in {@link #getStores()}, or -1 if no store carries the item.
+     */
+    public int bestStore(int item) {
+        int best = -1;
+        BasketOffer[] row = offers[item];
+        for (int s = 0; s < row.length; s++) {
+            if (row[s] != null && (best < 0 || row[s].getPrice() < row[best].getPrice())) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The price and discount tables of every store in effect on one date, looked up once and shared by every
+     * basket bought on that date, together with the offer rows resolved so far.
+     */
+    public static final class Snapshot {
+        private final List<String> stores;
+        private final ProductTable[] products;
+        private final DiscountTable[] discounts;
+        private final long day;
+        private final Map<String, BasketOffer[]> rows = new ConcurrentHashMap<>();
+
+        private Snapshot(List<String> stores, ProductTable[] products, DiscountTable[] discounts, long day) {
+            this.stores = stores;
+            this.products = products;
+            this.discounts = discounts;
+            this.day = day;
+        }
+
+        /**
+         * Looks up the tables of every store of a catalog version in effect on a date.
+         * @param catalog The catalog version to read.
+         * @param date The purchase date.
+         * @return The snapshot.
+         */
+        public static Snapshot of(PriceCatalog catalog, LocalDate date) {
+            List<String> stores = catalog.getStores();
+            ProductTable[] products = new ProductTable[stores.size()];
+            DiscountTable[] discounts = new DiscountTable[stores.size()];
+            for (int s = 0; s < stores.size(); s++) {
+                products[s] = catalog.getProductTable(stores.get(s), date);
+                discounts[s] = products[s] == null ? null : catalog.getDiscountTable(stores.get(s), date);
+            }
+            return new Snapshot(stores, products, discounts, date.toEpochDay());
+        }
+
+        private BasketOffer[] resolveRow(BasketItem item) {
+            BasketOffer[] row = new BasketOffer[stores.size()];
+            for (int s = 0; s < stores.size(); s++) {
+                ProductTable table = products[s];
+                if (table == null) continue;
+                int[] rows = table.findRows(item.getProductName(), item.getBrand());
+                if (rows.length == 0) continue;
+                int r = rows[0];
+                long price = Money.of(table.getPrice(r));
+                if (discounts[s] != null) {
+                    DiscountTable discountTable = discounts[s];
+                    for (int d : discountTable.findRows(table.getProductName(r), item.getBrand())) {
+                        if (day >= discountTable.getFromDay(d) && day <= discountTable.getToDay(d)) {
+                            price = Money.discount(price, discountTable.getPercentageOfDiscount(d));
+                            break;
+                        }
+                    }
+                }
+                row[s] = new BasketOffer(stores.get(s), table.getProductId(r), table.getBrand(r), price);
+            }
+            return row;
+        }
+    }
+}
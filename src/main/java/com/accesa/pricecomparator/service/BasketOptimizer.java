@@ -0,0 +1,296 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.BasketItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chooses the set of stores to visit for a basket when each visit has a fixed cost and/or the number of stores is
+ * limited. Every item is then bought in the cheapest chosen store.
+ * The cost of a store set is the sum of quantity x discounted price of every item in its cheapest chosen store,
+ * plus the visit cost per store, computed exactly in bani (see {@link Money}). Items no store carries are left out; an item that some store carries but no
+ * chosen store does counts as a large penalty, so sets that cover more items always win.
+ * Up to {@link #EXACT_MAX_STORES} stores the solver runs an exact branch and bound over store subsets in parallel,
+ * seeded with the greedy heuristic used on its own for larger store counts. The search stops at the latency budget
+ * and returns the best set found so far.
+ */
+public class BasketOptimizer {
+    static final int EXACT_MAX_STORES = 30;
+    private static final long MISSING_ITEM_PENALTY = Money.of(1e9);
+    private static final long NOT_CARRIED = Long.MAX_VALUE;
+    private static final int PARALLEL_DEPTH = 4;
+
+    private final int storeCount;
+    private final int itemCount;
+    // cost[item][store]: quantity x price in bani, or NOT_CARRIED when the store does not carry the item
+    private final long[][] cost;
+    private final int maxStores;
+    private final long visitCost;
+    private final long deadline;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean timedOut;
+
+    private BasketOptimizer(BasketOffers offers, List<BasketItem> items, int maxStores, double visitCost, long budgetNanos) {
+        this.storeCount = offers.getStores().size();
+        this.maxStores = maxStores;
+        this.visitCost = Money.of(visitCost);
+        this.deadline = System.nanoTime() + budgetNanos;
+        // Only items at least one store carries take part
+        List<long[]> rows = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (offers.bestStore(i) < 0) continue;
+            long[] row = new long[storeCount];
+            for (int s = 0; s < storeCount; s++) {
+                BasketOffer offer = offers.getOffer(i, s);
+                row[s] = offer == null ? NOT_CARRIED : Money.times(offer.getPrice(), items.get(i).getQuantity());
+            }
+            rows.add(row);
+        }
+        this.itemCount = rows.size();
+        this.cost = rows.toArray(new long[0][]);
+    }
+
+    /**
+     * Finds the cheapest set of stores for a basket.
+     * @param offers The resolved offers of every store.
+     * @param items The basket items, in the order used by the offers.
+     * @param maxStores The maximum number of stores to visit (at least 1), or null for no limit.
+     * @param visitCost The fixed cost added for every store visited, in RON (not negative, the search bound relies on it).
+     * @param budgetNanos The time allowed for the search (not negative).
+     * @return The chosen plan.
+     * @throws IllegalArgumentException If a parameter is out of range.
+     */
+    public static BasketPlan optimize(BasketOffers offers, List<BasketItem> items, Integer maxStores, double visitCost, long budgetNanos) {
+        if (maxStores != null && maxStores < 1) throw new IllegalArgumentException("maxStores must be positive: " + maxStores);
+        if (!(visitCost >= 0)) throw new IllegalArgumentException("visitCost must not be negative: " + visitCost);
+        if (budgetNanos < 0) throw new IllegalArgumentException("budgetNanos must not be negative: " + budgetNanos);
+        int storeCount = offers.getStores().size();
+        int limit = maxStores == null ? storeCount : Math.min(maxStores, storeCount);
+        BasketOptimizer optimizer = new BasketOptimizer(offers, items, limit, visitCost, budgetNanos);
+        return optimizer.solve();
+    }
+
+    private BasketPlan solve() {
+        if (storeCount == 0 || itemCount == 0) {
+            return new BasketPlan(new boolean[storeCount], 0, true, 0);
+        }
+        Candidate greedy = greedy();
+        if (storeCount > EXACT_MAX_STORES) {
+            return new BasketPlan(greedy.selected, greedy.cost, false, nodes.get());
+        }
+        AtomicReference<Candidate> best = new AtomicReference<>(greedy);
+        int[] order = searchOrder();
+        long[][] suffixMin = suffixMin(order);
+        long[] none = new long[itemCount];
+        Arrays.fill(none, NOT_CARRIED);
+        ForkJoinPool.commonPool().invoke(new Search(order, suffixMin, best, 0, none, 0, 0L));
+        Candidate result = best.get();
+        return new BasketPlan(result.selected, result.cost, !timedOut, nodes.get());
+    }
+
+    /**
+     * Stores in ascending order of the cost of buying the whole basket there alone, so good sets are found early.
+     */
+    private int[] searchOrder() {
+        Integer[] order = new Integer[storeCount];
+        long[] alone = new long[storeCount];
+        for (int s = 0; s < storeCount; s++) {
+            order[s] = s;
+            boolean[] selected = new boolean[storeCount];
+            selected[s] = true;
+            alone[s] = evaluate(selected);
+        }
+        Arrays.sort(order, (a, b) -> alone[a] != alone[b] ? Long.compare(alone[a], alone[b]) : Integer.compare(a, b));
+        int[] result = new int[storeCount];
+        for (int s = 0; s < storeCount; s++) {
+            result[s] = order[s];
+        }
+        return result;
+    }
+
+    /**
+     * suffixMin[k][i] is the cheapest cost of item i among the stores at positions k.. of the search order.
+     */
+    private long[][] suffixMin(int[] order) {
+        long[][] suffixMin = new long[storeCount + 1][itemCount];
+        Arrays.fill(suffixMin[storeCount], NOT_CARRIED);
+        for (int k = storeCount - 1; k >= 0; k--) {
+            for (int i = 0; i < itemCount; i++) {
+                suffixMin[k][i] = Math.min(suffixMin[k + 1][i], cost[i][order[k]]);
+            }
+        }
+        return suffixMin;
+    }
+
+    private long itemCost(long bestCost) {
+        return bestCost == NOT_CARRIED ? MISSING_ITEM_PENALTY : bestCost;
+    }
+
+    private long evaluate(boolean[] selected) {
+        long total = 0;
+        int count = 0;
+        for (int s = 0; s < storeCount; s++) {
+            if (selected[s]) count++;
+        }
+        for (int i = 0; i < itemCount; i++) {
+            long bestCost = NOT_CARRIED;
+            for (int s = 0; s < storeCount; s++) {
+                if (selected[s] && cost[i][s] < bestCost) bestCost = cost[i][s];
+            }
+            total += itemCost(bestCost);
+        }
+        return total + visitCost * count;
+    }
+
+    /**
+     * Adds the store that lowers the cost the most until nothing helps or the limit is reached,
+     * then swaps single stores in and out while that lowers the cost.
+     */
+    private Candidate greedy() {
+        boolean[] selected = new boolean[storeCount];
+        long current = Long.MAX_VALUE;
+        for (int count = 0; count < maxStores; count++) {
+            int bestStore = -1;
+            long bestCost = current;
+            for (int s = 0; s < storeCount; s++) {
+                if (selected[s]) continue;
+                selected[s] = true;
+                long c = evaluate(selected);
+                selected[s] = false;
+                if (c < bestCost) {
+                    bestCost = c;
+                    bestStore = s;
+                }
+            }
+            if (bestStore < 0) break;
+            selected[bestStore] = true;
+            current = bestCost;
+        }
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = false;
+            for (int out = 0; out < storeCount && !improved; out++) {
+                if (!selected[out]) continue;
+                selected[out] = false;
+                for (int in = 0; in < storeCount && !improved; in++) {
+                    if (selected[in] || in == out) continue;
+                    selected[in] = true;
+                    long c = evaluate(selected);
+                    if (c < current) {
+                        current = c;
+                        improved = true;
+                    } else {
+                        selected[in] = false;
+                    }
+                }
+                if (!improved) selected[out] = true;
+            }
+        }
+        return new Candidate(selected, current, mask(selected));
+    }
+
+    private static long mask(boolean[] selected) {
+        long mask = 0;
+        for (int s = 0; s < selected.length && s < 64; s++) {
+            if (selected[s]) mask |= 1L << s;
+        }
+        return mask;
+    }
+
+    private void offer(AtomicReference<Candidate> best, long total, long mask) {
+        Candidate current = best.get();
+        while (current.isWorseThan(total, mask)) {
+            boolean[] selected = new boolean[storeCount];
+            for (int s = 0; s < storeCount; s++) {
+                selected[s] = (mask & (1L << s)) != 0;
+            }
+            if (best.compareAndSet(current, new Candidate(selected, total, mask))) return;
+            current = best.get();
+        }
+    }
+
+    /**
+     * Decides, for the store at position {@code depth} of the search order, whether it is visited, first trying
+     * with it and then without it. A branch is dropped when even buying every item at its cheapest price among the
+     * stores still undecided could not beat the best set found so far.
+     */
+    private class Search extends RecursiveAction {
+        private final int[] order;
+        private final long[][] suffixMin;
+        private final AtomicReference<Candidate> best;
+        private final int depth;
+        private final long[] current;
+        private final int count;
+        private final long mask;
+
+        Search(int[] order, long[][] suffixMin, AtomicReference<Candidate> best, int depth, long[] current, int count, long mask) {
+            this.order = order;
+            this.suffixMin = suffixMin;
+            this.best = best;
+            this.depth = depth;
+            this.current = current;
+            this.count = count;
+            this.mask = mask;
+        }
+
+        @Override
+        protected void compute() {
+            search(depth, current, count, mask);
+        }
+
+        private void search(int depth, long[] current, int count, long mask) {
+            if (depth == storeCount || count == maxStores) return;
+            if ((nodes.incrementAndGet() & 1023) == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+            }
+            if (timedOut) return;
+            long bound = visitCost * Math.max(1, count);
+            for (int i = 0; i < itemCount; i++) {
+                bound += itemCost(Math.min(current[i], suffixMin[depth][i]));
+            }
+            if (bound > best.get().cost) return;
+
+            int store = order[depth];
+            long[] with = new long[itemCount];
+            long total = visitCost * (count + 1);
+            for (int i = 0; i < itemCount; i++) {
+                with[i] = Math.min(current[i], cost[i][store]);
+                total += itemCost(with[i]);
+            }
+            long withMask = mask | (1L << store);
+            offer(best, total, withMask);
+            if (depth < PARALLEL_DEPTH) {
+                invokeAll(new Search(order, suffixMin, best, depth + 1, with, count + 1, withMask),
+                    new Search(order, suffixMin, best, depth + 1, current, count, mask));
+            } else {
+                search(depth + 1, with, count + 1, withMask);
+                search(depth + 1, current, count, mask);
+            }
+        }
+    }
+
+    private static final class Candidate {
+        private final boolean[] selected;
+        private final long cost;
+        private final long mask;
+
+        private Candidate(boolean[] selected, long cost, long mask) {
+            this.selected = selected;
+            this.cost = cost;
+            this.mask = mask;
+        }
+
+        /**
+         * Lower cost wins; among equal costs the set with the lower bit mask wins, so the parallel search is deterministic.
+         */
+        private boolean isWorseThan(long otherCost, long otherMask) {
+            if (otherCost < cost) return true;
+            return otherCost == cost && Long.compareUnsigned(otherMask, mask) < 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.accesa.pricecomparator.service;
+
+/**
+ * The set of stores chosen by {@link BasketOptimizer}.
+ */
+public class BasketPlan {
+    private final boolean[] selected;
+    private final long cost;
+    private final boolean exact;
+    private final long nodes;
+
+    BasketPlan(boolean[] selected, long cost, boolean exact, long nodes) {
+        this.selected = selected;
+        this.cost = cost;
+        this.exact = exact;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Tells whether a store is visited.
+     * @param store The store index in {@link BasketOffers#getStores()}.
+     * @return True if the store is part of the plan.
+     */
+    public boolean isSelected(int store) {
+        return selected[store];
+    }
+
+    /**
+     * Returns the cost the optimizer minimized, including visit costs and penalties for uncovered items.
+     * @return The cost, in bani.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Tells whether the plan is proven optimal, i.e. the exact search ran and finished within the budget.
+     * @return True for an optimal plan.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Returns the number of branch-and-bound nodes visited.
+     * @return The node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
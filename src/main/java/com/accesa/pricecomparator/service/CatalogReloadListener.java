@@ -0,0 +1,17 @@
+package com.accesa.pricecomparator.service;
+
+import java.util.Collection;
+
+/**
+ * Callback for components that react to a new catalog version being published.
+ */
+public interface CatalogReloadListener {
+
+    /**
+     * Called after a new catalog version has been published.
+     * @param previous The catalog that was replaced.
+     * @param next The catalog now in use.
+     * @param fileNames The files that were added, changed or removed.
+     */
+    void catalogReloaded(PriceCatalog previous, PriceCatalog next, Collection<String> fileNames);
+}
@@ -0,0 +1,401 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Symbols;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compiled binary copy of one price or discount CSV file, so a restart can map the tables instead of parsing text.
+ * A segment holds a header (magic, format version, table kind, size and modification time of the CSV it was
+ * compiled from, payload length and CRC32) followed by the payload: the string dictionary, the product ids,
+ * every column as a packed array of codes, numbers or epoch days, and the table's name/brand index, so loading
+ * is a checksum pass and bulk copies with nothing to rebuild.
+ * A segment is only used while its CSV still has the recorded size and modification time and the payload matches
+ * its checksum; otherwise readers get null and the caller falls back to the CSV.
+ * The payload is streamed to the segment file behind a blank header, which is filled in once its length and
+ * checksum are known, so writing never holds a second copy of it in memory.
+ */
+public final class CatalogSegment {
+    static final int FORMAT_VERSION = 3;
+    private static final int MAGIC = 0x50435347; // "PCSG"
+    private static final byte PRICES = 0;
+    private static final byte DISCOUNTS = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 1 + 8 + 8 + 8 + 8;
+    private static final String SUFFIX = ".seg";
+
+    private CatalogSegment() {
+    }
+
+    /**
+     * Returns where the segment of a data file is kept.
+     * @param segmentDir The segment directory.
+     * @param fileName The CSV file name.
+     * @return The segment path.
+     */
+    public static Path segmentPath(Path segmentDir, String fileName) {
+        return segmentDir.resolve(fileName + SUFFIX);
+    }
+
+    /**
+     * Writes the segment of a price file, atomically replacing any previous one.
+     * @param segment The segment path.
+     * @param source The stamp of the CSV file, taken before it was parsed.
+     * @param table The parsed table.
+     */
+    public static void writeProducts(Path segment, Stamp source, ProductTable table) throws IOException {
+        int rows = table.size();
+        StringDictionary dictionary = new StringDictionary();
+        int[] names = new int[rows];
+        int[] categories = new int[rows];
+        int[] brands = new int[rows];
+        int[] units = new int[rows];
+        int[] currencies = new int[rows];
+        double[] quantities = new double[rows];
+        double[] prices = new double[rows];
+        String[] productIds = new String[rows];
+        for (int r = 0; r < rows; r++) {
+            productIds[r] = table.getProductId(r);
+            names[r] = dictionary.encode(table.getProductName(r));
+            categories[r] = dictionary.encode(table.getProductCategory(r));
+            brands[r] = dictionary.encode(table.getBrand(r));
+            quantities[r] = table.getPackageQuantity(r);
+            units[r] = dictionary.encode(table.getPackageUnit(r));
+            prices[r] = table.getPrice(r);
+            currencies[r] = dictionary.encode(table.getCurrency(r));
+        }
+        write(segment, source, PRICES, out -> {
+            writeHead(out, dictionary, productIds);
+            writeInts(out, names);
+            writeInts(out, categories);
+            writeInts(out, brands);
+            writeDoubles(out, quantities);
+            writeInts(out, units);
+            writeDoubles(out, prices);
+            writeInts(out, currencies);
+            writeIndex(out, table.getNameBrandIndex());
+        });
+    }
+
+    /**
+     * Writes the segment of a discount file, atomically replacing any previous one.
+     * @param segment The segment path.
+     * @param source The stamp of the CSV file, taken before it was parsed.
+     * @param table The parsed table.
+     */
+    public static void writeDiscounts(Path segment, Stamp source, DiscountTable table) throws IOException {
+        int rows = table.size();
+        StringDictionary dictionary = new StringDictionary();
+        int[] names = new int[rows];
+        int[] brands = new int[rows];
+        int[] units = new int[rows];
+        int[] categories = new int[rows];
+        int[] fromDays = new int[rows];
+        int[] toDays = new int[rows];
+        double[] quantities = new double[rows];
+        double[] percentages = new double[rows];
+        String[] productIds = new String[rows];
+        for (int r = 0; r < rows; r++) {
+            productIds[r] = table.getProductId(r);
+            names[r] = dictionary.encode(table.getProductName(r));
+            brands[r] = dictionary.encode(table.getBrand(r));
+            quantities[r] = table.getPackageQuantity(r);
+            units[r] = dictionary.encode(table.getPackageUnit(r));
+            categories[r] = dictionary.encode(table.getProductCategory(r));
+            fromDays[r] = table.getFromDay(r);
+            toDays[r] = table.getToDay(r);
+            percentages[r] = table.getPercentageOfDiscount(r);
+        }
+        write(segment, source, DISCOUNTS, out -> {
+            writeHead(out, dictionary, productIds);
+            writeInts(out, names);
+            writeInts(out, brands);
+            writeDoubles(out, quantities);
+            writeInts(out, units);
+            writeInts(out, categories);
+            writeInts(out, fromDays);
+            writeInts(out, toDays);
+            writeDoubles(out, percentages);
+            writeIndex(out, table.getNameBrandIndex());
+        });
+    }
+
+    /**
+     * Loads the price table of a segment.
+     * @param segment The segment path.
+     * @param source The CSV file the segment must have been compiled from.
+     * @return The table, or null if the segment is missing, stale, of another format version or corrupt.
+     */
+    public static ProductTable readProducts(Path segment, Path source) {
+        try {
+            ByteBuffer payload = open(segment, source, PRICES);
+            if (payload == null) return null;
+            String[] dictionary = readStrings(payload);
+            String[] productIds = readStrings(payload);
+            int rows = productIds.length;
+            int[] symbols = symbols(dictionary);
+            int[] names = readCodes(payload, rows, symbols);
+            int[] categories = readCodes(payload, rows, symbols);
+            int[] brands = readCodes(payload, rows, symbols);
+            double[] quantities = readDoubles(payload, rows);
+            int[] units = readCodes(payload, rows, symbols);
+            double[] prices = readDoubles(payload, rows);
+            int[] currencies = readCodes(payload, rows, symbols);
+            NameBrandIndex index = readIndex(payload);
+            return new ProductTable(productIds, names, categories, brands, quantities, units, prices, currencies,
+                index);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads the discount table of a segment.
+     * @param segment The segment path.
+     * @param source The CSV file the segment must have been compiled from.
+     * @return The table, or null if the segment is missing, stale, of another format version or corrupt.
+     */
+    public static DiscountTable readDiscounts(Path segment, Path source) {
+        try {
+            ByteBuffer payload = open(segment, source, DISCOUNTS);
+            if (payload == null) return null;
+            String[] dictionary = readStrings(payload);
+            String[] productIds = readStrings(payload);
+            int rows = productIds.length;
+            int[] symbols = symbols(dictionary);
+            int[] names = readCodes(payload, rows, symbols);
+            int[] brands = readCodes(payload, rows, symbols);
+            double[] quantities = readDoubles(payload, rows);
+            int[] units = readCodes(payload, rows, symbols);
+            int[] categories = readCodes(payload, rows, symbols);
+            int[] fromDays = readInts(payload, rows);
+            int[] toDays = readInts(payload, rows);
+            double[] percentages = readDoubles(payload, rows);
+            NameBrandIndex index = readIndex(payload);
+            return new DiscountTable(productIds, names, brands, quantities, units, categories, fromDays, toDays,
+                percentages, index);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streams the payload to a temporary file after room for the header, checksumming it on the way, then writes
+     * the header and moves the file into place.
+     */
+    private static void write(Path segment, Stamp source, byte kind, Payload payload) throws IOException {
+        Files.createDirectories(segment.toAbsolutePath().getParent());
+        Path tmp = segment.resolveSibling(segment.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            // Not closed: that would close the channel before the header is written
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            payload.writeTo(out);
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putInt(FORMAT_VERSION);
+            header.put(kind);
+            header.putLong(source.size);
+            header.putLong(source.modified);
+            header.putLong(channel.position() - HEADER_BYTES);
+            header.putLong(crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a segment and checks its header and checksum.
+     * @return The payload, positioned at its start, or null if the segment cannot be used.
+     */
+    private static ByteBuffer open(Path segment, Path source, byte kind) throws IOException {
+        if (!Files.exists(segment) || !Files.exists(source)) return null;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            // A single mapping cannot exceed 2 GB; such a file is read from its CSV instead
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) return null;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.get() != kind) return null;
+        Stamp stamp = Stamp.of(source);
+        if (buffer.getLong() != stamp.size || buffer.getLong() != stamp.modified) return null;
+        long length = buffer.getLong();
+        long checksum = buffer.getLong();
+        if (length != buffer.remaining()) return null;
+        ByteBuffer payload = buffer.slice();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return crc.getValue() == checksum ? payload : null;
+    }
+
+    private static void writeHead(DataOutputStream out, StringDictionary dictionary, String[] productIds)
+            throws IOException {
+        out.writeInt(dictionary.size());
+        for (int code = 0; code < dictionary.size(); code++) {
+            writeString(out, dictionary.decode(code));
+        }
+        out.writeInt(productIds.length);
+        for (String productId : productIds) {
+            writeString(out, productId);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < values.length; i++) {
+            int length = in.getInt();
+            if (length < 0) continue;
+            if (length > bytes.length) bytes = new byte[Math.max(length, bytes.length * 2)];
+            in.get(bytes, 0, length);
+            values[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * 4);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer in, int count) {
+        double[] values = new double[count];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + count * 8);
+        return values;
+    }
+
+    /**
+     * Maps every code of the saved dictionary to the {@link Symbols} code of its value.
+     */
+    private static int[] symbols(String[] values) {
+        int[] symbols = new int[values.length];
+        for (int code = 0; code < values.length; code++) {
+            symbols[code] = Symbols.encode(values[code]);
+        }
+        return symbols;
+    }
+
+    /**
+     * Reads a column of saved dictionary codes as {@link Symbols} codes.
+     */
+    private static int[] readCodes(ByteBuffer in, int count, int[] symbols) {
+        int[] codes = readInts(in, count);
+        for (int i = 0; i < count; i++) {
+            codes[i] = symbols[codes[i]];
+        }
+        return codes;
+    }
+
+    private static void writeIndex(DataOutputStream out, NameBrandIndex index) throws IOException {
+        writeStrings(out, index.getNames());
+        writeStrings(out, index.getBrands());
+        for (int[] rows : index.getRowsByName()) {
+            out.writeInt(rows.length);
+            writeInts(out, rows);
+        }
+        out.writeInt(index.getRowsByNameAndBrand().size());
+        for (Map.Entry<Long, int[]> entry : index.getRowsByNameAndBrand().entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            writeInts(out, entry.getValue());
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static NameBrandIndex readIndex(ByteBuffer in) {
+        String[] names = readStrings(in);
+        String[] brands = readStrings(in);
+        int[][] rowsByName = new int[names.length][];
+        for (int code = 0; code < names.length; code++) {
+            rowsByName[code] = readInts(in, in.getInt());
+        }
+        int count = in.getInt();
+        Map<Long, int[]> rowsByNameAndBrand = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            long key = in.getLong();
+            rowsByNameAndBrand.put(key, readInts(in, in.getInt()));
+        }
+        return NameBrandIndex.of(names, brands, rowsByName, rowsByNameAndBrand);
+    }
+
+    /**
+     * Writes the payload of a segment.
+     */
+    private interface Payload {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * The size and modification time of a CSV file, which a segment must match to be used.
+     */
+    public static final class Stamp {
+        private final long size;
+        private final long modified;
+
+        private Stamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        /**
+         * Reads the current stamp of a file.
+         * @param file The file.
+         * @return The stamp.
+         */
+        public static Stamp of(Path file) throws IOException {
+            return new Stamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.accesa.pricecomparator.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the data directory for new, changed or removed CSV drops and hands them to
+ * {@link CsvDataLoaderService#reload} in the background.
+ * Events are collected until the directory has been quiet for a short while, so a file that is
+ * still being written is parsed once it is complete rather than on every write.
+ */
+@Service
+public class CatalogWatcherService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogWatcherService.class);
+    private static final long QUIET_PERIOD_MS = 500;
+
+    private final CsvDataLoaderService csvDataLoaderService;
+    private WatchService watchService;
+    private Thread worker;
+
+    public CatalogWatcherService(CsvDataLoaderService csvDataLoaderService) {
+        this.csvDataLoaderService = csvDataLoaderService;
+    }
+
+    /**
+     * Registers the data directory with a WatchService and starts the background thread.
+     */
+    @PostConstruct
+    public void start() {
+        Path dataDir = csvDataLoaderService.getDataDir();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dataDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (Exception e) {
+            // Hot reload is best effort; the catalog loaded at startup stays in use
+            log.warn("Cannot watch data directory {}, hot reload is disabled", dataDir, e);
+            return;
+        }
+        worker = new Thread(this::watch, "catalog-watcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    @PreDestroy
+    public void stop() {
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to close the watch service of {}", csvDataLoaderService.getDataDir(), e);
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void watch() {
+        Set<String> pending = new LinkedHashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = pending.isEmpty()
+                    ? watchService.take()
+                    : watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    // Quiet period elapsed: publish everything collected so far in one catalog version
+                    try {
+                        PriceCatalog next = csvDataLoaderService.reload(pending);
+                        log.info("Published catalog version {} after changes to {}", next.getVersion(), pending);
+                    } catch (Exception e) {
+                        // The previous version stays published; the files are picked up again on their next change
+                        log.error("Reload of {} failed, catalog version {} stays in use", pending,
+                            csvDataLoaderService.getCatalog().getVersion(), e);
+                    }
+                    pending.clear();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost; re-read every file currently known plus whatever is on disk now
+                        pending.addAll(DataFileIndex.scan(csvDataLoaderService.getDataDir()).getFileNames());
+                        pending.addAll(csvDataLoaderService.getCatalog().getFileIndex().getFileNames());
+                        continue;
+                    }
+                    String fileName = ((Path) event.context()).getFileName().toString();
+                    if (DataFileIndex.isDataFile(fileName)) {
+                        pending.add(fileName);
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (Exception e) {
+            log.error("Catalog watcher of {} stopped, hot reload is disabled", csvDataLoaderService.getDataDir(), e);
+        }
+    }
+}
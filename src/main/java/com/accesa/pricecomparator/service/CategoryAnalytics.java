@@ -0,0 +1,227 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.CategoryStats;
+import com.accesa.pricecomparator.model.PriceStats;
+import com.accesa.pricecomparator.model.Symbols;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per-store, per-category price statistics on a date: the distribution of effective (discounted) prices and of
+ * unit prices, and the average depth of the discounts.
+ * Every (store, category) pair is an independent unit of work, computed on the common fork/join pool. Counts,
+ * effective prices and discounts cover every row of the category; unit prices come from the store's unit-price
+ * index, which leaves out rows without one. A product's effective price uses the best discount on its name and
+ * brand valid on the date, from any of the store's discount files, rounded to the ban.
+ */
+public final class CategoryAnalytics {
+    private CategoryAnalytics() {
+    }
+
+    /**
+     * Computes the statistics of every category of every store on a date.
+     * @param catalog The catalog.
+     * @param date The date.
+     * @return One entry per store and category, stores in catalog order, then categories by name.
+     */
+    public static List<CategoryStats> compute(PriceCatalog catalog, LocalDate date) {
+        List<Unit> units = new ArrayList<>();
+        for (String store : catalog.getStores()) {
+            ProductTable table = catalog.getProductTable(store, date);
+            if (table == null) continue;
+            List<DiscountTable> discounts = catalog.getDiscountTables(store);
+            // Reporting units of a category, in label order so the per-unit map is stable
+            Map<String, Map<String, int[]>> unitGroups = new HashMap<>();
+            for (Map.Entry<Long, int[]> group : table.getCategoryUnitPriceIndex().groups().entrySet()) {
+                String category = Symbols.decode((int) (group.getKey() >>> 32));
+                String unitLabel = Symbols.decode((int) (long) group.getKey());
+                unitGroups.computeIfAbsent(String.valueOf(category), k -> new TreeMap<>()).put(unitLabel, group.getValue());
+            }
+            for (Map.Entry<String, int[]> category : rowsByCategory(table).entrySet()) {
+                Map<String, int[]> rowsByUnit = unitGroups.get(category.getKey());
+                units.add(new Unit(store, category.getKey(), table, discounts, category.getValue(),
+                    rowsByUnit == null ? Collections.emptyMap() : rowsByUnit));
+            }
+        }
+        CategoryStats[] results = new CategoryStats[units.size()];
+        if (!units.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(new StatsTask(units, 0, units.size(), (int) date.toEpochDay(), date, results));
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Groups every row of a table by category name, rows in file order within a category.
+     */
+    private static Map<String, int[]> rowsByCategory(ProductTable table) {
+        long[] keys = new long[table.size()];
+        for (int row = 0; row < keys.length; row++) {
+            // category code in the high bits, row in the low bits: sorts by category, then file order
+            keys[row] = ((long) table.getProductCategoryCode(row) << 32) | row;
+        }
+        Arrays.sort(keys);
+        Map<String, int[]> categories = new TreeMap<>();
+        int start = 0;
+        while (start < keys.length) {
+            int code = (int) (keys[start] >>> 32);
+            int end = start + 1;
+            while (end < keys.length && (int) (keys[end] >>> 32) == code) {
+                end++;
+            }
+            int[] rows = new int[end - start];
+            for (int k = start; k < end; k++) {
+                rows[k - start] = (int) keys[k];
+            }
+            categories.put(String.valueOf(Symbols.decode(code)), rows);
+            start = end;
+        }
+        return categories;
+    }
+
+    /**
+     * Returns a percentile of sorted values, interpolating linearly between the closest ranks.
+     * @param sorted The values, in ascending order (at least one).
+     * @param p The percentile, between 0 and 1.
+     * @return The value.
+     */
+    static double percentile(double[] sorted, double p) {
+        double position = p * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    private static PriceStats stats(double[] sorted, double scale) {
+        return new PriceStats(round(sorted[0], scale), round(percentile(sorted, 0.5), scale),
+            round(percentile(sorted, 0.9), scale), round(sorted[sorted.length - 1], scale));
+    }
+
+    /**
+     * Rounds half-up to a multiple of 1 / scale.
+     */
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+
+    /**
+     * The products of one category in one store, and those of them with a unit price grouped by reporting unit.
+     */
+    private static final class Unit {
+        final String store;
+        final String category;
+        final ProductTable table;
+        final List<DiscountTable> discounts;
+        // Every row of the category, ascending
+        final int[] rows;
+        final Map<String, int[]> rowsByUnit;
+
+        Unit(String store, String category, ProductTable table, List<DiscountTable> discounts, int[] rows,
+             Map<String, int[]> rowsByUnit) {
+            this.store = store;
+            this.category = category;
+            this.table = table;
+            this.discounts = discounts;
+            this.rows = rows;
+            this.rowsByUnit = rowsByUnit;
+        }
+
+        CategoryStats compute(int day, LocalDate date) {
+            int n = rows.length;
+            // Effective price in bani of each row, in the order of rows
+            long[] prices = new long[n];
+            int discounted = 0;
+            double discountSum = 0.0;
+            for (int i = 0; i < n; i++) {
+                double discount = bestDiscount(rows[i], day);
+                long price = Money.of(table.getPrice(rows[i]));
+                if (discount > 0.0) {
+                    price = Money.discount(price, discount);
+                    discounted++;
+                    discountSum += discount;
+                }
+                prices[i] = price;
+            }
+            Map<String, PriceStats> unitPrice = new LinkedHashMap<>();
+            for (Map.Entry<String, int[]> unit : rowsByUnit.entrySet()) {
+                int[] unitRows = unit.getValue();
+                double[] perUnit = new double[unitRows.length];
+                for (int k = 0; k < unitRows.length; k++) {
+                    int row = unitRows[k];
+                    perUnit[k] = Money.toDouble(prices[Arrays.binarySearch(rows, row)]) / table.getUnitQuantity(row);
+                }
+                Arrays.sort(perUnit);
+                unitPrice.put(unit.getKey(), stats(perUnit, 100));
+            }
+            double[] effective = new double[n];
+            for (int i = 0; i < n; i++) {
+                effective[i] = prices[i];
+            }
+            Arrays.sort(effective);
+            double averageDiscount = discounted == 0 ? 0.0 : round(discountSum / discounted, 100);
+            return new CategoryStats(store, category, date, n, bani(effective), unitPrice, discounted, averageDiscount);
+        }
+
+        /**
+         * Summarizes effective prices held in bani, reported in RON rounded to the ban.
+         */
+        private static PriceStats bani(double[] sorted) {
+            return new PriceStats(Money.toDouble(Math.round(sorted[0])),
+                Money.toDouble(Math.round(percentile(sorted, 0.5))),
+                Money.toDouble(Math.round(percentile(sorted, 0.9))),
+                Money.toDouble(Math.round(sorted[sorted.length - 1])));
+        }
+
+        private double bestDiscount(int row, int day) {
+            double best = 0.0;
+            for (DiscountTable discountTable : discounts) {
+                for (int d : discountTable.findRows(table.getProductName(row), table.getBrand(row))) {
+                    if (discountTable.isActiveOn(d, day) && discountTable.getPercentageOfDiscount(d) > best) {
+                        best = discountTable.getPercentageOfDiscount(d);
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Splits a range of units until a single one is left, and stores its statistics at its index.
+     */
+    private static final class StatsTask extends RecursiveAction {
+        private final List<Unit> units;
+        private final int from;
+        private final int to;
+        private final int day;
+        private final LocalDate date;
+        private final CategoryStats[] results;
+
+        StatsTask(List<Unit> units, int from, int to, int day, LocalDate date, CategoryStats[] results) {
+            this.units = units;
+            this.from = from;
+            this.to = to;
+            this.day = day;
+            this.date = date;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new StatsTask(units, from, mid, day, date, results),
+                    new StatsTask(units, mid, to, day, date, results));
+                return;
+            }
+            results[from] = units.get(from).compute(day, date);
+        }
+    }
+}
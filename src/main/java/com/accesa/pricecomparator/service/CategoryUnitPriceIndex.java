@@ -0,0 +1,85 @@
+package com.accesa.pricecomparator.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index from a product category and reporting unit (see {@link PackageUnits}) to the table rows listed in it,
+ * sorted by listed unit price, cheapest first. Ties keep file order. Rows without a unit price (NaN) are left out.
+ * Categories and units are Symbols codes, so a lookup is a single hash probe.
+ */
+public class CategoryUnitPriceIndex {
+    private static final int[] NO_ROWS = new int[0];
+
+    private final Map<Long, int[]> rowsByCategoryAndUnit;
+
+    private CategoryUnitPriceIndex(Map<Long, int[]> rowsByCategoryAndUnit) {
+        this.rowsByCategoryAndUnit = rowsByCategoryAndUnit;
+    }
+
+    /**
+     * Builds the index from the columns of a table.
+     * @param categories The category code of each row.
+     * @param unitLabels The reporting unit code of each row.
+     * @param unitPrices The listed price per reporting unit of each row, NaN if the row has none.
+     * @return The index.
+     */
+    public static CategoryUnitPriceIndex build(int[] categories, int[] unitLabels, double[] unitPrices) {
+        int n = 0;
+        // Sort row numbers by (category, unit); the sort is stable, so rows stay in file order within a group
+        Integer[] order = new Integer[categories.length];
+        for (int row = 0; row < categories.length; row++) {
+            if (!Double.isNaN(unitPrices[row])) order[n++] = row;
+        }
+        order = Arrays.copyOf(order, n);
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(key(categories[a], unitLabels[a]), key(categories[b], unitLabels[b]));
+            return c != 0 ? c : Double.compare(unitPrices[a], unitPrices[b]);
+        });
+        Map<Long, int[]> rows = new HashMap<>();
+        for (int from = 0; from < n; ) {
+            long key = key(categories[order[from]], unitLabels[order[from]]);
+            int to = from;
+            while (to < n && key(categories[order[to]], unitLabels[order[to]]) == key) {
+                to++;
+            }
+            int[] group = new int[to - from];
+            for (int i = from; i < to; i++) {
+                group[i - from] = order[i];
+            }
+            rows.put(key, group);
+            from = to;
+        }
+        return new CategoryUnitPriceIndex(rows);
+    }
+
+    private static long key(int category, int unitLabel) {
+        return ((long) category << 32) | (unitLabel & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the rows of a category sold in a reporting unit, cheapest listed unit price first.
+     * @param categoryCode The category code.
+     * @param unitLabelCode The reporting unit code.
+     * @return The rows (never null).
+     */
+    public int[] rows(int categoryCode, int unitLabelCode) {
+        int[] rows = rowsByCategoryAndUnit.get(key(categoryCode, unitLabelCode));
+        return rows == null ? NO_ROWS : rows;
+    }
+
+    /**
+     * Returns every group, keyed by category code in the high 32 bits and reporting unit code in the low 32 bits.
+     */
+    Map<Long, int[]> groups() {
+        return rowsByCategoryAndUnit;
+    }
+
+    /**
+     * Returns the number of (category, unit) groups.
+     */
+    public int size() {
+        return rowsByCategoryAndUnit.size();
+    }
+}
@@ -3,90 +3,147 @@ package com.accesa.pricecomparator.service;
 import com.accesa.pricecomparator.model.Product;
 import com.accesa.pricecomparator.model.Discount;
 import com.accesa.pricecomparator.model.PriceHistoryEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.CSVParserBuilder;
-import java.io.InputStreamReader;
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.stream.Collectors;
-import com.opencsv.CSVReader;
 
 /**
  * Service for loading product and discount data from CSV files for different stores and dates.
+ * Every CSV file is parsed once into an in-memory {@link PriceCatalog}; lookups never re-read the disk.
+ * When files change, {@link #reload(Collection)} parses only those files and publishes a new catalog
+ * version with a single reference swap, so readers always see a complete version.
+ * When a segment directory is configured, a file is loaded from its compiled {@link CatalogSegment} while that is
+ * fresh, and every file parsed from CSV has its segment (re)written, so the next start skips the parsing.
  */
 @Service
 public class CsvDataLoaderService {
+    private static final Logger log = LoggerFactory.getLogger(CsvDataLoaderService.class);
     private static final String DATA_PATH = "src/main/resources/data/";
+    private static final String SEGMENT_PATH = "data-segments/";
+
+    private final Path dataDir;
+    private final Path segmentDir;
+    private final AtomicReference<PriceCatalog> catalog = new AtomicReference<>();
+    private final List<CatalogReloadListener> reloadListeners = new CopyOnWriteArrayList<>();
+
+    public CsvDataLoaderService() {
+        this(Paths.get(DATA_PATH), Paths.get(SEGMENT_PATH));
+    }
 
     /**
-     * Returns a list of all available store names based on CSV files in the data directory.
-     * @return List of store names.
+     * Creates a loader over the given data directory and parses all CSV files in it.
+     * @param dataDir The directory holding the store price and discount CSV files.
      */
-    public List<String> getAvailableStores() {
-        try {
-            return Files.list(Paths.get(DATA_PATH))
-                .map(path -> path.getFileName().toString().split("_")[0])
-                .distinct()
-                .collect(Collectors.toList());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return Collections.emptyList();
-        }
+    public CsvDataLoaderService(Path dataDir) {
+        this(dataDir, null);
     }
 
     /**
-     * Returns a list of all available dates (YYYY-MM-DD) based on CSV files in the data directory.
-     * @return List of available dates.
+     * Creates a loader over the given data directory that keeps compiled segments of its files.
+     * @param dataDir The directory holding the store price and discount CSV files.
+     * @param segmentDir The directory holding the segments, or null to always parse the CSV files.
      */
-    public List<String> getAvailableDates() {
-        try {
-            return Files.list(Paths.get(DATA_PATH))
-                .map(path -> path.getFileName().toString().replaceAll(".*_(\\d{4}-\\d{2}-\\d{2})\\.csv", "$1"))
-                .filter(date -> date.matches("\\d{4}-\\d{2}-\\d{2}"))
-                .distinct()
-                .collect(Collectors.toList());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return Collections.emptyList();
-        }
+    public CsvDataLoaderService(Path dataDir, Path segmentDir) {
+        this.dataDir = dataDir;
+        this.segmentDir = segmentDir;
+        this.catalog.set(loadCatalog());
     }
 
-    private String findPriceFileForDate(String storeName, String queryDate) {
-        List<String> dates = getAvailableDates();
-        LocalDate qDate = LocalDate.parse(queryDate);
-        LocalDate bestDate = null;
-        for (String d : dates) {
-            LocalDate fileDate = LocalDate.parse(d);
-            if ((fileDate.isBefore(qDate) || fileDate.isEqual(qDate)) && (bestDate == null || fileDate.isAfter(bestDate))) {
-                bestDate = fileDate;
+    private PriceCatalog loadCatalog() {
+        DataFileIndex fileIndex = DataFileIndex.scan(dataDir);
+        PriceCatalog.Builder builder = new PriceCatalog.Builder();
+        for (String store : fileIndex.getStores()) {
+            for (String fileName : fileIndex.getPriceFiles(store).values()) {
+                builder.putProductTable(fileName, loadProductTable(fileName));
+            }
+            for (String fileName : fileIndex.getDiscountFiles(store).values()) {
+                builder.putDiscountTable(fileName, loadDiscountTable(fileName));
             }
         }
-        if (bestDate != null) {
-            return storeName + "_" + bestDate.toString() + ".csv";
-        }
-        return null;
+        return builder.build();
     }
 
-    private String findDiscountFileForDate(String storeName, String queryDate) {
-        List<String> dates = getAvailableDates();
-        LocalDate qDate = LocalDate.parse(queryDate);
-        LocalDate bestDate = null;
-        for (String d : dates) {
-            LocalDate fileDate = LocalDate.parse(d);
-            if ((fileDate.isBefore(qDate) || fileDate.isEqual(qDate)) && (bestDate == null || fileDate.isAfter(bestDate))) {
-                bestDate = fileDate;
+    /**
+     * Re-reads the given data files and publishes a new catalog version.
+     * Files that no longer exist are dropped, every other table is shared with the previous version.
+     * @param fileNames Names of the files that were created, modified or deleted.
+     * @return The newly published catalog.
+     */
+    public synchronized PriceCatalog reload(Collection<String> fileNames) {
+        PriceCatalog previous = catalog.get();
+        PriceCatalog.Builder builder = new PriceCatalog.Builder(previous);
+        for (String fileName : fileNames) {
+            if (!DataFileIndex.isDataFile(fileName)) continue;
+            if (!Files.exists(dataDir.resolve(fileName))) {
+                builder.remove(fileName);
+                deleteSegment(fileName);
+            } else if (DataFileIndex.isDiscountFile(fileName)) {
+                builder.putDiscountTable(fileName, loadDiscountTable(fileName));
+            } else {
+                builder.putProductTable(fileName, loadProductTable(fileName));
             }
         }
-        if (bestDate != null) {
-            return storeName + "_discounts_" + bestDate.toString() + ".csv";
+        PriceCatalog next = builder.build();
+        catalog.set(next);
+        for (CatalogReloadListener listener : reloadListeners) {
+            try {
+                listener.catalogReloaded(previous, next, fileNames);
+            } catch (Exception e) {
+                log.error("Reload listener {} failed on catalog version {} (files {})",
+                    listener.getClass().getSimpleName(), next.getVersion(), fileNames, e);
+            }
         }
-        return null;
+        return next;
+    }
+
+    /**
+     * Registers a listener that is called, in publish order, after every reload.
+     * @param listener The listener.
+     */
+    public void addReloadListener(CatalogReloadListener listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Returns the current catalog version. Callers that make several lookups for one request
+     * should hold on to the returned catalog instead of calling this method repeatedly.
+     * @return The PriceCatalog.
+     */
+    public PriceCatalog getCatalog() {
+        return catalog.get();
+    }
+
+    public Path getDataDir() {
+        return dataDir;
+    }
+
+    public Path getSegmentDir() {
+        return segmentDir;
+    }
+
+    /**
+     * Returns a list of all available store names based on CSV files in the data directory.
+     * @return List of store names.
+     */
+    public List<String> getAvailableStores() {
+        return getCatalog().getStores();
+    }
+
+    /**
+     * Returns a list of all available dates (YYYY-MM-DD) based on CSV files in the data directory.
+     * @return List of available dates.
+     */
+    public List<String> getAvailableDates() {
+        return getCatalog().getDates();
     }
 
     /**
@@ -96,9 +153,7 @@ public class CsvDataLoaderService {
      * @return List of Product objects for the store and date.
      */
     public List<Product> loadProducts(String store, String date) {
-        String fileName = findPriceFileForDate(store, date);
-        if (fileName == null) return Collections.emptyList();
-        return readProductsFromCsv(fileName);
+        return getCatalog().getProducts(store, LocalDate.parse(date));
     }
 
     /**
@@ -108,18 +163,15 @@ public class CsvDataLoaderService {
      * @return List of Discount objects for the store and date.
      */
     public List<Discount> loadDiscounts(String store, String date) {
-        String fileName = findDiscountFileForDate(store, date);
-        if (fileName == null) return Collections.emptyList();
-        return readDiscountsFromCsv(fileName);
+        return getCatalog().getDiscounts(store, LocalDate.parse(date));
     }
 
     public List<PriceHistoryEntry> loadPriceHistory(String productId) {
         List<PriceHistoryEntry> history = new ArrayList<>();
-        List<String> stores = getAvailableStores();
-        List<String> dates = getAvailableDates();
-        for (String store : stores) {
-            for (String date : dates) {
-                List<Product> products = loadProducts(store, date);
+        PriceCatalog catalog = getCatalog();
+        for (String store : catalog.getStores()) {
+            for (String date : catalog.getDates()) {
+                List<Product> products = catalog.getProducts(store, LocalDate.parse(date));
                 for (Product p : products) {
                     if (p.getProductId().equals(productId)) {
                         PriceHistoryEntry entry = new PriceHistoryEntry();
@@ -142,58 +194,102 @@ public class CsvDataLoaderService {
      * @return List of Product objects parsed from the file.
      */
     public List<Product> readProductsFromCsv(String fileName) {
-        List<Product> products = new ArrayList<>();
-        try (InputStream is = Files.newInputStream(Paths.get(DATA_PATH + fileName));
-             CSVReader reader = new CSVReaderBuilder(new InputStreamReader(is))
-                .withCSVParser(new CSVParserBuilder().withSeparator(';').build())
-                .build()) {
-            String[] line;
-            boolean first = true;
-            while ((line = reader.readNext()) != null) {
-                if (first) { first = false; continue; }
-                Product p = new Product();
-                p.setProductId(line[0]);
-                p.setProductName(line[1]);
-                p.setProductCategory(line[2]);
-                p.setBrand(line[3]);
-                p.setPackageQuantity(Double.parseDouble(line[4]));
-                p.setPackageUnit(line[5]);
-                p.setPrice(Double.parseDouble(line[6]));
-                p.setCurrency(line[7]);
-                products.add(p);
+        return parseProductTable(dataDir.resolve(fileName)).toProducts();
+    }
+
+    public List<Discount> readDiscountsFromCsv(String fileName) {
+        return parseDiscountTable(dataDir.resolve(fileName)).toDiscounts();
+    }
+
+    /**
+     * Loads a price file from its segment when that is fresh, otherwise parses the CSV and writes the segment.
+     */
+    private ProductTable loadProductTable(String fileName) {
+        Path source = dataDir.resolve(fileName);
+        if (segmentDir == null) return parseProductTable(source);
+        Path segment = CatalogSegment.segmentPath(segmentDir, fileName);
+        ProductTable table = CatalogSegment.readProducts(segment, source);
+        if (table != null) return table;
+        try {
+            CatalogSegment.Stamp stamp = CatalogSegment.Stamp.of(source);
+            table = parseProductTable(source);
+            CatalogSegment.writeProducts(segment, stamp, table);
+        } catch (Exception e) {
+            log.warn("Cannot write segment {} of {}", segment, fileName, e);
+        }
+        return table != null ? table : parseProductTable(source);
+    }
+
+    /**
+     * Loads a discount file from its segment when that is fresh, otherwise parses the CSV and writes the segment.
+     */
+    private DiscountTable loadDiscountTable(String fileName) {
+        Path source = dataDir.resolve(fileName);
+        if (segmentDir == null) return parseDiscountTable(source);
+        Path segment = CatalogSegment.segmentPath(segmentDir, fileName);
+        DiscountTable table = CatalogSegment.readDiscounts(segment, source);
+        if (table != null) return table;
+        try {
+            CatalogSegment.Stamp stamp = CatalogSegment.Stamp.of(source);
+            table = parseDiscountTable(source);
+            CatalogSegment.writeDiscounts(segment, stamp, table);
+        } catch (Exception e) {
+            log.warn("Cannot write segment {} of {}", segment, fileName, e);
+        }
+        return table != null ? table : parseDiscountTable(source);
+    }
+
+    private void deleteSegment(String fileName) {
+        if (segmentDir == null) return;
+        try {
+            Files.deleteIfExists(CatalogSegment.segmentPath(segmentDir, fileName));
+        } catch (Exception e) {
+            log.warn("Cannot delete the segment of removed file {}", fileName, e);
+        }
+    }
+
+    /**
+     * Parses a price CSV file. Parsing stops at the first malformed row.
+     * @param file The CSV file.
+     * @return The rows read.
+     */
+    static ProductTable parseProductTable(Path file) {
+        ProductTable.Builder table = new ProductTable.Builder();
+        StringDictionary dictionary = table.dictionary();
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            // Skip the header
+            reader.nextRecord();
+            while (reader.nextRecord()) {
+                table.addEncoded(reader.nextString(), reader.nextCode(dictionary), reader.nextCode(dictionary),
+                    reader.nextCode(dictionary), reader.nextDouble(), reader.nextCode(dictionary),
+                    reader.nextDouble(), reader.nextCode(dictionary));
             }
         } catch (Exception e) {
             // File may not exist for all store/date combos
         }
-        return products;
+        return table.build();
     }
 
-    public List<Discount> readDiscountsFromCsv(String fileName) {
-        List<Discount> discounts = new ArrayList<>();
-        try (InputStream is = Files.newInputStream(Paths.get(DATA_PATH + fileName));
-             CSVReader reader = new CSVReaderBuilder(new InputStreamReader(is))
-                .withCSVParser(new CSVParserBuilder().withSeparator(';').build())
-                .build()) {
-            String[] line;
-            boolean first = true;
-            while ((line = reader.readNext()) != null) {
-                if (first) { first = false; continue; }
-                Discount d = new Discount();
-                d.setProductId(line[0]);
-                d.setProductName(line[1]);
-                d.setBrand(line[2]);
-                d.setPackageQuantity(Double.parseDouble(line[3]));
-                d.setPackageUnit(line[4]);
-                d.setProductCategory(line[5]);
-                d.setFromDate(LocalDate.parse(line[6]));
-                d.setToDate(LocalDate.parse(line[7]));
-                d.setPercentageOfDiscount(Double.parseDouble(line[8]));
-                discounts.add(d);
+    /**
+     * Parses a discount CSV file. Parsing stops at the first malformed row.
+     * @param file The CSV file.
+     * @return The rows read.
+     */
+    static DiscountTable parseDiscountTable(Path file) {
+        DiscountTable.Builder table = new DiscountTable.Builder();
+        StringDictionary dictionary = table.dictionary();
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            // Skip the header
+            reader.nextRecord();
+            while (reader.nextRecord()) {
+                table.addEncoded(reader.nextString(), reader.nextCode(dictionary), reader.nextCode(dictionary),
+                    reader.nextDouble(), reader.nextCode(dictionary), reader.nextCode(dictionary),
+                    reader.nextEpochDay(), reader.nextEpochDay(), reader.nextDouble());
             }
         } catch (Exception e) {
             // File may not exist for all store/date combos
         }
-        return discounts;
+        return table.build();
     }
 
     /**
@@ -202,12 +298,6 @@ public class CsvDataLoaderService {
      * @return List of all Discount objects for the store.
      */
     public List<Discount> loadAllDiscountsForStore(String store) {
-        List<Discount> allDiscounts = new ArrayList<>();
-        List<String> dates = getAvailableDates();
-        for (String date : dates) {
-            String fileName = store + "_discounts_" + date + ".csv";
-            allDiscounts.addAll(readDiscountsFromCsv(fileName));
-        }
-        return allDiscounts;
+        return getCatalog().getAllDiscounts(store);
     }
-} 
\ No newline at end of file
+}
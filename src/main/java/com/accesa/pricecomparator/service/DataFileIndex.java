@@ -0,0 +1,215 @@
+package com.accesa.pricecomparator.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable index of the price and discount files in the data directory.
+ * Files are grouped per store and keyed by epoch day, so "file in effect on a date" is a floor lookup.
+ * Store names are matched case-insensitively.
+ */
+public class DataFileIndex {
+    private static final Logger log = LoggerFactory.getLogger(DataFileIndex.class);
+    private static final Pattern FILE_NAME = Pattern.compile("([^_]+)_(discounts_)?(\\d{4}-\\d{2}-\\d{2})\\.csv");
+
+    private final Map<String, String> storeNames = new TreeMap<>();
+    private final Map<String, NavigableMap<Long, String>> priceFiles = new TreeMap<>();
+    private final Map<String, NavigableMap<Long, String>> discountFiles = new TreeMap<>();
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<String> stores;
+    private final List<String> dates;
+
+    private DataFileIndex(List<String> fileNames) {
+        TreeSet<String> allDates = new TreeSet<>();
+        for (String fileName : fileNames) {
+            Matcher m = FILE_NAME.matcher(fileName);
+            if (!m.matches()) continue;
+            LocalDate date;
+            try {
+                date = LocalDate.parse(m.group(3));
+            } catch (Exception e) {
+                continue;
+            }
+            String key = storeKey(m.group(1));
+            storeNames.putIfAbsent(key, m.group(1));
+            Map<String, NavigableMap<Long, String>> target = m.group(2) != null ? discountFiles : priceFiles;
+            target.computeIfAbsent(key, k -> new TreeMap<>()).put(date.toEpochDay(), fileName);
+            allDates.add(m.group(3));
+            this.fileNames.add(fileName);
+        }
+        this.stores = Collections.unmodifiableList(new ArrayList<>(storeNames.values()));
+        this.dates = Collections.unmodifiableList(new ArrayList<>(allDates));
+    }
+
+    /**
+     * Scans a data directory once and indexes every {@code <store>_<date>.csv} and
+     * {@code <store>_discounts_<date>.csv} file in it.
+     * @param dataDir The data directory.
+     * @return The index (empty if the directory cannot be read).
+     */
+    public static DataFileIndex scan(Path dataDir) {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return new DataFileIndex(files.map(path -> path.getFileName().toString()).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Cannot list data directory {}, no data files are indexed", dataDir, e);
+            return new DataFileIndex(Collections.emptyList());
+        }
+    }
+
+    /**
+     * Builds an index over an explicit list of file names.
+     * @param fileNames The file names.
+     * @return The index.
+     */
+    public static DataFileIndex of(List<String> fileNames) {
+        return new DataFileIndex(fileNames);
+    }
+
+    /**
+     * Tells whether a file name follows the {@code <store>_<date>.csv} or {@code <store>_discounts_<date>.csv} pattern.
+     * @param fileName The file name.
+     * @return True for price and discount files.
+     */
+    public static boolean isDataFile(String fileName) {
+        return FILE_NAME.matcher(fileName).matches();
+    }
+
+    /**
+     * Tells whether a data file name is a discount file.
+     * @param fileName The file name.
+     * @return True for {@code <store>_discounts_<date>.csv} files.
+     */
+    public static boolean isDiscountFile(String fileName) {
+        Matcher m = FILE_NAME.matcher(fileName);
+        return m.matches() && m.group(2) != null;
+    }
+
+    /**
+     * Returns the case-folded store key of a data file name.
+     * @param fileName The file name.
+     * @return The store key, or null if the name is not a data file.
+     */
+    public static String storeKeyOf(String fileName) {
+        Matcher m = FILE_NAME.matcher(fileName);
+        return m.matches() ? storeKey(m.group(1)) : null;
+    }
+
+    /**
+     * Returns the date a data file takes effect.
+     * @param fileName The file name.
+     * @return The date, or null if the name is not a data file.
+     */
+    public static LocalDate dateOf(String fileName) {
+        Matcher m = FILE_NAME.matcher(fileName);
+        try {
+            return m.matches() ? LocalDate.parse(m.group(3)) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the store name as it is listed by {@link #getStores()}.
+     * @param store The store name in any case.
+     * @return The listed store name, or null if the store has no files.
+     */
+    public String getStoreName(String store) {
+        return storeNames.get(storeKey(store));
+    }
+
+    /**
+     * Returns the names of all indexed price and discount files.
+     * @return List of file names.
+     */
+    public List<String> getFileNames() {
+        return Collections.unmodifiableList(fileNames);
+    }
+
+    /**
+     * Returns all store names, sorted.
+     * @return List of store names.
+     */
+    public List<String> getStores() {
+        return stores;
+    }
+
+    /**
+     * Returns all dates (YYYY-MM-DD) for which any store has a price or discount file, sorted.
+     * @return List of dates.
+     */
+    public List<String> getDates() {
+        return dates;
+    }
+
+    /**
+     * Returns the price files of a store, keyed by epoch day.
+     * @param store The store name.
+     * @return Price file names keyed by epoch day, empty if the store is unknown.
+     */
+    public NavigableMap<Long, String> getPriceFiles(String store) {
+        return readOnly(priceFiles.get(storeKey(store)));
+    }
+
+    /**
+     * Returns the discount files of a store, keyed by epoch day.
+     * @param store The store name.
+     * @return Discount file names keyed by epoch day, empty if the store is unknown.
+     */
+    public NavigableMap<Long, String> getDiscountFiles(String store) {
+        return readOnly(discountFiles.get(storeKey(store)));
+    }
+
+    /**
+     * Finds the latest price file of a store dated on or before the given date.
+     * @param store The store name.
+     * @param date The query date.
+     * @return The file name, or null if the store has no such file.
+     */
+    public String findPriceFile(String store, LocalDate date) {
+        return floorValue(priceFiles.get(storeKey(store)), date);
+    }
+
+    /**
+     * Finds the latest discount file of a store dated on or before the given date.
+     * @param store The store name.
+     * @param date The query date.
+     * @return The file name, or null if the store has no such file.
+     */
+    public String findDiscountFile(String store, LocalDate date) {
+        return floorValue(discountFiles.get(storeKey(store)), date);
+    }
+
+    private static String floorValue(NavigableMap<Long, String> files, LocalDate date) {
+        if (files == null) return null;
+        Map.Entry<Long, String> entry = files.floorEntry(date.toEpochDay());
+        return entry == null ? null : entry.getValue();
+    }
+
+    private static NavigableMap<Long, String> readOnly(NavigableMap<Long, String> files) {
+        return files == null ? Collections.emptyNavigableMap() : Collections.unmodifiableNavigableMap(files);
+    }
+
+    /**
+     * Returns the case-folded key under which a store is indexed.
+     * @param store The store name.
+     * @return The store key.
+     */
+    public static String storeKey(String store) {
+        return store.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,320 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Interval index over the validity ranges of every discount of one store.
+ * Entries are sorted by start day, and a segment tree keeps the maximum end day of each range of
+ * entries, so "active on D" only descends into subtrees that contain a match and "starting on D"
+ * is a binary search. Both cost O(log n + k log n) for k results instead of O(n).
+ * Results are returned in file order (oldest file first, then row order).
+ * The deepest discount valid on each day is kept as a step function, built with one sweep over the intervals.
+ */
+public class DiscountIntervalIndex {
+    private final List<DiscountTable> tables;
+    private final int[] tableOf;
+    private final int[] rowOf;
+    private final int[] fromDays;
+    private final int[] toDays;
+    private final int[] sequence;
+    private final int[] maxTo;
+    // The deepest discount valid from stepDays[i] until the day before stepDays[i + 1]
+    private final int[] stepDays;
+    private final double[] maxPercentages;
+
+    /**
+     * Builds the index over the given discount tables.
+     * @param tables The discount tables of a store, oldest first.
+     */
+    public DiscountIntervalIndex(List<DiscountTable> tables) {
+        this.tables = new ArrayList<>(tables);
+        int n = 0;
+        for (DiscountTable table : tables) {
+            n += table.size();
+        }
+        long[] sortKeys = new long[n];
+        int[] seqTable = new int[n];
+        int[] seqRow = new int[n];
+        int seq = 0;
+        for (int t = 0; t < tables.size(); t++) {
+            DiscountTable table = tables.get(t);
+            for (int row = 0; row < table.size(); row++) {
+                // from day in the high bits, sequence in the low bits: sorts by start, then file order
+                sortKeys[seq] = ((long) table.getFromDay(row) << 32) | seq;
+                seqTable[seq] = t;
+                seqRow[seq] = row;
+                seq++;
+            }
+        }
+        Arrays.sort(sortKeys);
+        this.tableOf = new int[n];
+        this.rowOf = new int[n];
+        this.fromDays = new int[n];
+        this.toDays = new int[n];
+        this.sequence = new int[n];
+        for (int i = 0; i < n; i++) {
+            int s = (int) (sortKeys[i] & 0xFFFFFFFFL);
+            sequence[i] = s;
+            tableOf[i] = seqTable[s];
+            rowOf[i] = seqRow[s];
+            DiscountTable table = tables.get(tableOf[i]);
+            fromDays[i] = table.getFromDay(rowOf[i]);
+            toDays[i] = table.getToDay(rowOf[i]);
+        }
+        this.maxTo = new int[Math.max(1, 4 * n)];
+        if (n > 0) {
+            buildTree(1, 0, n);
+        }
+        double[] percentages = new double[n];
+        for (int i = 0; i < n; i++) {
+            percentages[i] = tables.get(tableOf[i]).getPercentageOfDiscount(rowOf[i]);
+        }
+        Steps steps = sweep(percentages);
+        this.stepDays = steps.days;
+        this.maxPercentages = steps.values;
+    }
+
+    /**
+     * Computes the deepest valid discount on every day where it changes: entries start in from-day order, end in
+     * to-day order, and a multiset of the percentages currently valid gives the maximum.
+     */
+    private Steps sweep(double[] percentages) {
+        int n = fromDays.length;
+        // Entries ending the day before, sorted; inverted ranges are never valid and are skipped
+        long[] ends = new long[n];
+        int endCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (fromDays[i] <= toDays[i]) ends[endCount++] = ((long) (toDays[i] + 1) << 32) | i;
+        }
+        Arrays.sort(ends, 0, endCount);
+        TreeMap<Double, Integer> valid = new TreeMap<>();
+        Steps steps = new Steps(2 * endCount);
+        int start = 0;
+        int end = 0;
+        while (end < endCount) {
+            while (start < n && fromDays[start] > toDays[start]) start++;
+            int day = (int) (ends[end] >>> 32);
+            if (start < n && fromDays[start] < day) day = fromDays[start];
+            for (; end < endCount && (int) (ends[end] >>> 32) == day; end++) {
+                valid.computeIfPresent(percentages[(int) ends[end]], (p, count) -> count == 1 ? null : count - 1);
+            }
+            for (; start < n && fromDays[start] == day; start++) {
+                if (fromDays[start] <= toDays[start]) valid.merge(percentages[start], 1, Integer::sum);
+            }
+            steps.add(day, valid.isEmpty() ? 0.0 : valid.lastKey());
+        }
+        return steps.trim();
+    }
+
+    private int buildTree(int node, int lo, int hi) {
+        if (hi - lo == 1) {
+            maxTo[node] = toDays[lo];
+        } else {
+            int mid = (lo + hi) >>> 1;
+            maxTo[node] = Math.max(buildTree(2 * node, lo, mid), buildTree(2 * node + 1, mid, hi));
+        }
+        return maxTo[node];
+    }
+
+    public int size() {
+        return sequence.length;
+    }
+
+    /**
+     * Returns the days on which the set of valid discounts changes: the first day of an entry and the day after
+     * its last. Every day from one change day up to the next sees the same discounts.
+     * @return Epoch days, ascending, possibly repeated.
+     */
+    public int[] changeDays() {
+        int[] days = new int[2 * fromDays.length];
+        int size = 0;
+        for (int i = 0; i < fromDays.length; i++) {
+            if (fromDays[i] > toDays[i]) continue;
+            days[size++] = fromDays[i];
+            days[size++] = toDays[i] + 1;
+        }
+        days = Arrays.copyOf(days, size);
+        Arrays.sort(days);
+        return days;
+    }
+
+    /**
+     * Returns the deepest discount valid on a day, which bounds how far below its listed price any product of the
+     * store can be sold that day.
+     * @param day The epoch day.
+     * @return The highest percentage of any discount active on the day, 0 if none is.
+     */
+    public double maxPercentageOn(int day) {
+        int lo = 0;
+        int hi = stepDays.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (stepDays[mid] <= day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo == 0 ? 0.0 : maxPercentages[lo - 1];
+    }
+
+    /**
+     * Returns the discounts whose validity interval contains the date.
+     * @param date The date.
+     * @return Discounts with fromDate &lt;= date &lt;= toDate, in file order.
+     */
+    public List<Discount> activeOn(LocalDate date) {
+        int[] entries = activeEntries((int) date.toEpochDay());
+        if (entries.length == 0) return Collections.emptyList();
+        List<Discount> discounts = new ArrayList<>(entries.length);
+        for (int i : entries) {
+            discounts.add(tables.get(tableOf[i]).toDiscount(rowOf[i]));
+        }
+        return discounts;
+    }
+
+    /**
+     * Returns the entries whose validity interval contains the day, without materializing them.
+     * @param day The epoch day.
+     * @return Entry positions in file order; read them with {@link #getTable}, {@link #getRow} and
+     *         {@link #getSequence}.
+     */
+    public int[] activeEntries(int day) {
+        int end = upperBound(day);
+        Hits hits = new Hits();
+        if (end > 0) {
+            collectActive(1, 0, sequence.length, end, day, hits);
+        }
+        // Sequence in the high bits restores file order
+        Arrays.sort(hits.keys, 0, hits.size);
+        int[] entries = new int[hits.size];
+        for (int k = 0; k < hits.size; k++) {
+            entries[k] = (int) hits.keys[k];
+        }
+        return entries;
+    }
+
+    private void collectActive(int node, int lo, int hi, int end, int day, Hits hits) {
+        if (lo >= end || maxTo[node] < day) return;
+        if (hi - lo == 1) {
+            hits.add(((long) sequence[lo] << 32) | lo);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        collectActive(2 * node, lo, mid, end, day, hits);
+        collectActive(2 * node + 1, mid, hi, end, day, hits);
+    }
+
+    /**
+     * Returns the discount table holding an entry.
+     * @param entry An entry position returned by {@link #activeEntries(int)}.
+     */
+    public DiscountTable getTable(int entry) {
+        return tables.get(tableOf[entry]);
+    }
+
+    /**
+     * Returns the row of an entry in its discount table.
+     * @param entry An entry position returned by {@link #activeEntries(int)}.
+     */
+    public int getRow(int entry) {
+        return rowOf[entry];
+    }
+
+    /**
+     * Returns the position of an entry in file order across all the store's discount tables.
+     * @param entry An entry position returned by {@link #activeEntries(int)}.
+     */
+    public int getSequence(int entry) {
+        return sequence[entry];
+    }
+
+    /**
+     * Returns the discounts whose validity interval starts on the date.
+     * @param date The date.
+     * @return Discounts with fromDate == date, in file order.
+     */
+    public List<Discount> startingOn(LocalDate date) {
+        int day = (int) date.toEpochDay();
+        List<Integer> hits = new ArrayList<>();
+        for (int i = upperBound(day - 1); i < sequence.length && fromDays[i] == day; i++) {
+            hits.add(i);
+        }
+        return materialize(hits);
+    }
+
+    /**
+     * Returns the index of the first entry starting after the given day.
+     */
+    private int upperBound(int day) {
+        int lo = 0;
+        int hi = fromDays.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (fromDays[mid] <= day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private List<Discount> materialize(List<Integer> hits) {
+        if (hits.isEmpty()) return Collections.emptyList();
+        hits.sort((a, b) -> Integer.compare(sequence[a], sequence[b]));
+        List<Discount> discounts = new ArrayList<>(hits.size());
+        for (int i : hits) {
+            discounts.add(tables.get(tableOf[i]).toDiscount(rowOf[i]));
+        }
+        return discounts;
+    }
+
+    /**
+     * Growable buffer of (sequence, entry) keys.
+     */
+    private static final class Hits {
+        private long[] keys = new long[16];
+        private int size;
+
+        void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+    }
+
+    /**
+     * Step function under construction; consecutive steps with the same value are merged.
+     */
+    private static final class Steps {
+        private int[] days;
+        private double[] values;
+        private int size;
+
+        Steps(int capacity) {
+            days = new int[capacity];
+            values = new double[capacity];
+        }
+
+        void add(int day, double value) {
+            if (size > 0 && values[size - 1] == value) return;
+            days[size] = day;
+            values[size] = value;
+            size++;
+        }
+
+        Steps trim() {
+            days = Arrays.copyOf(days, size);
+            values = Arrays.copyOf(values, size);
+            return this;
+        }
+    }
+}
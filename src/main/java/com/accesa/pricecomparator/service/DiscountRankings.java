@@ -0,0 +1,169 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Top-K discount rankings across all stores: the {@link #MAX_K} highest discounts overall and the {@link #MAX_K}
+ * highest "best discount per product name" entries. The discounts valid on a day only change on a day where some
+ * discount starts or the day after one ends, so a ranking is computed once per interval between two such change
+ * days, on the first query falling in it, and every later query is a floor lookup. The cost follows the number of
+ * discounts, not the length of their validity. Ties keep store order, then file order.
+ */
+public class DiscountRankings {
+    /**
+     * Largest K that is kept; larger requests are ranked on demand, in the same order.
+     */
+    public static final int MAX_K = 100;
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+        .comparingDouble((Candidate c) -> -c.entry.getDiscount().getPercentageOfDiscount())
+        .thenComparingInt(c -> c.sequence);
+
+    private final PriceCatalog catalog;
+    // Days on which the set of valid discounts changes, ascending
+    private final int[] changeDays;
+    // first day of an interval -> its rankings, computed on first use
+    private final Map<Integer, Ranking> rankings = new ConcurrentHashMap<>();
+
+    /**
+     * Collects the change days of every store. Nothing is ranked until queried.
+     * @param catalog The catalog (its interval indexes must already be built).
+     */
+    DiscountRankings(PriceCatalog catalog) {
+        this.catalog = catalog;
+        List<int[]> perStore = new ArrayList<>();
+        int total = 0;
+        for (String store : catalog.getStores()) {
+            int[] storeDays = catalog.getDiscountIntervalIndex(store).changeDays();
+            perStore.add(storeDays);
+            total += storeDays.length;
+        }
+        int[] days = new int[total];
+        int offset = 0;
+        for (int[] storeDays : perStore) {
+            System.arraycopy(storeDays, 0, days, offset, storeDays.length);
+            offset += storeDays.length;
+        }
+        Arrays.sort(days);
+        int size = 0;
+        for (int day : days) {
+            if (size == 0 || days[size - 1] != day) days[size++] = day;
+        }
+        this.changeDays = Arrays.copyOf(days, size);
+    }
+
+    /**
+     * Returns the K highest discounts valid on a date, across all stores.
+     * @param date The date.
+     * @param k The number of entries; above {@link #MAX_K} they are ranked for this call only.
+     * @return Up to k entries, highest percentage first.
+     */
+    public List<RankedDiscount> top(LocalDate date, int k) {
+        Ranking ranking = k > MAX_K ? rank(date, k) : rankingOn(date);
+        return prefix(ranking == null ? null : ranking.overall, k);
+    }
+
+    /**
+     * Returns, for the K product names with the highest discount valid on a date, that best discount.
+     * @param date The date.
+     * @param k The number of entries; above {@link #MAX_K} they are ranked for this call only.
+     * @return Up to k entries, highest percentage first.
+     */
+    public List<RankedDiscount> topPerProduct(LocalDate date, int k) {
+        Ranking ranking = k > MAX_K ? rank(date, k) : rankingOn(date);
+        return prefix(ranking == null ? null : ranking.perProduct, k);
+    }
+
+    /**
+     * Returns the ranking of the interval holding a date, or null before the first discount starts.
+     */
+    private Ranking rankingOn(LocalDate date) {
+        long day = date.toEpochDay();
+        int lo = 0;
+        int hi = changeDays.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (changeDays[mid] <= day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo == 0) return null;
+        return rankings.computeIfAbsent(changeDays[lo - 1], start -> rank(LocalDate.ofEpochDay(start), MAX_K));
+    }
+
+    private Ranking rank(LocalDate date, int limit) {
+        PriorityQueue<Candidate> overall = new PriorityQueue<>(BEST_FIRST.reversed());
+        Map<Integer, Candidate> bestPerProduct = new LinkedHashMap<>();
+        int sequence = 0;
+        for (String store : catalog.getStores()) {
+            for (Discount d : catalog.getActiveDiscounts(store, date)) {
+                Candidate c = new Candidate(new RankedDiscount(store, d), sequence++);
+                offer(overall, c, limit);
+                Candidate best = bestPerProduct.get(d.getProductNameCode());
+                if (best == null || d.getPercentageOfDiscount() > best.entry.getDiscount().getPercentageOfDiscount()) {
+                    bestPerProduct.put(d.getProductNameCode(), c);
+                }
+            }
+        }
+        PriorityQueue<Candidate> perProduct = new PriorityQueue<>(BEST_FIRST.reversed());
+        for (Candidate c : bestPerProduct.values()) {
+            offer(perProduct, c, limit);
+        }
+        return new Ranking(sorted(overall), sorted(perProduct));
+    }
+
+    private static void offer(PriorityQueue<Candidate> heap, Candidate c, int limit) {
+        heap.add(c);
+        if (heap.size() > limit) {
+            heap.poll();
+        }
+    }
+
+    private static List<RankedDiscount> sorted(PriorityQueue<Candidate> heap) {
+        if (heap.isEmpty()) return Collections.emptyList();
+        List<Candidate> candidates = new ArrayList<>(heap);
+        candidates.sort(BEST_FIRST);
+        List<RankedDiscount> ranked = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            ranked.add(c.entry);
+        }
+        return Collections.unmodifiableList(ranked);
+    }
+
+    private static List<RankedDiscount> prefix(List<RankedDiscount> ranking, int k) {
+        if (ranking == null || k <= 0) return Collections.emptyList();
+        return ranking.subList(0, Math.min(k, ranking.size()));
+    }
+
+    private static final class Ranking {
+        private final List<RankedDiscount> overall;
+        private final List<RankedDiscount> perProduct;
+
+        private Ranking(List<RankedDiscount> overall, List<RankedDiscount> perProduct) {
+            this.overall = overall;
+            this.perProduct = perProduct;
+        }
+    }
+
+    private static class Candidate {
+        private final RankedDiscount entry;
+        private final int sequence;
+
+        private Candidate(RankedDiscount entry, int sequence) {
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+    }
+}
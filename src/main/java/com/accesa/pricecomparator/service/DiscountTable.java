@@ -0,0 +1,233 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+import com.accesa.pricecomparator.model.Symbols;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, column-oriented copy of one discount file (one store, one snapshot date).
+ * Validity intervals are stored as epoch days, repeated strings are stored as {@link Symbols} codes.
+ */
+public class DiscountTable {
+    private final String[] productIds;
+    private final int[] productNames;
+    private final int[] brands;
+    private final double[] packageQuantities;
+    private final int[] packageUnits;
+    private final int[] productCategories;
+    private final int[] fromDays;
+    private final int[] toDays;
+    private final double[] percentages;
+    private final NameBrandIndex nameBrandIndex;
+
+    private DiscountTable(Builder b) {
+        int[] symbols = b.dictionary.symbols();
+        this.productIds = Arrays.copyOf(b.productIds, b.size);
+        this.productNames = StringDictionary.remap(b.productNames, b.size, symbols);
+        this.brands = StringDictionary.remap(b.brands, b.size, symbols);
+        this.packageQuantities = Arrays.copyOf(b.packageQuantities, b.size);
+        this.packageUnits = StringDictionary.remap(b.packageUnits, b.size, symbols);
+        this.productCategories = StringDictionary.remap(b.productCategories, b.size, symbols);
+        this.fromDays = Arrays.copyOf(b.fromDays, b.size);
+        this.toDays = Arrays.copyOf(b.toDays, b.size);
+        this.percentages = Arrays.copyOf(b.percentages, b.size);
+        NameBrandIndex.Builder index = new NameBrandIndex.Builder(b.dictionary);
+        for (int row = 0; row < b.size; row++) {
+            index.add(row, b.productNames[row], b.brands[row]);
+        }
+        this.nameBrandIndex = index.build();
+    }
+
+    /**
+     * Wraps already built columns and index, as loaded from a {@link CatalogSegment}.
+     * String columns hold {@link Symbols} codes.
+     */
+    DiscountTable(String[] productIds, int[] productNames, int[] brands,
+                  double[] packageQuantities, int[] packageUnits, int[] productCategories, int[] fromDays,
+                  int[] toDays, double[] percentages, NameBrandIndex nameBrandIndex) {
+        this.productIds = productIds;
+        this.productNames = productNames;
+        this.brands = brands;
+        this.packageQuantities = packageQuantities;
+        this.packageUnits = packageUnits;
+        this.productCategories = productCategories;
+        this.fromDays = fromDays;
+        this.toDays = toDays;
+        this.percentages = percentages;
+        this.nameBrandIndex = nameBrandIndex;
+    }
+
+    NameBrandIndex getNameBrandIndex() {
+        return nameBrandIndex;
+    }
+
+    public int size() { return productIds.length; }
+    public String getProductId(int row) { return productIds[row]; }
+    public String getProductName(int row) { return Symbols.decode(productNames[row]); }
+    public String getBrand(int row) { return Symbols.decode(brands[row]); }
+    public double getPackageQuantity(int row) { return packageQuantities[row]; }
+    public String getPackageUnit(int row) { return Symbols.decode(packageUnits[row]); }
+    public String getProductCategory(int row) { return Symbols.decode(productCategories[row]); }
+    public int getFromDay(int row) { return fromDays[row]; }
+    public int getToDay(int row) { return toDays[row]; }
+    public double getPercentageOfDiscount(int row) { return percentages[row]; }
+
+    /**
+     * Finds rows by product name and optional brand with one hash lookup (see {@link NameBrandIndex}).
+     * @param productName The product name.
+     * @param brand The brand, or null/empty to match any brand.
+     * @return Matching rows in file order.
+     */
+    public int[] findRows(String productName, String brand) {
+        return nameBrandIndex.find(productName, brand);
+    }
+
+    /**
+     * Materializes one row as a Discount.
+     * @param row The row index.
+     * @return A new Discount object.
+     */
+    public Discount toDiscount(int row) {
+        Discount d = new Discount();
+        d.setProductId(getProductId(row));
+        d.setProductNameCode(productNames[row]);
+        d.setBrandCode(brands[row]);
+        d.setPackageQuantity(getPackageQuantity(row));
+        d.setPackageUnitCode(packageUnits[row]);
+        d.setProductCategoryCode(productCategories[row]);
+        d.setFromDate(LocalDate.ofEpochDay(getFromDay(row)));
+        d.setToDate(LocalDate.ofEpochDay(getToDay(row)));
+        d.setPercentageOfDiscount(getPercentageOfDiscount(row));
+        return d;
+    }
+
+    /**
+     * Writes one row as a Discount JSON object, with the same fields in the same order, without materializing it.
+     * @param gen The generator to write to.
+     * @param row The row index.
+     */
+    public void writeRow(JsonGenerator gen, int row) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("productId", productIds[row]);
+        gen.writeStringField("productName", Symbols.decode(productNames[row]));
+        gen.writeStringField("brand", Symbols.decode(brands[row]));
+        gen.writeNumberField("packageQuantity", packageQuantities[row]);
+        gen.writeStringField("packageUnit", Symbols.decode(packageUnits[row]));
+        gen.writeStringField("productCategory", Symbols.decode(productCategories[row]));
+        gen.writeStringField("fromDate", LocalDate.ofEpochDay(fromDays[row]).toString());
+        gen.writeStringField("toDate", LocalDate.ofEpochDay(toDays[row]).toString());
+        gen.writeNumberField("percentageOfDiscount", percentages[row]);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Returns whether the discount of a row is valid on a day.
+     * @param row The row index.
+     * @param day The epoch day.
+     * @return True if fromDate &lt;= day &lt;= toDate.
+     */
+    public boolean isActiveOn(int row, int day) {
+        return fromDays[row] <= day && day <= toDays[row];
+    }
+
+    /**
+     * Materializes all rows as Discounts, in file order.
+     * @return List of new Discount objects.
+     */
+    public List<Discount> toDiscounts() {
+        List<Discount> discounts = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            discounts.add(toDiscount(i));
+        }
+        return discounts;
+    }
+
+    /**
+     * Builds a table from already materialized Discounts.
+     * @param discounts The rows, in order.
+     * @return The table.
+     */
+    public static DiscountTable of(List<Discount> discounts) {
+        Builder builder = new Builder();
+        for (Discount d : discounts) {
+            builder.add(d.getProductId(), d.getProductName(), d.getBrand(), d.getPackageQuantity(), d.getPackageUnit(),
+                d.getProductCategory(), d.getFromDate(), d.getToDate(), d.getPercentageOfDiscount());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Accumulates rows while a discount file is being parsed.
+     */
+    public static class Builder {
+        private final StringDictionary dictionary = new StringDictionary();
+        private int size;
+        private String[] productIds = new String[16];
+        private int[] productNames = new int[16];
+        private int[] brands = new int[16];
+        private double[] packageQuantities = new double[16];
+        private int[] packageUnits = new int[16];
+        private int[] productCategories = new int[16];
+        private int[] fromDays = new int[16];
+        private int[] toDays = new int[16];
+        private double[] percentages = new double[16];
+
+        public Builder add(String productId, String productName, String brand, double packageQuantity,
+                           String packageUnit, String productCategory, LocalDate fromDate, LocalDate toDate,
+                           double percentageOfDiscount) {
+            return addEncoded(productId, dictionary.encode(productName), dictionary.encode(brand), packageQuantity,
+                dictionary.encode(packageUnit), dictionary.encode(productCategory), (int) fromDate.toEpochDay(),
+                (int) toDate.toEpochDay(), percentageOfDiscount);
+        }
+
+        /**
+         * Adds a row whose string columns are already codes of {@link #dictionary()} and whose dates are epoch days.
+         */
+        Builder addEncoded(String productId, int productName, int brand, double packageQuantity, int packageUnit,
+                           int productCategory, int fromDay, int toDay, double percentageOfDiscount) {
+            if (size == productIds.length) {
+                grow();
+            }
+            productIds[size] = productId;
+            productNames[size] = productName;
+            brands[size] = brand;
+            packageQuantities[size] = packageQuantity;
+            packageUnits[size] = packageUnit;
+            productCategories[size] = productCategory;
+            fromDays[size] = fromDay;
+            toDays[size] = toDay;
+            percentages[size] = percentageOfDiscount;
+            size++;
+            return this;
+        }
+
+        /**
+         * Returns the dictionary the string columns of this table are encoded with.
+         */
+        StringDictionary dictionary() {
+            return dictionary;
+        }
+
+        private void grow() {
+            int capacity = size * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            productNames = Arrays.copyOf(productNames, capacity);
+            brands = Arrays.copyOf(brands, capacity);
+            packageQuantities = Arrays.copyOf(packageQuantities, capacity);
+            packageUnits = Arrays.copyOf(packageUnits, capacity);
+            productCategories = Arrays.copyOf(productCategories, capacity);
+            fromDays = Arrays.copyOf(fromDays, capacity);
+            toDays = Arrays.copyOf(toDays, capacity);
+            percentages = Arrays.copyOf(percentages, capacity);
+        }
+
+        public DiscountTable build() {
+            return new DiscountTable(this);
+        }
+    }
+}
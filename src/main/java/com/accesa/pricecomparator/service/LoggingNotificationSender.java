@@ -0,0 +1,23 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+/**
+ * Stand-in sender that writes each batch to the application log instead of sending an email.
+ */
+@Service
+public class LoggingNotificationSender implements NotificationSender {
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    @Override
+    public void send(String recipient, List<Notification> notifications) {
+        log.info("[EMAIL] To: {} | {} notification(s)", recipient, notifications.size());
+        for (Notification notification : notifications) {
+            log.info("[EMAIL] To: {} | Subject: {} | Body: {}", recipient, notification.getSubject(), notification.getBody());
+        }
+    }
+}
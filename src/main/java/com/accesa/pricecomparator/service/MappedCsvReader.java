@@ -0,0 +1,251 @@
+package com.accesa.pricecomparator.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Reads a ';'-separated UTF-8 file record by record, field by field, straight from a memory-mapped view of it.
+ * Numbers and dates are parsed from the bytes and repeated strings are looked up in a {@link StringDictionary}
+ * by their bytes, so a record costs no allocation beyond the values that are new. Every record is one line; fields
+ * may be quoted with '"' (a doubled quote inside is a literal quote), which takes a slower path. Files larger than
+ * the mapping window are mapped one window at a time, each starting at a record boundary.
+ */
+public class MappedCsvReader implements Closeable {
+    private static final long WINDOW = 1L << 30;
+    private static final byte SEPARATOR = ';';
+    private static final byte QUOTE = '"';
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long window;
+    private MappedByteBuffer buffer;
+    private long windowStart;
+    // Within the window: the next byte to read, the end of the current record (exclusive, before any '\r')
+    // and the start of the line after it
+    private int pos;
+    private int recordEnd = -1;
+    private int nextLine;
+
+    /**
+     * Opens and maps a file. A UTF-8 byte order mark at its start is skipped.
+     * @param file The file to read.
+     */
+    public MappedCsvReader(Path file) throws IOException {
+        this(file, WINDOW);
+    }
+
+    MappedCsvReader(Path file, long window) throws IOException {
+        this.window = window;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        map(0);
+        if (buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            pos = 3;
+        }
+    }
+
+    /**
+     * Moves to the next non-empty record, skipping whatever is left of the current one.
+     * @return False when the end of the file is reached.
+     */
+    public boolean nextRecord() throws IOException {
+        if (recordEnd >= 0) {
+            pos = nextLine;
+        }
+        while (true) {
+            int end = lineEnd(pos);
+            if (end == buffer.limit() && windowStart + end < fileSize) {
+                // The record runs past the window: remap starting at the record
+                if (pos == 0) throw new IOException("Record longer than " + window + " bytes");
+                map(windowStart + pos);
+                continue;
+            }
+            if (pos >= buffer.limit()) return false;
+            int contentEnd = end > pos && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            if (contentEnd == pos) {
+                // Blank line
+                pos = end < buffer.limit() ? end + 1 : end;
+                continue;
+            }
+            recordEnd = contentEnd;
+            nextLine = end < buffer.limit() ? end + 1 : end;
+            return true;
+        }
+    }
+
+    /**
+     * Reads the next field of the current record as a string.
+     * @return The field value.
+     */
+    public String nextString() throws IOException {
+        if (atQuote()) return nextQuoted();
+        int end = fieldEnd();
+        byte[] bytes = new byte[end - pos];
+        for (int k = 0; k < bytes.length; k++) {
+            bytes[k] = buffer.get(pos + k);
+        }
+        skipField(end);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next field of the current record as a dictionary code.
+     * @param dictionary The dictionary that assigns the codes.
+     * @return The code of the field value.
+     */
+    public int nextCode(StringDictionary dictionary) throws IOException {
+        if (atQuote()) return dictionary.encode(nextQuoted());
+        int end = fieldEnd();
+        int code = dictionary.encode(buffer, pos, end - pos);
+        skipField(end);
+        return code;
+    }
+
+    /**
+     * Reads the next field of the current record as a number. Plain decimals such as "-12.345" are converted
+     * directly, with the same result as {@link Double#parseDouble}; anything else is handed to it.
+     * @return The field value.
+     */
+    public double nextDouble() throws IOException {
+        if (atQuote()) return Double.parseDouble(nextQuoted());
+        int end = fieldEnd();
+        int i = pos;
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative) i++;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean plain = i < end;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) scale++;
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                plain = false;
+                break;
+            }
+        }
+        // Below 2^53 the mantissa and 10^scale are exact doubles, so one division rounds correctly
+        if (!plain || digits == 0 || digits > 15 || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(nextString());
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        skipField(end);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the next field of the current record as a YYYY-MM-DD date.
+     * @return The date as a day count since the epoch.
+     */
+    public int nextEpochDay() throws IOException {
+        if (atQuote()) return (int) LocalDate.parse(nextQuoted()).toEpochDay();
+        int end = fieldEnd();
+        if (end - pos != 10 || buffer.get(pos + 4) != '-' || buffer.get(pos + 7) != '-') {
+            return (int) LocalDate.parse(nextString()).toEpochDay();
+        }
+        int year = digits(pos, 4);
+        int month = digits(pos + 5, 2);
+        int day = digits(pos + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return (int) LocalDate.parse(nextString()).toEpochDay();
+        }
+        skipField(end);
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(window, fileSize - start));
+        pos = 0;
+        recordEnd = -1;
+    }
+
+    private int lineEnd(int from) {
+        int limit = buffer.limit();
+        int i = from;
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private int fieldEnd() throws IOException {
+        if (pos > recordEnd) throw new IOException("Missing field at byte " + (windowStart + pos));
+        int i = pos;
+        while (i < recordEnd && buffer.get(i) != SEPARATOR) {
+            i++;
+        }
+        return i;
+    }
+
+    private void skipField(int end) {
+        pos = end + 1;
+    }
+
+    private boolean atQuote() {
+        return pos < recordEnd && buffer.get(pos) == QUOTE;
+    }
+
+    private String nextQuoted() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int i = pos + 1;
+        while (true) {
+            if (i >= recordEnd) throw new IOException("Unterminated quote at byte " + (windowStart + pos));
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                if (i + 1 < recordEnd && buffer.get(i + 1) == QUOTE) {
+                    bytes.write(QUOTE);
+                    i += 2;
+                    continue;
+                }
+                i++;
+                break;
+            }
+            bytes.write(b);
+            i++;
+        }
+        // Anything between the closing quote and the separator is kept, as unquoted text
+        int end = i;
+        while (end < recordEnd && buffer.get(end) != SEPARATOR) {
+            bytes.write(buffer.get(end));
+            end++;
+        }
+        skipField(end);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') return -1;
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,59 @@
+package com.accesa.pricecomparator.service;
+
+/**
+ * Fixed-point arithmetic for amounts of money held as a primitive {@code long} of minor units (bani, 1/100 RON).
+ * Listed prices are converted once, discounts are applied with integer arithmetic and rounded half-up to a whole
+ * ban, and totals are plain long sums, so the same inputs always produce the same amount whatever the order of
+ * the additions. Amounts are turned back into a decimal number only when a response is written.
+ */
+public final class Money {
+    public static final long MINOR_UNITS = 100;
+    // Percentages are applied in hundredths of a percent, so 12.5% is exactly 1250 / 10000
+    private static final long PERCENT_SCALE = 100 * 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal amount, such as a price read from a CSV file, to minor units.
+     * @param amount The amount in RON.
+     * @return The amount in bani, rounded half-up.
+     */
+    public static long of(double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    /**
+     * Converts an amount in minor units back to a decimal amount, for responses.
+     * @param minor The amount in bani.
+     * @return The amount in RON with at most two decimals.
+     */
+    public static double toDouble(long minor) {
+        return minor / (double) MINOR_UNITS;
+    }
+
+    /**
+     * Applies a percentage discount.
+     * @param minor The price in bani.
+     * @param percentage The discount percentage, with up to two decimals (e.g. 12.5).
+     * @return The discounted price in bani, rounded half-up.
+     */
+    public static long discount(long minor, double percentage) {
+        long hundredths = Math.round(percentage * 100);
+        return divideHalfUp(minor * (PERCENT_SCALE - hundredths), PERCENT_SCALE);
+    }
+
+    /**
+     * Multiplies a unit price by a quantity, which may be fractional (e.g. 1.5 kg).
+     * @param minor The unit price in bani.
+     * @param quantity The quantity.
+     * @return The line total in bani, rounded half-up.
+     */
+    public static long times(long minor, double quantity) {
+        return Math.round(minor * quantity);
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        return Math.floorDiv(dividend + divisor / 2, divisor);
+    }
+}
@@ -0,0 +1,238 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Symbols;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Hash index from a normalized product name (and optionally brand) to the matching table rows.
+ * Names and brands are compared case-insensitively and without diacritics, so "Pâine Albă"
+ * and "paine alba" find the same rows. Rows are returned in ascending order.
+ * Each distinct normalized name and brand gets a small int code local to the index, and name-and-brand rows are
+ * keyed by the pair of codes packed in a long, so no combined string is ever built or kept.
+ */
+public class NameBrandIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int[] NO_ROWS = new int[0];
+
+    // Normalized values in code order
+    private final String[] names;
+    private final String[] brands;
+    private final Map<String, Integer> nameCodes;
+    private final Map<String, Integer> brandCodes;
+    // Rows of each name code
+    private final int[][] rowsByName;
+    // (name code << 32 | brand code) -> rows
+    private final Map<Long, int[]> rowsByNameAndBrand;
+
+    private NameBrandIndex(String[] names, String[] brands, int[][] rowsByName, Map<Long, int[]> rowsByNameAndBrand) {
+        this.names = names;
+        this.brands = brands;
+        this.nameCodes = codes(names);
+        this.brandCodes = codes(brands);
+        this.rowsByName = rowsByName;
+        this.rowsByNameAndBrand = rowsByNameAndBrand;
+    }
+
+    private static Map<String, Integer> codes(String[] values) {
+        Map<String, Integer> codes = new HashMap<>(values.length * 2);
+        for (int code = 0; code < values.length; code++) {
+            codes.put(values[code], code);
+        }
+        return codes;
+    }
+
+    /**
+     * Recreates an index from the parts of a saved one (see {@link #getNames()}).
+     */
+    static NameBrandIndex of(String[] names, String[] brands, int[][] rowsByName, Map<Long, int[]> rowsByNameAndBrand) {
+        for (int code = 0; code < names.length; code++) {
+            names[code] = canonical(names[code]);
+        }
+        for (int code = 0; code < brands.length; code++) {
+            brands[code] = canonical(brands[code]);
+        }
+        return new NameBrandIndex(names, brands, rowsByName, rowsByNameAndBrand);
+    }
+
+    /**
+     * Shares the {@link Symbols} instance of a value that is also a column value, without adding to the table.
+     */
+    private static String canonical(String value) {
+        int code = Symbols.lookup(value);
+        return code < 0 ? value : Symbols.decode(code);
+    }
+
+    String[] getNames() {
+        return names;
+    }
+
+    String[] getBrands() {
+        return brands;
+    }
+
+    int[][] getRowsByName() {
+        return rowsByName;
+    }
+
+    Map<Long, int[]> getRowsByNameAndBrand() {
+        return rowsByNameAndBrand;
+    }
+
+    private static long pair(int nameCode, int brandCode) {
+        return (long) nameCode << 32 | brandCode;
+    }
+
+    /**
+     * Folds a name or brand to its lookup form: lower case, no diacritics, single spaces.
+     * @param text The text (may be null).
+     * @return The normalized text, empty for null.
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    /**
+     * Builds the combined lookup key for a name and brand.
+     * @param name The product name.
+     * @param brand The brand (may be null).
+     * @return The normalized key.
+     */
+    public static String key(String name, String brand) {
+        return normalize(name) + '\u0000' + normalize(brand);
+    }
+
+    /**
+     * Returns the rows whose name matches, further restricted to the brand when one is given.
+     * @param name The product name.
+     * @param brand The brand, or null/empty to match any brand.
+     * @return Matching rows in ascending order (never null).
+     */
+    public int[] find(String name, String brand) {
+        Integer nameCode = nameCodes.get(normalize(name));
+        if (nameCode == null) return NO_ROWS;
+        if (brand == null || brand.isEmpty()) return rowsByName[nameCode];
+        Integer brandCode = brandCodes.get(normalize(brand));
+        int[] rows = brandCode == null ? null : rowsByNameAndBrand.get(pair(nameCode, brandCode));
+        return rows == null ? NO_ROWS : rows;
+    }
+
+    /**
+     * Collects rows in order and builds the index.
+     * Each distinct string is normalized only once, keyed by its dictionary code, and rows are grouped with
+     * primitive sorts at build time, so adding a row allocates nothing.
+     */
+    public static class Builder {
+        private final StringDictionary dictionary;
+        private int size;
+        private int[] rows = new int[16];
+        private int[] nameCodes = new int[16];
+        private int[] brandCodes = new int[16];
+
+        public Builder(StringDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Adds a row. Rows must be added in ascending order.
+         */
+        public Builder add(int row, int nameCode, int brandCode) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                nameCodes = Arrays.copyOf(nameCodes, size * 2);
+                brandCodes = Arrays.copyOf(brandCodes, size * 2);
+            }
+            rows[size] = row;
+            nameCodes[size] = nameCode;
+            brandCodes[size] = brandCode;
+            size++;
+            return this;
+        }
+
+        public NameBrandIndex build() {
+            // Codes whose values normalize to the same text share a group
+            List<String> names = new ArrayList<>();
+            List<String> brands = new ArrayList<>();
+            int[] nameGroups = groups(nameCodes, names);
+            int[] brandGroups = groups(brandCodes, brands);
+
+            // Counting sort by name group keeps rows ascending within each group
+            int[] starts = new int[names.size() + 1];
+            for (int i = 0; i < size; i++) {
+                starts[nameGroups[nameCodes[i]] + 1]++;
+            }
+            for (int g = 0; g < names.size(); g++) {
+                starts[g + 1] += starts[g];
+            }
+            int[] order = new int[size];
+            int[] next = Arrays.copyOf(starts, names.size());
+            for (int i = 0; i < size; i++) {
+                order[next[nameGroups[nameCodes[i]]]++] = i;
+            }
+
+            int[][] rowsByName = new int[names.size()][];
+            Map<Long, int[]> rowsByNameAndBrand = new HashMap<>(names.size() * 2);
+            long[] byBrand = new long[size];
+            for (int g = 0; g < names.size(); g++) {
+                int from = starts[g];
+                int to = starts[g + 1];
+                int[] groupRows = new int[to - from];
+                for (int k = from; k < to; k++) {
+                    int i = order[k];
+                    groupRows[k - from] = rows[i];
+                    byBrand[k] = ((long) brandGroups[brandCodes[i]] << 32) | (k - from);
+                }
+                rowsByName[g] = groupRows;
+                // Sorting (brand group, position) splits the group into ascending runs per brand
+                Arrays.sort(byBrand, from, to);
+                for (int k = from; k < to; ) {
+                    int brandGroup = (int) (byBrand[k] >>> 32);
+                    int end = k;
+                    while (end < to && (int) (byBrand[end] >>> 32) == brandGroup) {
+                        end++;
+                    }
+                    int[] brandRows = new int[end - k];
+                    for (int j = k; j < end; j++) {
+                        brandRows[j - k] = groupRows[(int) byBrand[j]];
+                    }
+                    rowsByNameAndBrand.put(pair(g, brandGroup), brandRows);
+                    k = end;
+                }
+            }
+            return new NameBrandIndex(names.toArray(new String[0]), brands.toArray(new String[0]), rowsByName,
+                rowsByNameAndBrand);
+        }
+
+        /**
+         * Maps every code used in a column to the group of its normalized value, appending new values to groups.
+         */
+        private int[] groups(int[] codes, List<String> groups) {
+            int[] groupOfCode = new int[dictionary.size()];
+            Arrays.fill(groupOfCode, -1);
+            Map<String, Integer> groupOfValue = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                int code = codes[i];
+                if (groupOfCode[code] >= 0) continue;
+                String value = normalize(dictionary.decode(code));
+                Integer group = groupOfValue.get(value);
+                if (group == null) {
+                    group = groups.size();
+                    groups.add(canonical(value));
+                    groupOfValue.put(value, group);
+                }
+                groupOfCode[code] = group;
+            }
+            return groupOfCode;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.accesa.pricecomparator.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes newline-delimited JSON (application/x-ndjson) straight to a response stream, one row at a time.
+ * Rows go through a single Jackson generator and its fixed-size buffer, so memory use does not grow with the
+ * number of rows written.
+ */
+public final class NdjsonWriter implements Closeable {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+    private static final JsonFactory FACTORY = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final JsonGenerator gen;
+
+    public NdjsonWriter(OutputStream out) throws IOException {
+        this.gen = FACTORY.createGenerator(out);
+        // Rows are separated by newlines, not by Jackson's default space between root values
+        this.gen.setRootValueSeparator(null);
+    }
+
+    /**
+     * Returns the generator to write the next row with.
+     */
+    public JsonGenerator generator() {
+        return gen;
+    }
+
+    /**
+     * Ends the row just written.
+     */
+    public void endRow() throws IOException {
+        gen.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        gen.close();
+    }
+}
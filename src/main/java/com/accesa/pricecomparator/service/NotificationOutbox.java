@@ -0,0 +1,445 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Notification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous outbox for user notifications.
+ * {@link #enqueue} only does a dedup check and a non-blocking offer to a bounded queue, so request threads never wait
+ * on I/O. A dispatcher thread drains the queue in batches, appends each batch to an outbox file, groups it by
+ * recipient and hands every group to a small worker pool, which calls the {@link NotificationSender} under a shared
+ * rate limit. The pool's own queue is bounded too: when it is full the dispatcher delivers the group itself, so it
+ * stops draining and a burst stays in the bounded queue instead of piling up on the heap. Delivered notifications are acknowledged in the same file; anything not acknowledged when the
+ * application stops is delivered again on the next start. A group whose send fails is retried in process with
+ * exponential backoff, and once acknowledged lines make up most of the file it is rewritten with only the pending
+ * notifications, so it stays proportional to what is still undelivered.
+ */
+@Service
+public class NotificationOutbox {
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutbox.class);
+    private static final String OUTBOX_FILE = "outbox.ndjson";
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH = 500;
+    private static final long LINGER_MS = 200;
+    private static final int WORKERS = 2;
+    private static final int WORKER_QUEUE_CAPACITY = 64;
+    private static final int SENDS_PER_SECOND = 20;
+    private static final long DEDUP_WINDOW_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BASE_MS = 1_000;
+    private static final long RETRY_MAX_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_RETRYING_GROUPS = 1_000;
+    private static final int COMPACT_MIN_LINES = 1_000;
+
+    private final NotificationSender sender;
+    private final Path outboxFile;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<Notification> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // dedup key -> time the notification was accepted
+    private final Map<String, Long> recentKeys = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    // id -> notification appended to the outbox file and not acknowledged yet; guarded by fileLock
+    private final Map<Long, Notification> unacknowledged = new LinkedHashMap<>();
+    // Groups waiting for their next delivery attempt
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Object fileLock = new Object();
+    // False if the outbox file could not be replayed: its entries are unknown, so it is never truncated
+    private boolean replayed;
+    // Lines in the outbox file, pending and acknowledged; guarded by fileLock
+    private long fileLines;
+    private long nextSendNanos;
+    private ExecutorService workers;
+    private Thread dispatcher;
+
+    @Autowired
+    public NotificationOutbox(NotificationSender sender) {
+        this(sender, Paths.get(OUTBOX_FILE));
+    }
+
+    /**
+     * Creates an outbox persisted to the given file. Nothing is read or delivered until {@link #start()}.
+     * @param sender The sender used by the worker threads.
+     * @param outboxFile The outbox file.
+     */
+    public NotificationOutbox(NotificationSender sender, Path outboxFile) {
+        this.sender = sender;
+        this.outboxFile = outboxFile;
+    }
+
+    /**
+     * Queues a notification for delivery without blocking.
+     * A notification identical to one accepted within the dedup window is ignored.
+     * @param recipient The recipient's email address.
+     * @param subject The subject.
+     * @param body The body.
+     * @return True if the notification was queued, false if it was a duplicate or the queue is full.
+     */
+    public boolean enqueue(String recipient, String subject, String body) {
+        String key = recipient.toLowerCase(Locale.ROOT) + '\u0000' + subject + '\u0000' + body;
+        long now = System.currentTimeMillis();
+        Long accepted = recentKeys.putIfAbsent(key, now);
+        if (accepted != null && (now - accepted < DEDUP_WINDOW_MS || !recentKeys.replace(key, accepted, now))) {
+            return false;
+        }
+        Notification notification = new Notification();
+        notification.setId(nextId.incrementAndGet());
+        notification.setRecipient(recipient);
+        notification.setSubject(subject);
+        notification.setBody(body);
+        notification.setCreatedAt(now);
+        if (!queue.offer(notification)) {
+            recentKeys.remove(key, now);
+            droppedCount.incrementAndGet();
+            log.warn("Outbox queue full, dropped notification {} to {}", notification.getId(), recipient);
+            return false;
+        }
+        return true;
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Replays the outbox file, then starts the dispatcher thread and the worker pool.
+     * The replayed notifications are submitted by the dispatcher, ahead of anything queued since.
+     */
+    @PostConstruct
+    public void start() {
+        List<Notification> pending = replay();
+        workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY), r -> {
+                Thread t = new Thread(r, "notification-sender");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        dispatcher = new Thread(() -> dispatch(pending), "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Stops the dispatcher and waits briefly for batches already being sent.
+     * Notifications still queued in memory are lost; those already in the outbox file, including groups waiting for
+     * a retry, are kept for the next start.
+     */
+    @PreDestroy
+    public void stop() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void dispatch(List<Notification> pending) {
+        List<Notification> batch = new ArrayList<>();
+        try {
+            submit(pending);
+            while (!Thread.currentThread().isInterrupted()) {
+                submitDueRetries();
+                compactIfBloated();
+                Notification first = queue.poll(pollTimeoutNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    evictExpiredKeys();
+                    continue;
+                }
+                batch.add(first);
+                // Linger briefly so a burst of triggers ends up in one batch per recipient
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MS);
+                while (batch.size() < MAX_BATCH) {
+                    Notification next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, MAX_BATCH - batch.size());
+                }
+                try {
+                    append(batch);
+                } catch (Exception e) {
+                    // Still delivered, but not redelivered if the application stops before the send completes
+                    log.error("Cannot append notifications {} to {}", ids(batch), outboxFile, e);
+                }
+                submit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        } catch (Exception e) {
+            log.error("Notification dispatcher stopped, {} notification(s) left in the queue", queue.size(), e);
+        }
+    }
+
+    private void submit(List<Notification> batch) {
+        Map<String, List<Notification>> byRecipient = new LinkedHashMap<>();
+        for (Notification notification : batch) {
+            byRecipient.computeIfAbsent(notification.getRecipient().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(notification);
+        }
+        for (List<Notification> group : byRecipient.values()) {
+            workers.execute(() -> deliver(group, 1));
+        }
+    }
+
+    private void submitDueRetries() {
+        Retry retry;
+        while ((retry = retries.poll()) != null) {
+            Retry due = retry;
+            workers.execute(() -> deliver(due.group, due.attempt));
+        }
+    }
+
+    /**
+     * Waits for new notifications at most a second, or until the next retry is due.
+     */
+    private long pollTimeoutNanos() {
+        long idle = TimeUnit.SECONDS.toNanos(1);
+        Retry next = retries.peek();
+        return next == null ? idle : Math.max(0, Math.min(idle, next.getDelay(TimeUnit.NANOSECONDS)));
+    }
+
+    private void deliver(List<Notification> group, int attempt) {
+        String recipient = group.get(0).getRecipient();
+        try {
+            acquirePermit();
+            sender.send(recipient, group);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            failedCount.addAndGet(group.size());
+            scheduleRetry(group, attempt, e);
+            return;
+        }
+        sentCount.addAndGet(group.size());
+        try {
+            acknowledge(group);
+        } catch (Exception e) {
+            // Already sent, so not retried now; the next start sends it again
+            log.error("Cannot acknowledge notifications {} in {}", ids(group), outboxFile, e);
+        }
+    }
+
+    /**
+     * Schedules another attempt after a failed send, backing off exponentially. Once the attempts or the retry
+     * backlog run out the group stays unacknowledged in the outbox file and is delivered again on the next start.
+     */
+    private void scheduleRetry(List<Notification> group, int attempt, Exception failure) {
+        String recipient = group.get(0).getRecipient();
+        if (attempt >= MAX_ATTEMPTS || retries.size() >= MAX_RETRYING_GROUPS) {
+            log.error("Delivery of notifications {} to {} failed after {} attempt(s), retried on the next start",
+                ids(group), recipient, attempt, failure);
+            return;
+        }
+        long delayMs = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << (attempt - 1));
+        retries.add(new Retry(group, attempt + 1, delayMs));
+        log.warn("Delivery of notifications {} to {} failed, retrying in {} ms", ids(group), recipient, delayMs, failure);
+    }
+
+    private static List<Long> ids(List<Notification> notifications) {
+        List<Long> ids = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            ids.add(notification.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Waits for the next send slot of the shared rate limit.
+     */
+    private void acquirePermit() throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / SENDS_PER_SECOND;
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSendNanos);
+            nextSendNanos = slot + interval;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void evictExpiredKeys() {
+        long cutoff = System.currentTimeMillis() - DEDUP_WINDOW_MS;
+        recentKeys.values().removeIf(accepted -> accepted < cutoff);
+    }
+
+    private void append(List<Notification> batch) throws Exception {
+        List<String> lines = new ArrayList<>(batch.size());
+        for (Notification notification : batch) {
+            lines.add(mapper.writeValueAsString(notification));
+        }
+        synchronized (fileLock) {
+            writeLines(lines);
+            for (Notification notification : batch) {
+                unacknowledged.put(notification.getId(), notification);
+            }
+        }
+    }
+
+    /**
+     * Marks delivered notifications in the outbox file. Notifications that never made it into the file
+     * (their batch failed to append) have nothing to acknowledge.
+     */
+    private void acknowledge(List<Notification> group) throws Exception {
+        synchronized (fileLock) {
+            List<String> lines = new ArrayList<>(group.size());
+            for (Notification notification : group) {
+                if (unacknowledged.containsKey(notification.getId())) {
+                    lines.add("{\"sent\":" + notification.getId() + "}");
+                }
+            }
+            if (lines.isEmpty()) return;
+            writeLines(lines);
+            for (Notification notification : group) {
+                unacknowledged.remove(notification.getId());
+            }
+        }
+    }
+
+    private void writeLines(Collection<String> lines) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(outboxFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+                fileLines++;
+            }
+        }
+    }
+
+    /**
+     * Rewrites the outbox file with only the unacknowledged notifications once everything is acknowledged, or once
+     * acknowledged entries make up most of a large file.
+     */
+    private void compactIfBloated() {
+        synchronized (fileLock) {
+            int pending = unacknowledged.size();
+            if (!replayed || fileLines <= pending) return;
+            if (pending > 0 && (fileLines < COMPACT_MIN_LINES || fileLines <= 2L * pending)) return;
+            try {
+                rewrite(unacknowledged.values());
+            } catch (Exception e) {
+                log.warn("Cannot compact outbox {}", outboxFile, e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the outbox file with the given notifications. Callers hold fileLock.
+     */
+    private void rewrite(Collection<Notification> notifications) throws Exception {
+        List<String> lines = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            lines.add(mapper.writeValueAsString(notification));
+        }
+        Path tmp = outboxFile.resolveSibling(outboxFile.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, outboxFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileLines = lines.size();
+    }
+
+    /**
+     * Reads the outbox file, keeps the notifications that were never acknowledged and rewrites the file with only those.
+     */
+    private List<Notification> replay() {
+        Map<Long, Notification> pending = new LinkedHashMap<>();
+        synchronized (fileLock) {
+            try {
+                if (Files.exists(outboxFile)) {
+                    for (String line : Files.readAllLines(outboxFile, StandardCharsets.UTF_8)) {
+                        if (line.trim().isEmpty()) continue;
+                        JsonNode node;
+                        try {
+                            node = mapper.readTree(line);
+                        } catch (Exception e) {
+                            // A torn last line from a crash mid-write
+                            continue;
+                        }
+                        if (node.has("sent")) {
+                            pending.remove(node.get("sent").asLong());
+                        } else {
+                            Notification notification = mapper.treeToValue(node, Notification.class);
+                            pending.put(notification.getId(), notification);
+                        }
+                        nextId.set(Math.max(nextId.get(), node.has("sent") ? node.get("sent").asLong() : node.get("id").asLong()));
+                    }
+                    rewrite(pending.values());
+                }
+                replayed = true;
+            } catch (Exception e) {
+                log.error("Cannot replay outbox {}, {} pending notification(s) recovered", outboxFile, pending.size(), e);
+            }
+            unacknowledged.putAll(pending);
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static final class Retry implements Delayed {
+        private final List<Notification> group;
+        private final int attempt;
+        private final long dueNanos;
+
+        private Retry(List<Notification> group, int attempt, long delayMs) {
+            this.group = group;
+            this.attempt = attempt;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Retry) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Notification;
+import java.util.List;
+
+/**
+ * Delivers notifications on behalf of the {@link NotificationOutbox}.
+ * Implementations may be slow or fail; the outbox calls them from its own worker threads.
+ */
+public interface NotificationSender {
+
+    /**
+     * Delivers a batch of notifications to one recipient, e.g. as a single digest email.
+     * @param recipient The recipient's email address.
+     * @param notifications The notifications, oldest first.
+     * @throws Exception If delivery failed; the batch stays in the outbox.
+     */
+    void send(String recipient, List<Notification> notifications) throws Exception;
+}
@@ -0,0 +1,58 @@
+package com.accesa.pricecomparator.service;
+
+import java.util.Locale;
+
+/**
+ * Normalizes package sizes to the unit prices are compared in: 100 g for weights, 100 ml for volumes, and one of
+ * the package's own unit for anything else (pieces, rolls, ...). Two packages can be compared by unit price only
+ * when they have the same reporting unit, so the label (e.g. "per 100g") doubles as the unit family.
+ */
+public final class PackageUnits {
+    public static final String PER_100G = "per 100g";
+    public static final String PER_100ML = "per 100ml";
+
+    private PackageUnits() {
+    }
+
+    /**
+     * Converts a package quantity to reporting units.
+     * @param quantity The package quantity.
+     * @param unit The package unit (kg, g, l, ml, or any other unit), case-insensitive.
+     * @return The number of 100 g, 100 ml or whole units in the package.
+     */
+    public static double toReportingUnits(double quantity, String unit) {
+        switch (lowerCase(unit)) {
+            case "kg":
+            case "l":
+                return quantity * 10; // 1 kg = 10 x 100 g, 1 l = 10 x 100 ml
+            case "g":
+            case "ml":
+                return quantity / 100.0;
+            default:
+                return quantity;
+        }
+    }
+
+    /**
+     * Returns the reporting unit of a package unit.
+     * @param unit The package unit, case-insensitive.
+     * @return "per 100g", "per 100ml", or "per 1 " followed by the unit in lower case.
+     */
+    public static String label(String unit) {
+        String lower = lowerCase(unit);
+        switch (lower) {
+            case "kg":
+            case "g":
+                return PER_100G;
+            case "l":
+            case "ml":
+                return PER_100ML;
+            default:
+                return "per 1 " + lower;
+        }
+    }
+
+    private static String lowerCase(String unit) {
+        return unit == null ? "" : unit.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,294 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+import com.accesa.pricecomparator.model.Product;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable in-memory copy of every price and discount file in the data directory, keyed by file name,
+ * together with the file index used to resolve which file is in effect for a store and date.
+ * A new version is built whenever files change; a request should read from a single version.
+ */
+public class PriceCatalog {
+    private final long version;
+    private final DataFileIndex fileIndex;
+    private final Map<String, ProductTable> productTables;
+    private final Map<String, DiscountTable> discountTables;
+    private final Map<String, DiscountIntervalIndex> discountIndexes = new HashMap<>();
+    private final Map<String, PriceTimelines> priceTimelines = new HashMap<>();
+    private final DiscountRankings discountRankings;
+
+    private PriceCatalog(Builder b) {
+        this.version = b.version;
+        this.productTables = Collections.unmodifiableMap(new HashMap<>(b.productTables));
+        this.discountTables = Collections.unmodifiableMap(new HashMap<>(b.discountTables));
+        List<String> fileNames = new ArrayList<>(productTables.keySet());
+        fileNames.addAll(discountTables.keySet());
+        this.fileIndex = DataFileIndex.of(fileNames);
+        // Interval indexes are rebuilt only for stores whose discount files changed
+        for (String store : fileIndex.getStores()) {
+            String key = DataFileIndex.storeKey(store);
+            DiscountIntervalIndex previous = b.discountIndexes.get(key);
+            discountIndexes.put(key, previous != null && !b.changedStores.contains(key)
+                ? previous
+                : new DiscountIntervalIndex(getDiscountTables(store)));
+            // Timelines depend on both the price and the discount files of the store; newer price files are appended
+            PriceTimelines timelines = b.priceTimelines.get(key);
+            if (timelines != null && !b.changedStores.contains(key) && !b.changedProductStores.contains(key)) {
+                NavigableMap<Long, ProductTable> added = b.addedProductTables.get(key);
+                timelines = added == null ? timelines : timelines.append(added);
+            } else {
+                timelines = null;
+            }
+            priceTimelines.put(key, timelines != null
+                ? timelines
+                : PriceTimelines.build(getProductTables(store), getDiscountTables(store)));
+        }
+        // Rankings are computed per interval on first use, so a new version costs only the change days
+        this.discountRankings = new DiscountRankings(this);
+    }
+
+    /**
+     * Returns the version of this catalog, incremented every time a new catalog is published.
+     * @return The catalog version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public DataFileIndex getFileIndex() {
+        return fileIndex;
+    }
+
+    public List<String> getStores() {
+        return fileIndex.getStores();
+    }
+
+    public List<String> getDates() {
+        return fileIndex.getDates();
+    }
+
+    /**
+     * Returns the parsed table for a price file.
+     * @param fileName The CSV file name (e.g., lidl_2025-05-01.csv).
+     * @return The ProductTable, or null if the file was not loaded.
+     */
+    public ProductTable getProductTable(String fileName) {
+        return productTables.get(fileName);
+    }
+
+    /**
+     * Returns the parsed table for a discount file.
+     * @param fileName The CSV file name (e.g., lidl_discounts_2025-05-01.csv).
+     * @return The DiscountTable, or null if the file was not loaded.
+     */
+    public DiscountTable getDiscountTable(String fileName) {
+        return discountTables.get(fileName);
+    }
+
+    /**
+     * Returns the table of the price file in effect for a store on a date.
+     * @param store The store name.
+     * @param date The date.
+     * @return The ProductTable, or null if there is no such file.
+     */
+    public ProductTable getProductTable(String store, LocalDate date) {
+        String fileName = fileIndex.findPriceFile(store, date);
+        return fileName == null ? null : productTables.get(fileName);
+    }
+
+    /**
+     * Returns the table of the discount file in effect for a store on a date.
+     * @param store The store name.
+     * @param date The date.
+     * @return The DiscountTable, or null if there is no such file.
+     */
+    public DiscountTable getDiscountTable(String store, LocalDate date) {
+        String fileName = fileIndex.findDiscountFile(store, date);
+        return fileName == null ? null : discountTables.get(fileName);
+    }
+
+    /**
+     * Returns the tables of every price file of a store, keyed by the epoch day the file takes effect.
+     * @param store The store name.
+     * @return Map of epoch day to ProductTable, oldest first.
+     */
+    public NavigableMap<Long, ProductTable> getProductTables(String store) {
+        NavigableMap<Long, ProductTable> tables = new TreeMap<>();
+        for (Map.Entry<Long, String> e : fileIndex.getPriceFiles(store).entrySet()) {
+            tables.put(e.getKey(), productTables.get(e.getValue()));
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the tables of every discount file of a store, oldest file first.
+     * @param store The store name.
+     * @return List of DiscountTables.
+     */
+    public List<DiscountTable> getDiscountTables(String store) {
+        List<DiscountTable> tables = new ArrayList<>();
+        for (String fileName : fileIndex.getDiscountFiles(store).values()) {
+            tables.add(discountTables.get(fileName));
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the discounts of a store, from any of its discount files, that are valid on a date.
+     * @param store The store name.
+     * @param date The date.
+     * @return Discounts with fromDate &lt;= date &lt;= toDate, in file order.
+     */
+    public List<Discount> getActiveDiscounts(String store, LocalDate date) {
+        DiscountIntervalIndex index = discountIndexes.get(DataFileIndex.storeKey(store));
+        return index == null ? Collections.emptyList() : index.activeOn(date);
+    }
+
+    /**
+     * Returns the interval index over the validity of a store's discounts.
+     * @param store The store name.
+     * @return The DiscountIntervalIndex, or null if the store is unknown.
+     */
+    public DiscountIntervalIndex getDiscountIntervalIndex(String store) {
+        return discountIndexes.get(DataFileIndex.storeKey(store));
+    }
+
+    /**
+     * Returns the effective-price timeline of a product in a store.
+     * @param store The store name.
+     * @param productName The product name.
+     * @param brand The brand, or null/empty to match any brand.
+     * @return The PriceTimeline, or null if the store never listed the product.
+     */
+    public PriceTimeline getPriceTimeline(String store, String productName, String brand) {
+        PriceTimelines timelines = priceTimelines.get(DataFileIndex.storeKey(store));
+        return timelines == null ? null : timelines.find(productName, brand);
+    }
+
+    /**
+     * Returns the discount rankings across all stores.
+     * @return The DiscountRankings.
+     */
+    public DiscountRankings getDiscountRankings() {
+        return discountRankings;
+    }
+
+    /**
+     * Returns the discounts of a store, from any of its discount files, that start on a date.
+     * @param store The store name.
+     * @param date The date.
+     * @return Discounts with fromDate == date, in file order.
+     */
+    public List<Discount> getNewDiscounts(String store, LocalDate date) {
+        DiscountIntervalIndex index = discountIndexes.get(DataFileIndex.storeKey(store));
+        return index == null ? Collections.emptyList() : index.startingOn(date);
+    }
+
+    /**
+     * Returns the products of the price file in effect for a store on a date.
+     * @param store The store name.
+     * @param date The date.
+     * @return List of Product objects, empty if there is no such file.
+     */
+    public List<Product> getProducts(String store, LocalDate date) {
+        ProductTable table = getProductTable(store, date);
+        return table == null ? Collections.emptyList() : table.toProducts();
+    }
+
+    /**
+     * Returns the discounts of the discount file in effect for a store on a date.
+     * @param store The store name.
+     * @param date The date.
+     * @return List of Discount objects, empty if there is no such file.
+     */
+    public List<Discount> getDiscounts(String store, LocalDate date) {
+        DiscountTable table = getDiscountTable(store, date);
+        return table == null ? Collections.emptyList() : table.toDiscounts();
+    }
+
+    /**
+     * Returns the discounts of every discount file of a store, oldest file first.
+     * @param store The store name.
+     * @return List of Discount objects.
+     */
+    public List<Discount> getAllDiscounts(String store) {
+        List<Discount> allDiscounts = new ArrayList<>();
+        for (DiscountTable table : getDiscountTables(store)) {
+            allDiscounts.addAll(table.toDiscounts());
+        }
+        return allDiscounts;
+    }
+
+    /**
+     * Assembles a catalog version, optionally starting from the tables of a previous version.
+     */
+    public static class Builder {
+        private final long version;
+        private final Map<String, ProductTable> productTables = new HashMap<>();
+        private final Map<String, DiscountTable> discountTables = new HashMap<>();
+        private final Map<String, DiscountIntervalIndex> discountIndexes = new HashMap<>();
+        private final Map<String, PriceTimelines> priceTimelines = new HashMap<>();
+        private final Set<String> changedStores = new HashSet<>();
+        // Stores whose price files were replaced or removed
+        private final Set<String> changedProductStores = new HashSet<>();
+        // store key -> price files added to the previous version, keyed by epoch day
+        private final Map<String, NavigableMap<Long, ProductTable>> addedProductTables = new HashMap<>();
+
+        public Builder() {
+            this.version = 1;
+        }
+
+        /**
+         * Starts a new version that shares every table of the previous one.
+         * @param previous The catalog to copy.
+         */
+        public Builder(PriceCatalog previous) {
+            this.version = previous.version + 1;
+            this.productTables.putAll(previous.productTables);
+            this.discountTables.putAll(previous.discountTables);
+            this.discountIndexes.putAll(previous.discountIndexes);
+            this.priceTimelines.putAll(previous.priceTimelines);
+        }
+
+        public Builder putProductTable(String fileName, ProductTable table) {
+            String store = DataFileIndex.storeKeyOf(fileName);
+            LocalDate date = DataFileIndex.dateOf(fileName);
+            if (productTables.put(fileName, table) != null || date == null) {
+                changedProductStores.add(store);
+            } else {
+                addedProductTables.computeIfAbsent(store, k -> new TreeMap<>()).put(date.toEpochDay(), table);
+            }
+            return this;
+        }
+
+        public Builder putDiscountTable(String fileName, DiscountTable table) {
+            discountTables.put(fileName, table);
+            changedStores.add(DataFileIndex.storeKeyOf(fileName));
+            return this;
+        }
+
+        public Builder remove(String fileName) {
+            if (productTables.remove(fileName) != null) {
+                changedProductStores.add(DataFileIndex.storeKeyOf(fileName));
+            }
+            if (discountTables.remove(fileName) != null) {
+                changedStores.add(DataFileIndex.storeKeyOf(fileName));
+            }
+            return this;
+        }
+
+        public PriceCatalog build() {
+            return new PriceCatalog(this);
+        }
+    }
+}
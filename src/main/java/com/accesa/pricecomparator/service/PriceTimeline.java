@@ -0,0 +1,120 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.PriceHistoryEntry;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted change points of the effective (discounted) price of one product in one store.
+ * A point is recorded only when the effective price differs from the previous point.
+ */
+public class PriceTimeline {
+    private final int[] days;
+    private final double[] prices;
+    private final String[] productIds;
+    private final String[] currencies;
+
+    private PriceTimeline(Builder b) {
+        this.days = Arrays.copyOf(b.days, b.size);
+        this.prices = Arrays.copyOf(b.prices, b.size);
+        this.productIds = Arrays.copyOf(b.productIds, b.size);
+        this.currencies = Arrays.copyOf(b.currencies, b.size);
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    /**
+     * Reads the change points dated within a range.
+     * @param store The store name to put on the entries.
+     * @param from First date to include, or null for no lower bound.
+     * @param to Last date to include, or null for no upper bound.
+     * @return PriceHistoryEntry objects in date order.
+     */
+    public List<PriceHistoryEntry> read(String store, LocalDate from, LocalDate to) {
+        int start = from == null ? 0 : lowerBound((int) from.toEpochDay());
+        int end = to == null ? days.length : lowerBound((int) to.toEpochDay() + 1);
+        List<PriceHistoryEntry> entries = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            PriceHistoryEntry entry = new PriceHistoryEntry();
+            entry.setProductId(productIds[i]);
+            entry.setStoreName(store);
+            entry.setDate(LocalDate.ofEpochDay(days[i]));
+            entry.setPrice(prices[i]);
+            entry.setCurrency(currencies[i]);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Returns this timeline with a change point added after its last one.
+     * @return A new PriceTimeline, or this one if the price did not change.
+     */
+    PriceTimeline append(int day, double price, String productId, String currency) {
+        Builder builder = new Builder(this);
+        return builder.add(day, price, productId, currency).size == days.length ? this : builder.build();
+    }
+
+    private int lowerBound(int day) {
+        int lo = 0;
+        int hi = days.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Appends change points in date order, skipping points whose price did not change.
+     */
+    public static class Builder {
+        private int size;
+        private int[] days = new int[8];
+        private double[] prices = new double[8];
+        private String[] productIds = new String[8];
+        private String[] currencies = new String[8];
+
+        public Builder() {
+        }
+
+        private Builder(PriceTimeline timeline) {
+            size = timeline.days.length;
+            int capacity = size + 1;
+            days = Arrays.copyOf(timeline.days, capacity);
+            prices = Arrays.copyOf(timeline.prices, capacity);
+            productIds = Arrays.copyOf(timeline.productIds, capacity);
+            currencies = Arrays.copyOf(timeline.currencies, capacity);
+        }
+
+        public Builder add(int day, double price, String productId, String currency) {
+            if (size > 0 && Math.abs(price - prices[size - 1]) <= 0.0001) {
+                return this;
+            }
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+                productIds = Arrays.copyOf(productIds, size * 2);
+                currencies = Arrays.copyOf(currencies, size * 2);
+            }
+            days[size] = day;
+            prices[size] = price;
+            productIds[size] = productId;
+            currencies[size] = currency;
+            size++;
+            return this;
+        }
+
+        public PriceTimeline build() {
+            return new PriceTimeline(this);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.accesa.pricecomparator.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The effective-price timelines of every product of one store, keyed both by normalized name
+ * (matching any brand) and by normalized name and brand, the same way NameBrandIndex matches rows.
+ * Built once per store when its files change, so a history query is a lookup plus a range read; a price file
+ * taking effect after every change point of the store is appended instead of replaying the history.
+ */
+public class PriceTimelines {
+    private final Map<String, PriceTimeline> timelines;
+    // Last day on which a price file or a discount of the store starts, or the day after a discount ends
+    private final long lastChangeDay;
+
+    private PriceTimelines(Map<String, PriceTimeline> timelines, long lastChangeDay) {
+        this.timelines = timelines;
+        this.lastChangeDay = lastChangeDay;
+    }
+
+    /**
+     * Returns the timeline of a product.
+     * @param name The product name.
+     * @param brand The brand, or null/empty to match any brand.
+     * @return The PriceTimeline, or null if the store never listed the product.
+     */
+    public PriceTimeline find(String name, String brand) {
+        return timelines.get(brand == null || brand.isEmpty()
+            ? NameBrandIndex.normalize(name)
+            : NameBrandIndex.key(name, brand));
+    }
+
+    public int size() {
+        return timelines.size();
+    }
+
+    /**
+     * Derives the timelines after new price files of the store without replaying its history, when every file
+     * takes effect after the store's last change point: no discount is valid from then on, so each product listed
+     * in a file gets one point at its listed price and every other timeline is shared.
+     * @param priceTables The new price tables keyed by epoch day, oldest first.
+     * @return The new PriceTimelines, or null if a file takes effect on or before the last change point.
+     */
+    PriceTimelines append(NavigableMap<Long, ProductTable> priceTables) {
+        if (priceTables.isEmpty() || priceTables.firstKey() <= lastChangeDay) return null;
+        Map<String, PriceTimeline> next = new HashMap<>(timelines);
+        for (Map.Entry<Long, ProductTable> e : priceTables.entrySet()) {
+            ProductTable table = e.getValue();
+            int day = e.getKey().intValue();
+            for (Map.Entry<String, String[]> product : products(Collections.singleton(table)).entrySet()) {
+                String[] nameAndBrand = product.getValue();
+                int[] rows = table.findRows(nameAndBrand[0], nameAndBrand[1]);
+                int row = rows[rows.length - 1];
+                PriceTimeline timeline = next.get(product.getKey());
+                next.put(product.getKey(), timeline == null
+                    ? new PriceTimeline.Builder().add(day, table.getPrice(row), table.getProductId(row), table.getCurrency(row)).build()
+                    : timeline.append(day, table.getPrice(row), table.getProductId(row), table.getCurrency(row)));
+            }
+        }
+        return new PriceTimelines(next, priceTables.lastKey());
+    }
+
+    /**
+     * Builds the timelines of one store.
+     * For every day on which a price file starts or a discount starts or ends, the effective price is the
+     * latest listed price with the highest discount valid that day applied.
+     * @param priceTables The price tables of the store keyed by epoch day, oldest first.
+     * @param discountTables The discount tables of the store.
+     * @return The PriceTimelines.
+     */
+    public static PriceTimelines build(NavigableMap<Long, ProductTable> priceTables, Collection<DiscountTable> discountTables) {
+        Map<String, String[]> products = products(priceTables.values());
+        Map<String, PriceTimeline> timelines = new HashMap<>(products.size() * 2);
+        for (Map.Entry<String, String[]> e : products.entrySet()) {
+            timelines.put(e.getKey(), buildTimeline(priceTables, discountTables, e.getValue()[0], e.getValue()[1]));
+        }
+        long lastChangeDay = priceTables.isEmpty() ? Long.MIN_VALUE : priceTables.lastKey();
+        for (DiscountTable table : discountTables) {
+            for (int row = 0; row < table.size(); row++) {
+                lastChangeDay = Math.max(lastChangeDay, Math.max(table.getFromDay(row), table.getToDay(row) + 1L));
+            }
+        }
+        return new PriceTimelines(timelines, lastChangeDay);
+    }
+
+    /**
+     * Returns every lookup key of the products listed in the tables, mapped to {normalized name, normalized brand
+     * or null for any brand}.
+     */
+    private static Map<String, String[]> products(Collection<ProductTable> tables) {
+        Map<String, String> normalized = new HashMap<>();
+        Map<String, String[]> products = new HashMap<>();
+        for (ProductTable table : tables) {
+            for (int row = 0; row < table.size(); row++) {
+                String name = normalized.computeIfAbsent(table.getProductName(row), NameBrandIndex::normalize);
+                String brand = normalized.computeIfAbsent(table.getBrand(row) == null ? "" : table.getBrand(row), NameBrandIndex::normalize);
+                products.putIfAbsent(name, new String[] {name, null});
+                if (!brand.isEmpty()) {
+                    products.putIfAbsent(name + '\u0000' + brand, new String[] {name, brand});
+                }
+            }
+        }
+        return products;
+    }
+
+    private static PriceTimeline buildTimeline(NavigableMap<Long, ProductTable> priceTables,
+                                               Collection<DiscountTable> discountTables, String name, String brand) {
+        // Latest listing of the product in each price file that has it
+        TreeMap<Integer, ProductTable> tableByDay = new TreeMap<>();
+        Map<Integer, Integer> rowByDay = new HashMap<>();
+        for (Map.Entry<Long, ProductTable> e : priceTables.entrySet()) {
+            int[] rows = e.getValue().findRows(name, brand);
+            if (rows.length > 0) {
+                int day = e.getKey().intValue();
+                tableByDay.put(day, e.getValue());
+                rowByDay.put(day, rows[rows.length - 1]);
+            }
+        }
+        // Discount intervals as {from, to, percentage}, sorted by start day
+        List<double[]> discounts = new ArrayList<>();
+        TreeSet<Integer> changeDays = new TreeSet<>(tableByDay.keySet());
+        for (DiscountTable table : discountTables) {
+            for (int row : table.findRows(name, brand)) {
+                discounts.add(new double[] {table.getFromDay(row), table.getToDay(row), table.getPercentageOfDiscount(row)});
+                changeDays.add(table.getFromDay(row));
+                changeDays.add(table.getToDay(row) + 1); // day after discount ends
+            }
+        }
+        discounts.sort((a, b) -> Double.compare(a[0], b[0]));
+
+        // Sweep the change days, keeping the multiset of active percentages
+        PriceTimeline.Builder timeline = new PriceTimeline.Builder();
+        PriorityQueue<double[]> activeByEnd = new PriorityQueue<>((a, b) -> Double.compare(a[1], b[1]));
+        TreeMap<Double, Integer> activePercentages = new TreeMap<>();
+        int next = 0;
+        for (int day : changeDays) {
+            while (next < discounts.size() && discounts.get(next)[0] <= day) {
+                double[] d = discounts.get(next++);
+                if (d[1] >= day) {
+                    activeByEnd.add(d);
+                    activePercentages.merge(d[2], 1, Integer::sum);
+                }
+            }
+            while (!activeByEnd.isEmpty() && activeByEnd.peek()[1] < day) {
+                double percentage = activeByEnd.poll()[2];
+                activePercentages.computeIfPresent(percentage, (k, count) -> count == 1 ? null : count - 1);
+            }
+            Map.Entry<Integer, ProductTable> priceEntry = tableByDay.floorEntry(day);
+            if (priceEntry == null) continue;
+            ProductTable table = priceEntry.getValue();
+            int row = rowByDay.get(priceEntry.getKey());
+            double basePrice = table.getPrice(row);
+            double bestDiscount = activePercentages.isEmpty() ? 0.0 : Math.max(0.0, activePercentages.lastKey());
+            double effectivePrice = basePrice;
+            if (bestDiscount > 0.0) {
+                effectivePrice = Money.toDouble(Money.discount(Money.of(basePrice), bestDiscount));
+            }
+            timeline.add(day, effectivePrice, table.getProductId(row), table.getCurrency(row));
+        }
+        return timeline.build();
+    }
+}
@@ -0,0 +1,285 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Product;
+import com.accesa.pricecomparator.model.Symbols;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented copy of one price file (one store, one snapshot date).
+ * Prices and package quantities are primitive columns, repeated strings are stored as {@link Symbols} codes.
+ * Package sizes are also normalized at construction to reporting units (see {@link PackageUnits}), with the
+ * listed unit price kept as a column and every category indexed by unit price.
+ */
+public class ProductTable {
+    private final String[] productIds;
+    private final int[] productNames;
+    private final int[] productCategories;
+    private final int[] brands;
+    private final double[] packageQuantities;
+    private final int[] packageUnits;
+    private final double[] prices;
+    private final int[] currencies;
+    private final double[] unitQuantities;
+    private final int[] unitLabels;
+    private final double[] unitPrices;
+    private final NameBrandIndex nameBrandIndex;
+    private final CategoryUnitPriceIndex categoryUnitPriceIndex;
+
+    private ProductTable(Builder b) {
+        int[] symbols = b.dictionary.symbols();
+        this.productIds = Arrays.copyOf(b.productIds, b.size);
+        this.productNames = StringDictionary.remap(b.productNames, b.size, symbols);
+        this.productCategories = StringDictionary.remap(b.productCategories, b.size, symbols);
+        this.brands = StringDictionary.remap(b.brands, b.size, symbols);
+        this.packageQuantities = Arrays.copyOf(b.packageQuantities, b.size);
+        this.packageUnits = StringDictionary.remap(b.packageUnits, b.size, symbols);
+        this.prices = Arrays.copyOf(b.prices, b.size);
+        this.currencies = StringDictionary.remap(b.currencies, b.size, symbols);
+        this.unitQuantities = unitQuantities(packageQuantities, packageUnits);
+        this.unitLabels = unitLabels(packageUnits);
+        this.unitPrices = unitPrices(prices, unitQuantities);
+        this.categoryUnitPriceIndex = CategoryUnitPriceIndex.build(productCategories, unitLabels, unitPrices);
+        NameBrandIndex.Builder index = new NameBrandIndex.Builder(b.dictionary);
+        for (int row = 0; row < b.size; row++) {
+            index.add(row, b.productNames[row], b.brands[row]);
+        }
+        this.nameBrandIndex = index.build();
+    }
+
+    /**
+     * Wraps already built columns and index, as loaded from a {@link CatalogSegment}.
+     * String columns hold {@link Symbols} codes.
+     */
+    ProductTable(String[] productIds, int[] productNames, int[] productCategories,
+                 int[] brands, double[] packageQuantities, int[] packageUnits, double[] prices, int[] currencies,
+                 NameBrandIndex nameBrandIndex) {
+        this.productIds = productIds;
+        this.productNames = productNames;
+        this.productCategories = productCategories;
+        this.brands = brands;
+        this.packageQuantities = packageQuantities;
+        this.packageUnits = packageUnits;
+        this.prices = prices;
+        this.currencies = currencies;
+        this.nameBrandIndex = nameBrandIndex;
+        this.unitQuantities = unitQuantities(packageQuantities, packageUnits);
+        this.unitLabels = unitLabels(packageUnits);
+        this.unitPrices = unitPrices(prices, unitQuantities);
+        this.categoryUnitPriceIndex = CategoryUnitPriceIndex.build(productCategories, unitLabels, unitPrices);
+    }
+
+    private static double[] unitQuantities(double[] packageQuantities, int[] packageUnits) {
+        double[] quantities = new double[packageQuantities.length];
+        for (int row = 0; row < quantities.length; row++) {
+            String unit = Symbols.decode(packageUnits[row]);
+            double quantity = PackageUnits.toReportingUnits(packageQuantities[row], unit);
+            // A zero, negative, malformed or unitless package size has no unit quantity
+            boolean valid = quantity > 0 && !Double.isInfinite(quantity) && unit != null && !unit.trim().isEmpty();
+            quantities[row] = valid ? quantity : Double.NaN;
+        }
+        return quantities;
+    }
+
+    private static int[] unitLabels(int[] packageUnits) {
+        int[] labels = new int[packageUnits.length];
+        Map<Integer, Integer> labelOfUnit = new HashMap<>();
+        for (int row = 0; row < labels.length; row++) {
+            labels[row] = labelOfUnit.computeIfAbsent(packageUnits[row],
+                unit -> Symbols.encode(PackageUnits.label(Symbols.decode(unit))));
+        }
+        return labels;
+    }
+
+    private static double[] unitPrices(double[] prices, double[] unitQuantities) {
+        double[] unitPrices = new double[prices.length];
+        for (int row = 0; row < unitPrices.length; row++) {
+            double unitPrice = prices[row] / unitQuantities[row];
+            unitPrices[row] = Double.isInfinite(unitPrice) ? Double.NaN : unitPrice;
+        }
+        return unitPrices;
+    }
+
+    NameBrandIndex getNameBrandIndex() {
+        return nameBrandIndex;
+    }
+
+    CategoryUnitPriceIndex getCategoryUnitPriceIndex() {
+        return categoryUnitPriceIndex;
+    }
+
+    public int size() { return productIds.length; }
+    public String getProductId(int row) { return productIds[row]; }
+    public String getProductName(int row) { return Symbols.decode(productNames[row]); }
+    public String getProductCategory(int row) { return Symbols.decode(productCategories[row]); }
+    public String getBrand(int row) { return Symbols.decode(brands[row]); }
+    public double getPackageQuantity(int row) { return packageQuantities[row]; }
+    public String getPackageUnit(int row) { return Symbols.decode(packageUnits[row]); }
+    public double getPrice(int row) { return prices[row]; }
+    public String getCurrency(int row) { return Symbols.decode(currencies[row]); }
+    /** Package quantity in reporting units: 100 g, 100 ml or one of the package unit; NaN without a unit price. */
+    public double getUnitQuantity(int row) { return unitQuantities[row]; }
+    /** Reporting unit, e.g. "per 100g". */
+    public String getUnitLabel(int row) { return Symbols.decode(unitLabels[row]); }
+    public int getUnitLabelCode(int row) { return unitLabels[row]; }
+    public int getProductCategoryCode(int row) { return productCategories[row]; }
+    /** Listed price per reporting unit, before discounts; NaN without a unit price. */
+    public double getUnitPrice(int row) { return unitPrices[row]; }
+    /** False when the package size or price is missing or malformed, so the row cannot be compared by unit price. */
+    public boolean hasUnitPrice(int row) { return !Double.isNaN(unitPrices[row]); }
+
+    /**
+     * Returns the rows of a category sold in a reporting unit, cheapest listed unit price first.
+     * @param productCategory The product category.
+     * @param unitLabel The reporting unit (e.g. "per 100g").
+     * @return The rows (never null).
+     */
+    public int[] findRowsByUnitPrice(String productCategory, String unitLabel) {
+        int category = Symbols.lookup(productCategory);
+        int label = Symbols.lookup(unitLabel);
+        return category < 0 || label < 0 ? new int[0] : categoryUnitPriceIndex.rows(category, label);
+    }
+
+    /**
+     * Finds rows by product name and optional brand with one hash lookup (see {@link NameBrandIndex}).
+     * @param productName The product name.
+     * @param brand The brand, or null/empty to match any brand.
+     * @return Matching rows in file order.
+     */
+    public int[] findRows(String productName, String brand) {
+        return nameBrandIndex.find(productName, brand);
+    }
+
+    /**
+     * Materializes one row as a Product.
+     * @param row The row index.
+     * @return A new Product object.
+     */
+    public Product toProduct(int row) {
+        Product p = new Product();
+        p.setProductId(getProductId(row));
+        p.setProductNameCode(productNames[row]);
+        p.setProductCategoryCode(productCategories[row]);
+        p.setBrandCode(brands[row]);
+        p.setPackageQuantity(getPackageQuantity(row));
+        p.setPackageUnitCode(packageUnits[row]);
+        p.setPrice(getPrice(row));
+        p.setCurrencyCode(currencies[row]);
+        return p;
+    }
+
+    /**
+     * Writes one row as a Product JSON object, with the same fields in the same order, without materializing it.
+     * @param gen The generator to write to.
+     * @param row The row index.
+     */
+    public void writeRow(JsonGenerator gen, int row) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("productId", productIds[row]);
+        gen.writeStringField("productName", Symbols.decode(productNames[row]));
+        gen.writeStringField("productCategory", Symbols.decode(productCategories[row]));
+        gen.writeStringField("brand", Symbols.decode(brands[row]));
+        gen.writeNumberField("packageQuantity", packageQuantities[row]);
+        gen.writeStringField("packageUnit", Symbols.decode(packageUnits[row]));
+        gen.writeNumberField("price", prices[row]);
+        gen.writeStringField("currency", Symbols.decode(currencies[row]));
+        gen.writeEndObject();
+    }
+
+    /**
+     * Materializes all rows as Products, in file order.
+     * @return List of new Product objects.
+     */
+    public List<Product> toProducts() {
+        List<Product> products = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            products.add(toProduct(i));
+        }
+        return products;
+    }
+
+    /**
+     * Builds a table from already materialized Products.
+     * @param products The rows, in order.
+     * @return The table.
+     */
+    public static ProductTable of(List<Product> products) {
+        Builder builder = new Builder();
+        for (Product p : products) {
+            builder.add(p.getProductId(), p.getProductName(), p.getProductCategory(), p.getBrand(),
+                p.getPackageQuantity(), p.getPackageUnit(), p.getPrice(), p.getCurrency());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Accumulates rows while a price file is being parsed.
+     */
+    public static class Builder {
+        private final StringDictionary dictionary = new StringDictionary();
+        private int size;
+        private String[] productIds = new String[16];
+        private int[] productNames = new int[16];
+        private int[] productCategories = new int[16];
+        private int[] brands = new int[16];
+        private double[] packageQuantities = new double[16];
+        private int[] packageUnits = new int[16];
+        private double[] prices = new double[16];
+        private int[] currencies = new int[16];
+
+        public Builder add(String productId, String productName, String productCategory, String brand,
+                           double packageQuantity, String packageUnit, double price, String currency) {
+            return addEncoded(productId, dictionary.encode(productName), dictionary.encode(productCategory),
+                dictionary.encode(brand), packageQuantity, dictionary.encode(packageUnit), price,
+                dictionary.encode(currency));
+        }
+
+        /**
+         * Adds a row whose string columns are already codes of {@link #dictionary()}.
+         */
+        Builder addEncoded(String productId, int productName, int productCategory, int brand,
+                           double packageQuantity, int packageUnit, double price, int currency) {
+            if (size == productIds.length) {
+                grow();
+            }
+            productIds[size] = productId;
+            productNames[size] = productName;
+            productCategories[size] = productCategory;
+            brands[size] = brand;
+            packageQuantities[size] = packageQuantity;
+            packageUnits[size] = packageUnit;
+            prices[size] = price;
+            currencies[size] = currency;
+            size++;
+            return this;
+        }
+
+        /**
+         * Returns the dictionary the string columns of this table are encoded with.
+         */
+        StringDictionary dictionary() {
+            return dictionary;
+        }
+
+        private void grow() {
+            int capacity = size * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            productNames = Arrays.copyOf(productNames, capacity);
+            productCategories = Arrays.copyOf(productCategories, capacity);
+            brands = Arrays.copyOf(brands, capacity);
+            packageQuantities = Arrays.copyOf(packageQuantities, capacity);
+            packageUnits = Arrays.copyOf(packageUnits, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+        }
+
+        public ProductTable build() {
+            return new ProductTable(this);
+        }
+    }
+}
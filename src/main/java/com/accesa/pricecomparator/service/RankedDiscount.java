@@ -0,0 +1,19 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+
+/**
+ * A discount together with the store that offers it, as kept in the discount rankings.
+ */
+public class RankedDiscount {
+    private final String store;
+    private final Discount discount;
+
+    public RankedDiscount(String store, Discount discount) {
+        this.store = store;
+        this.discount = discount;
+    }
+
+    public String getStore() { return store; }
+    public Discount getDiscount() { return discount; }
+}
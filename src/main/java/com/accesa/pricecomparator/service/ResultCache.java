@@ -0,0 +1,190 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache of computed endpoint results, keyed by endpoint, normalized parameters and catalog version.
+ * Entries are weighed in estimated bytes and the least recently used ones are evicted once the total exceeds the
+ * budget. Concurrent misses on the same key wait for a single computation instead of repeating it.
+ * The cache is emptied whenever a new catalog version is published, since no later request can hit older entries.
+ */
+@Service
+public class ResultCache implements CatalogReloadListener {
+    public static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+    // Rough fixed cost of an entry: key, map node, future and list
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+
+    @Autowired
+    public ResultCache(CsvDataLoaderService csvDataLoaderService) {
+        this(DEFAULT_BUDGET_BYTES);
+        csvDataLoaderService.addReloadListener(this);
+    }
+
+    /**
+     * Creates a cache that is not tied to a loader.
+     * @param budgetBytes The maximum estimated size of the cached results.
+     */
+    public ResultCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns the cached result for a query, computing it if needed.
+     * @param endpoint The endpoint name.
+     * @param catalog The catalog version the result is computed from.
+     * @param params The normalized parameters.
+     * @param bytesPerRow The estimated size of one row of the result.
+     * @param loader Computes the result from the catalog.
+     * @return The result, shared with other callers and therefore unmodifiable.
+     */
+    public <T> List<T> get(String endpoint, PriceCatalog catalog, String[] params, long bytesPerRow,
+                           Supplier<List<T>> loader) {
+        Key key = new Key(endpoint, catalog.getVersion(), params);
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                owner = true;
+                misses++;
+            } else if (entry.result.isDone()) {
+                hits++;
+            } else {
+                coalesced++;
+            }
+        }
+        if (!owner) {
+            return await(entry);
+        }
+
+        List<T> result;
+        try {
+            result = Collections.unmodifiableList(loader.get());
+        } catch (Throwable e) {
+            // Errors too: a pending entry left behind would block every later caller of the key
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        long weight = ENTRY_OVERHEAD_BYTES + bytesPerRow * result.size();
+        synchronized (entries) {
+            // The entry may have been dropped by a reload while it was being computed
+            if (entries.get(key) == entry) {
+                if (weight > budgetBytes) {
+                    entries.remove(key);
+                } else {
+                    entry.weight = weight;
+                    bytes += weight;
+                    evict();
+                }
+            }
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> await(Entry entry) {
+        try {
+            return (List<T>) entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Drops least recently used results until the total is within the budget. Results still being computed
+     * have no weight yet and are skipped.
+     */
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > budgetBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.weight == 0) continue;
+            it.remove();
+            bytes -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    @Override
+    public void catalogReloaded(PriceCatalog previous, PriceCatalog next, Collection<String> fileNames) {
+        clear();
+    }
+
+    /**
+     * Returns the counters since startup and the current size.
+     */
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return new CacheStats(hits, misses, coalesced, evictions, entries.size(), bytes, budgetBytes);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        // Zero while the result is being computed; guarded by the entries lock
+        private long weight;
+    }
+
+    private static final class Key {
+        private final String endpoint;
+        private final long version;
+        private final String[] params;
+        private final int hash;
+
+        Key(String endpoint, long version, String[] params) {
+            this.endpoint = endpoint;
+            this.version = version;
+            this.params = params.clone();
+            this.hash = 31 * (31 * endpoint.hashCode() + Long.hashCode(version)) + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return version == other.version && endpoint.equals(other.endpoint) && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.accesa.pricecomparator.service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Opaque paging cursor for the streamed listings: the catalog version the page was read from, a hash of the query
+ * it belongs to, and the position of the next row to return (e.g. store, file and row indexes).
+ * Clients get it as a URL-safe token and send it back unchanged as {@code after}; a cursor is only valid for the
+ * same query against the same catalog version, since positions mean nothing once the files are reloaded.
+ */
+public final class RowCursor {
+    /**
+     * Response header carrying the cursor of the next page.
+     */
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private final long version;
+    private final int query;
+    private final int[] position;
+
+    public RowCursor(long version, int query, int... position) {
+        this.version = version;
+        this.query = query;
+        this.position = position.clone();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns one component of the position.
+     * @param i The component index.
+     * @return The value.
+     */
+    public int get(int i) {
+        return position[i];
+    }
+
+    /**
+     * Returns the number of position components.
+     */
+    public int length() {
+        return position.length;
+    }
+
+    /**
+     * Hashes the parameters of a query, so a cursor cannot be replayed against a different one.
+     * @param parts The endpoint and its parameters.
+     * @return The hash.
+     */
+    public static int queryHash(String... parts) {
+        return Arrays.hashCode(parts);
+    }
+
+    /**
+     * Decodes the cursor of a follow-up request and checks that it was issued for the same query and catalog.
+     * @param token The token sent back by the client.
+     * @param version The version of the catalog serving the request.
+     * @param query The hash of the request's query (see {@link #queryHash(String...)}).
+     * @param length The number of position components the endpoint uses.
+     * @return The cursor.
+     * @throws IllegalArgumentException If the token is malformed, negative, or belongs to another query.
+     * @throws IllegalStateException If the catalog was reloaded since the cursor was issued.
+     */
+    public static RowCursor resume(String token, long version, int query, int length) {
+        RowCursor cursor = decode(token);
+        if (cursor.query != query || cursor.position.length != length) {
+            throw new IllegalArgumentException("cursor does not belong to this query");
+        }
+        for (int p : cursor.position) {
+            if (p < 0) throw new IllegalArgumentException("invalid cursor: " + token);
+        }
+        if (cursor.version != version) {
+            throw new IllegalStateException("cursor expired, the catalog was reloaded");
+        }
+        return cursor;
+    }
+
+    /**
+     * Encodes the cursor as a URL-safe token.
+     * @return The token.
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 1 + 4 * position.length);
+        buffer.putLong(version).putInt(query).put((byte) position.length);
+        for (int p : position) {
+            buffer.putInt(p);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a token returned by {@link #encode()}.
+     * @param token The token.
+     * @return The cursor.
+     * @throws IllegalArgumentException If the token is not a cursor.
+     */
+    public static RowCursor decode(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            long version = buffer.getLong();
+            int query = buffer.getInt();
+            int[] position = new int[buffer.get()];
+            for (int i = 0; i < position.length; i++) {
+                position[i] = buffer.getInt();
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("invalid cursor: " + token);
+            }
+            return new RowCursor(version, query, position);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("invalid cursor: " + token, e);
+        }
+    }
+}
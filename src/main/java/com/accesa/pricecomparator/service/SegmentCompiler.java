@@ -0,0 +1,53 @@
+package com.accesa.pricecomparator.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line step that compiles every price and discount CSV file of a data directory into a
+ * {@link CatalogSegment}, so the application can start from segments without parsing any CSV.
+ * Files whose segment is already fresh are skipped.
+ * Usage: {@code SegmentCompiler [dataDir] [segmentDir]}, by default {@code src/main/resources/data} and
+ * {@code data-segments}.
+ */
+public class SegmentCompiler {
+
+    /**
+     * Compiles the missing or stale segments of a data directory.
+     * @param dataDir The directory holding the CSV files.
+     * @param segmentDir The directory to write the segments to.
+     * @return The number of segments written.
+     */
+    public static int compile(Path dataDir, Path segmentDir) throws IOException {
+        int written = 0;
+        for (String fileName : DataFileIndex.scan(dataDir).getFileNames()) {
+            Path source = dataDir.resolve(fileName);
+            Path segment = CatalogSegment.segmentPath(segmentDir, fileName);
+            CatalogSegment.Stamp stamp = CatalogSegment.Stamp.of(source);
+            if (DataFileIndex.isDiscountFile(fileName)) {
+                if (CatalogSegment.readDiscounts(segment, source) != null) continue;
+                CatalogSegment.writeDiscounts(segment, stamp, CsvDataLoaderService.parseDiscountTable(source));
+            } else {
+                if (CatalogSegment.readProducts(segment, source) != null) continue;
+                CatalogSegment.writeProducts(segment, stamp, CsvDataLoaderService.parseProductTable(source));
+            }
+            written++;
+        }
+        return written;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dataDir = Paths.get(args.length > 0 ? args[0] : "src/main/resources/data");
+        Path segmentDir = Paths.get(args.length > 1 ? args[1] : "data-segments");
+        if (!Files.isDirectory(dataDir)) {
+            System.err.println("Not a directory: " + dataDir);
+            System.exit(1);
+        }
+        long started = System.nanoTime();
+        int written = compile(dataDir, segmentDir);
+        System.out.printf("Compiled %d segment(s) into %s in %d ms%n", written, segmentDir,
+            (System.nanoTime() - started) / 1_000_000);
+    }
+}
@@ -0,0 +1,144 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Symbols;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps repeated string values to dense int codes so that table columns can store codes instead of strings.
+ * A dictionary is local to one file being parsed; built tables translate its codes to {@link Symbols} codes.
+ * Values can also be looked up by their UTF-8 bytes, so a parser only decodes a string the first time it sees it.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    // Open-addressing table over the UTF-8 bytes of every non-null value: code + 1, 0 when empty
+    private int[] slots = new int[64];
+    private byte[][] utf8 = new byte[16][];
+
+    /**
+     * Returns the code for a value, assigning a new one if the value has not been seen yet.
+     * @param value The string value (may be null).
+     * @return The int code of the value.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+            if (value != null) {
+                index(code, value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code for a value given as UTF-8 bytes, decoding and assigning a new code only if the
+     * value has not been seen yet.
+     * @param buffer The buffer holding the bytes; its position is not changed.
+     * @param offset The absolute index of the first byte.
+     * @param length The number of bytes.
+     * @return The int code of the value.
+     */
+    public int encode(ByteBuffer buffer, int offset, int length) {
+        int mask = slots.length - 1;
+        for (int i = hash(buffer, offset, length) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (matches(utf8[slots[i] - 1], buffer, offset, length)) {
+                return slots[i] - 1;
+            }
+        }
+        byte[] bytes = new byte[length];
+        for (int k = 0; k < length; k++) {
+            bytes[k] = buffer.get(offset + k);
+        }
+        return encode(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the string value for a code.
+     * @param code The int code.
+     * @return The string value.
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns, for every code of this dictionary, the {@link Symbols} code of the same value.
+     * @return The process-wide code of each value, indexed by this dictionary's code.
+     */
+    public int[] symbols() {
+        int[] symbols = new int[values.size()];
+        for (int code = 0; code < symbols.length; code++) {
+            symbols[code] = Symbols.encode(values.get(code));
+        }
+        return symbols;
+    }
+
+    /**
+     * Translates a column of codes through a code mapping such as {@link #symbols()}.
+     * @param codes The column.
+     * @param length The number of codes to translate.
+     * @param mapping The new code of every old code.
+     * @return A new column of the given length.
+     */
+    static int[] remap(int[] codes, int length, int[] mapping) {
+        int[] remapped = new int[length];
+        for (int i = 0; i < length; i++) {
+            remapped[i] = mapping[codes[i]];
+        }
+        return remapped;
+    }
+
+    private void index(int code, byte[] bytes) {
+        if (code >= utf8.length) {
+            utf8 = Arrays.copyOf(utf8, Math.max(code + 1, utf8.length * 2));
+        }
+        utf8[code] = bytes;
+        if (values.size() * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int c = 0; c < values.size(); c++) {
+                if (utf8[c] != null) insert(c);
+            }
+        } else {
+            insert(code);
+        }
+    }
+
+    private void insert(int code) {
+        byte[] bytes = utf8[code];
+        int mask = slots.length - 1;
+        int i = hash(ByteBuffer.wrap(bytes), 0, bytes.length) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = code + 1;
+    }
+
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        int h = 1;
+        for (int k = 0; k < length; k++) {
+            h = 31 * h + buffer.get(offset + k);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(byte[] bytes, ByteBuffer buffer, int offset, int length) {
+        if (bytes.length != length) return false;
+        for (int k = 0; k < length; k++) {
+            if (bytes[k] != buffer.get(offset + k)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package com.accesa.pricecomparator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of user and alert mutations, one JSON record per line.
+ * Records are buffered by {@link #append} and made durable by {@link #sync}, which uses group commit: the first
+ * caller to reach the disk writes and fsyncs the records of every caller waiting behind it, so N concurrent writers
+ * cost one fsync rather than N. {@link #reset} empties the journal once its contents are in a snapshot.
+ */
+public class UserJournal implements Closeable {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final FileChannel channel;
+    private final Object bufferLock = new Object();
+    private final Object flushLock = new Object();
+    private List<byte[]> buffer = new ArrayList<>();
+    private long appendedSeq;
+    private long durableSeq;
+    private long records;
+
+    /**
+     * Opens a journal for appending, creating the file if needed.
+     * @param journalFile The journal file.
+     */
+    public UserJournal(Path journalFile) {
+        try {
+            this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads every complete record of a journal file, in order.
+     * A torn last line from a crash mid-write is skipped.
+     * @param journalFile The journal file.
+     * @param consumer Receives each record.
+     * @return The number of records read.
+     */
+    public static long replay(Path journalFile, Consumer<JsonNode> consumer) throws IOException {
+        if (!Files.exists(journalFile)) return 0;
+        ObjectMapper mapper = new ObjectMapper();
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                JsonNode record;
+                try {
+                    record = mapper.readTree(line);
+                } catch (IOException e) {
+                    continue;
+                }
+                consumer.accept(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Buffers a record. It is not durable until {@link #sync} returns for the returned sequence number.
+     * @param record The record.
+     * @return The sequence number of the record.
+     */
+    public long append(JsonNode record) {
+        byte[] line;
+        try {
+            line = (mapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (bufferLock) {
+            buffer.add(line);
+            records++;
+            return ++appendedSeq;
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and every record before it, is on disk.
+     * If the write fails, the batch goes back to the front of the buffer for the next sync, and anything already
+     * written of it is cut off so a half-written line cannot swallow the record after it.
+     * @param seq The sequence number returned by {@link #append}.
+     * @throws IOException If the records could not be written or forced to disk.
+     */
+    public void sync(long seq) throws IOException {
+        synchronized (flushLock) {
+            if (durableSeq >= seq) return;
+            List<byte[]> batch;
+            long batchSeq;
+            synchronized (bufferLock) {
+                batch = buffer;
+                batchSeq = appendedSeq;
+                buffer = new ArrayList<>();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (byte[] line : batch) {
+                out.write(line);
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(out.toByteArray());
+            long start = -1;
+            try {
+                start = channel.size();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                requeue(batch, start, e);
+                throw e;
+            }
+            durableSeq = batchSeq;
+        }
+    }
+
+    private void requeue(List<byte[]> batch, long start, IOException failure) {
+        synchronized (bufferLock) {
+            batch.addAll(buffer);
+            buffer = batch;
+        }
+        if (start < 0) return;
+        try {
+            channel.truncate(start);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Returns the number of records appended since the journal was opened or last reset.
+     * @return The record count.
+     */
+    public long size() {
+        synchronized (bufferLock) {
+            return records;
+        }
+    }
+
+    /**
+     * Discards the journal contents, buffered or on disk. Call only after the state they describe has been
+     * written to a durable snapshot, and while no mutation can run.
+     */
+    public void reset() throws IOException {
+        synchronized (flushLock) {
+            synchronized (bufferLock) {
+                buffer = new ArrayList<>();
+                records = 0;
+                durableSeq = appendedSeq;
+            }
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -2,32 +2,67 @@ package com.accesa.pricecomparator.service;
 
 import com.accesa.pricecomparator.model.User;
 import com.accesa.pricecomparator.model.PriceAlert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import javax.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 /**
  * Service for managing users and their price alerts, including persistence to file.
+ * Users, a case-folded email index and per-user alert lists live in concurrent maps. Alert lists are immutable and
+ * replaced as a whole under the map's per-key lock, so readers never lock and never see a list being changed.
+ * Every mutation is appended to a journal and made durable with group commit; users.json and alerts.json
+ * are a snapshot that the journal is compacted into every {@value #SNAPSHOT_EVERY} records.
+ * On startup the snapshot is loaded and the journal replayed on top of it.
  */
+@Service
 public class UserService {
-    private static final Map<String, User> users = new HashMap<>();
-    private static final Map<String, List<PriceAlert>> userAlerts = new HashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
     private static final String USERS_FILE = "users.json";
     private static final String ALERTS_FILE = "alerts.json";
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String JOURNAL_FILE = "users.journal";
+    private static final int SNAPSHOT_EVERY = 1000;
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
 
-    // Getters for testing
-    public static Map<String, User> getUsers() {
-        return users;
-    }
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    // case-folded email -> userId
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, List<PriceAlert>> userAlerts = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+    // Mutations share the read lock; compaction takes the write lock so the snapshot and the journal agree
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final Path usersFile;
+    private final Path alertsFile;
+    private final Path journalFile;
+    private UserJournal journal;
 
-    public static Map<String, List<PriceAlert>> getUserAlerts() {
-        return userAlerts;
+    public UserService() {
+        this(Paths.get(""));
     }
 
-    static {
+    /**
+     * Creates a registry persisted to users.json, alerts.json and users.journal in the given directory,
+     * and recovers its state from them.
+     * @param dir The directory holding the files.
+     */
+    public UserService(Path dir) {
+        this.usersFile = dir.resolve(USERS_FILE);
+        this.alertsFile = dir.resolve(ALERTS_FILE);
+        this.journalFile = dir.resolve(JOURNAL_FILE);
         loadFromFile();
     }
 
@@ -35,16 +70,32 @@ public class UserService {
      * Registers a new user with validation.
      * @param user The user to register.
      * @return Null if successful, or a validation error message.
+     * @throws UncheckedIOException If the user could not be made durable; it stays registered in memory and is
+     *         written with the next successful commit.
      */
-    public static synchronized String addUser(User user) {
+    public String addUser(User user) {
         if (user.getUserId() == null || user.getUserId().isEmpty()) return "userId required";
         if (user.getName() == null || user.getName().isEmpty()) return "name required";
         if (user.getEmail() == null || user.getEmail().isEmpty()) return "email required";
-        if (!Pattern.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$", user.getEmail())) return "invalid email format";
+        if (!EMAIL.matcher(user.getEmail()).matches()) return "invalid email format";
         if (users.containsKey(user.getUserId())) return "userId already exists";
-        if (users.values().stream().anyMatch(u -> u.getEmail().equalsIgnoreCase(user.getEmail()))) return "email already exists";
-        users.put(user.getUserId(), user);
-        saveToFile();
+        String emailKey = emailKey(user.getEmail());
+        long seq;
+        compactionLock.readLock().lock();
+        try {
+            if (userIdsByEmail.putIfAbsent(emailKey, user.getUserId()) != null) return "email already exists";
+            if (users.putIfAbsent(user.getUserId(), user) != null) {
+                userIdsByEmail.remove(emailKey, user.getUserId());
+                return "userId already exists";
+            }
+            ObjectNode record = mapper.createObjectNode();
+            record.put("type", "user");
+            record.set("user", mapper.valueToTree(user));
+            seq = journal.append(record);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+        commit(seq);
         return null;
     }
 
@@ -53,55 +104,186 @@ public class UserService {
      * @param userId The user's ID.
      * @return The User object, or null if not found.
      */
-    public static User getUser(String userId) {
+    public User getUser(String userId) {
         return users.get(userId);
     }
 
+    /**
+     * Retrieves a user by email, ignoring case.
+     * @param email The email address.
+     * @return The User object, or null if not found.
+     */
+    public User getUserByEmail(String email) {
+        String userId = userIdsByEmail.get(emailKey(email));
+        return userId == null ? null : users.get(userId);
+    }
+
     /**
      * Adds or updates a price alert for a user.
      * @param userId The user's ID.
      * @param alert The price alert to add or update.
+     * @throws UncheckedIOException If the alert could not be made durable; it stays set in memory and is written
+     *         with the next successful commit.
      */
-    public static synchronized void addAlert(String userId, PriceAlert alert) {
-        userAlerts.computeIfAbsent(userId, k -> new ArrayList<>());
-        userAlerts.get(userId).removeIf(a -> a.getProductName().equalsIgnoreCase(alert.getProductName()) &&
-            (alert.getBrand() == null || alert.getBrand().isEmpty() || (a.getBrand() != null && a.getBrand().equalsIgnoreCase(alert.getBrand()))));
-        userAlerts.get(userId).add(alert);
-        saveToFile();
+    public void addAlert(String userId, PriceAlert alert) {
+        long[] seq = new long[1];
+        compactionLock.readLock().lock();
+        try {
+            userAlerts.compute(userId, (k, alerts) -> {
+                List<PriceAlert> next = withAlert(alerts, alert);
+                ObjectNode record = mapper.createObjectNode();
+                record.put("type", "alert");
+                record.put("userId", userId);
+                record.set("alert", mapper.valueToTree(alert));
+                seq[0] = journal.append(record);
+                return next;
+            });
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+        commit(seq[0]);
     }
 
     /**
      * Retrieves all price alerts for a user.
      * @param userId The user's ID.
-     * @return List of PriceAlert objects.
+     * @return Unmodifiable list of PriceAlert objects.
      */
-    public static List<PriceAlert> getAlerts(String userId) {
-        return userAlerts.getOrDefault(userId, new ArrayList<>());
+    public List<PriceAlert> getAlerts(String userId) {
+        return userAlerts.getOrDefault(userId, Collections.emptyList());
     }
 
-    private static void saveToFile() {
+    /**
+     * Returns the IDs of all users that have at least one alert.
+     * @return Set of user IDs.
+     */
+    public Set<String> getAlertUserIds() {
+        return Collections.unmodifiableSet(userAlerts.keySet());
+    }
+
+    /**
+     * Closes the journal.
+     */
+    @PreDestroy
+    public void close() {
         try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(new File(USERS_FILE), users);
-            mapper.writerWithDefaultPrettyPrinter().writeValue(new File(ALERTS_FILE), userAlerts);
+            journal.close();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Cannot close journal {}", journalFile, e);
         }
     }
 
-    private static void loadFromFile() {
+    /**
+     * Returns a copy of the alert list with the alert added, replacing alerts on the same product
+     * (and the same brand, when the new alert has one).
+     */
+    private static List<PriceAlert> withAlert(List<PriceAlert> alerts, PriceAlert alert) {
+        List<PriceAlert> next = alerts == null ? new ArrayList<>() : new ArrayList<>(alerts);
+        next.removeIf(a -> a.getProductName().equalsIgnoreCase(alert.getProductName()) &&
+            (alert.getBrand() == null || alert.getBrand().isEmpty() || (a.getBrand() != null && a.getBrand().equalsIgnoreCase(alert.getBrand()))));
+        next.add(alert);
+        return Collections.unmodifiableList(next);
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Waits for a journal record to be durable, outside any lock so concurrent writers share one fsync,
+     * and compacts the journal into the snapshot once it is long enough. A failed compaction only delays the next
+     * one: the record is already durable in the journal.
+     * @throws UncheckedIOException If the record could not be synced.
+     */
+    private void commit(long seq) {
+        try {
+            journal.sync(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync journal " + journalFile, e);
+        }
+        if (journal.size() >= SNAPSHOT_EVERY) {
+            try {
+                compact();
+            } catch (Exception e) {
+                log.warn("Cannot compact journal {} into {} and {}", journalFile, usersFile, alertsFile, e);
+            }
+        }
+    }
+
+    private void compact() throws IOException {
+        compactionLock.writeLock().lock();
+        try {
+            // Another writer may have compacted while this one waited for the lock
+            if (journal.size() < SNAPSHOT_EVERY) return;
+            saveSnapshot();
+            journal.reset();
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private void saveSnapshot() throws IOException {
+        writeAtomically(usersFile, new TreeMap<>(users));
+        writeAtomically(alertsFile, new TreeMap<>(userAlerts));
+    }
+
+    private void writeAtomically(Path file, Object value) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            out.write(mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(value));
+            out.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadFromFile() {
         try {
-            File uf = new File(USERS_FILE);
+            File uf = usersFile.toFile();
             if (uf.exists()) {
                 Map<String, User> loadedUsers = mapper.readValue(uf, new TypeReference<Map<String, User>>(){});
-                users.putAll(loadedUsers);
+                for (User user : loadedUsers.values()) {
+                    putUser(user);
+                }
             }
-            File af = new File(ALERTS_FILE);
+            File af = alertsFile.toFile();
             if (af.exists()) {
                 Map<String, List<PriceAlert>> loadedAlerts = mapper.readValue(af, new TypeReference<Map<String, List<PriceAlert>>>(){});
-                userAlerts.putAll(loadedAlerts);
+                for (Map.Entry<String, List<PriceAlert>> e : loadedAlerts.entrySet()) {
+                    userAlerts.put(e.getKey(), Collections.unmodifiableList(new ArrayList<>(e.getValue())));
+                }
+            }
+            // Records are idempotent, so replaying ones already in the snapshot is harmless
+            long replayed = UserJournal.replay(journalFile, this::applyRecord);
+            journal = new UserJournal(journalFile);
+            if (replayed > 0) {
+                saveSnapshot();
+                journal.reset();
+            }
+        } catch (Exception e) {
+            log.error("Cannot load users from {}, {} and {}", usersFile, alertsFile, journalFile, e);
+            if (journal == null) {
+                journal = new UserJournal(journalFile);
+            }
+        }
+    }
+
+    private void putUser(User user) {
+        users.put(user.getUserId(), user);
+        if (user.getEmail() != null) {
+            userIdsByEmail.put(emailKey(user.getEmail()), user.getUserId());
+        }
+    }
+
+    private void applyRecord(JsonNode record) {
+        try {
+            if ("user".equals(record.path("type").asText())) {
+                putUser(mapper.treeToValue(record.get("user"), User.class));
+            } else if ("alert".equals(record.path("type").asText())) {
+                PriceAlert alert = mapper.treeToValue(record.get("alert"), PriceAlert.class);
+                userAlerts.compute(record.get("userId").asText(), (k, alerts) -> withAlert(alerts, alert));
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Skipping unreadable journal record {}", record, e);
         }
     }
 }
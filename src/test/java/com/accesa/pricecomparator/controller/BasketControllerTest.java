@@ -1,18 +1,31 @@
 package com.accesa.pricecomparator.controller;
 
 import com.accesa.pricecomparator.model.BasketItem;
+import com.accesa.pricecomparator.model.BasketLine;
+import com.accesa.pricecomparator.model.BasketRequest;
+import com.accesa.pricecomparator.model.BasketSplit;
 import com.accesa.pricecomparator.model.Discount;
 import com.accesa.pricecomparator.model.Product;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.DiscountTable;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.ProductTable;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,15 +35,15 @@ import static org.mockito.Mockito.*;
 @SpringBootTest
 class BasketControllerTest {
 
-    @InjectMocks
-    private BasketController basketController;
-
     @Mock
     private CsvDataLoaderService csvDataLoaderService;
 
+    private BasketController basketController;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        basketController = new BasketController(csvDataLoaderService);
     }
 
     @Test
@@ -61,21 +74,24 @@ class BasketControllerTest {
         );
 
         // Mock service responses
-        when(csvDataLoaderService.getAvailableStores()).thenReturn(stores);
-        when(csvDataLoaderService.loadProducts(anyString(), anyString())).thenReturn(store1Products);
-        when(csvDataLoaderService.loadDiscounts(anyString(), anyString())).thenReturn(store1Discounts);
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("Store1_2024-03-20.csv", ProductTable.of(store1Products))
+            .putProductTable("Store2_2024-03-20.csv", ProductTable.of(store2Products))
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(store1Discounts))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(store2Discounts))
+            .build();
+        assertEquals(stores, catalog.getStores());
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
 
         // Execute test
-        Map<String, Object> result = basketController.splitOptimizeBasket(items, date);
+        BasketSplit result = basketController.splitOptimizeBasket(items, date, false);
 
         // Verify results
         assertNotNull(result);
-        assertTrue(result.containsKey("items"));
-        assertTrue(result.containsKey("storeTotals"));
-        assertTrue(result.containsKey("overallTotal"));
+        assertNotNull(result.getStoreTotals());
+        assertNull(result.getDebug());
 
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> resultItems = (List<Map<String, Object>>) result.get("items");
+        List<BasketLine> resultItems = result.getItems();
         assertNotNull(resultItems);
         // Allow empty or non-empty list
         assertNotNull(resultItems);
@@ -101,22 +117,147 @@ class BasketControllerTest {
         );
 
         // Mock service responses
-        when(csvDataLoaderService.getAvailableStores()).thenReturn(stores);
-        when(csvDataLoaderService.loadProducts(anyString(), anyString())).thenReturn(store1Products);
-        when(csvDataLoaderService.loadDiscounts(anyString(), anyString())).thenReturn(Arrays.asList());
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("Store1_2024-03-20.csv", ProductTable.of(store1Products))
+            .putProductTable("Store2_2024-03-20.csv", ProductTable.of(store2Products))
+            .build();
+        assertEquals(stores, catalog.getStores());
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
 
         // Execute test
-        Map<String, Object> result = basketController.splitOptimizeBasket(items, date);
+        BasketSplit result = basketController.splitOptimizeBasket(items, date, false);
 
         // Verify results
         assertNotNull(result);
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> resultItems = (List<Map<String, Object>>) result.get("items");
+        List<BasketLine> resultItems = result.getItems();
         assertNotNull(resultItems);
         // Allow empty or non-empty list
         assertNotNull(resultItems);
     }
 
+    @Test
+    void splitOptimizeBasket_PicksCheapestDiscountedOfferAndReportsTimings() {
+        // Prepare test data
+        List<BasketItem> items = Arrays.asList(
+            createBasketItem("Product 1", 2.0),
+            createBasketItem("product 1", 1.0)
+        );
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("Store1_2024-03-20.csv", ProductTable.of(Arrays.asList(createProduct("Store1", "Product 1", 10.0))))
+            .putProductTable("Store2_2024-03-20.csv", ProductTable.of(Arrays.asList(createProduct("Store2", "Product 1", 9.0))))
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(createDiscount("Product 1", 20.0))))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(createDiscount("Product 1", 5.0))))
+            .build();
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
+
+        // Execute test
+        BasketSplit result = basketController.splitOptimizeBasket(items, "2024-03-21", true);
+
+        // Verify results
+        List<BasketLine> resultItems = result.getItems();
+        assertEquals(2, resultItems.size());
+        assertEquals("Store1", resultItems.get(0).getStore());
+        assertEquals(8.0, resultItems.get(0).getPrice());
+        assertEquals(16.0, resultItems.get(0).getTotal());
+        assertEquals(24.0, result.getOverallTotal());
+        Map<String, Object> debug = result.getDebug();
+        assertEquals(2, debug.get("stores"));
+        assertTrue(((Map<?, ?>) debug.get("timings")).containsKey("resolveOffersMs"));
+        verify(csvDataLoaderService, times(1)).getCatalog();
+    }
+
+    @Test
+    void batchSplitOptimize_StreamsOneLinePerBasket() throws Exception {
+        // Prepare test data
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("Store1_2024-03-20.csv", ProductTable.of(Arrays.asList(createProduct("Store1", "Product 1", 10.0))))
+            .putProductTable("Store2_2024-03-20.csv", ProductTable.of(Arrays.asList(createProduct("Store2", "Product 1", 9.0))))
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(createDiscount("Product 1", 20.0))))
+            .build();
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
+        List<BasketRequest> baskets = Arrays.asList(
+            createBasketRequest("a", "2024-03-21", createBasketItem("Product 1", 2.0)),
+            createBasketRequest("b", "2024-03-28", createBasketItem("Product 1", 1.0)),
+            createBasketRequest("c", "not a date", createBasketItem("Product 1", 1.0)),
+            createBasketRequest(null, "2024-03-21", createBasketItem("Product 1", 1.0))
+        );
+
+        // Execute test
+        ResponseEntity<StreamingResponseBody> response = basketController.batchSplitOptimize(baskets);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Verify results: one line per basket, in completion order
+        ObjectMapper mapper = new ObjectMapper();
+        Map<Integer, JsonNode> lines = new HashMap<>();
+        for (String line : out.toString("UTF-8").split("\n")) {
+            JsonNode node = mapper.readTree(line);
+            lines.put(node.get("index").asInt(), node);
+        }
+        assertEquals(4, lines.size());
+        assertEquals("a", lines.get(0).get("id").asText());
+        assertEquals(16.0, lines.get(0).get("result").get("overallTotal").asDouble());
+        assertEquals("Store2", lines.get(1).get("result").get("items").get(0).get("store").asText());
+        assertTrue(lines.get(2).has("error"));
+        assertFalse(lines.get(3).has("id"));
+        assertEquals(8.0, lines.get(3).get("result").get("overallTotal").asDouble());
+        verify(csvDataLoaderService, times(1)).getCatalog();
+    }
+
+    @Test
+    void batchSplitOptimize_ReportsEveryBasketWhenItsDateGroupFails() throws Exception {
+        // Prepare test data: no catalog, so resolving the tables of each date throws
+        List<BasketRequest> baskets = Arrays.asList(
+            createBasketRequest("a", "2024-03-21", createBasketItem("Product 1", 2.0)),
+            createBasketRequest("b", "2024-03-28", createBasketItem("Product 1", 1.0)),
+            createBasketRequest("c", "2024-03-21", createBasketItem("Product 1", 1.0))
+        );
+
+        // Execute test
+        ResponseEntity<StreamingResponseBody> response = basketController.batchSplitOptimize(baskets);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Verify results: the stream ends with one error line per basket
+        ObjectMapper mapper = new ObjectMapper();
+        Map<Integer, JsonNode> lines = new HashMap<>();
+        for (String line : out.toString("UTF-8").split("\n")) {
+            JsonNode node = mapper.readTree(line);
+            lines.put(node.get("index").asInt(), node);
+        }
+        assertEquals(3, lines.size());
+        for (JsonNode line : lines.values()) {
+            assertTrue(line.has("error"));
+            assertFalse(line.has("result"));
+        }
+    }
+
+    @Test
+    void optimizeBasket_RejectsInvalidParameters() {
+        // Prepare test data
+        List<BasketItem> items = Arrays.asList(createBasketItem("Product 1", 1.0));
+
+        // Execute test and verify results
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+            () -> basketController.optimizeBasket(items, "2024-03-21", null, -1.0, 200, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        e = assertThrows(ResponseStatusException.class,
+            () -> basketController.optimizeBasket(items, "2024-03-21", 0, 0.0, 200, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        e = assertThrows(ResponseStatusException.class,
+            () -> basketController.optimizeBasket(items, "2024-03-21", null, 0.0, -1, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        verify(csvDataLoaderService, never()).getCatalog();
+    }
+
+    private BasketRequest createBasketRequest(String id, String date, BasketItem... items) {
+        BasketRequest basket = new BasketRequest();
+        basket.setId(id);
+        basket.setDate(date);
+        basket.setItems(Arrays.asList(items));
+        return basket;
+    }
+
     private BasketItem createBasketItem(String productName, double quantity) {
         BasketItem item = new BasketItem();
         item.setProductName(productName);
@@ -1,18 +1,31 @@
 package com.accesa.pricecomparator.controller;
 
+import com.accesa.pricecomparator.model.BestProductDiscount;
 import com.accesa.pricecomparator.model.Discount;
+import com.accesa.pricecomparator.model.StoreDiscount;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.DiscountTable;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.RowCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,15 +33,15 @@ import static org.mockito.Mockito.*;
 @SpringBootTest
 class DiscountControllerTest {
 
-    @InjectMocks
-    private DiscountController discountController;
-
     @Mock
     private CsvDataLoaderService csvDataLoaderService;
 
+    private DiscountController discountController;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        discountController = new DiscountController(csvDataLoaderService);
     }
 
     @Test
@@ -46,11 +59,15 @@ class DiscountControllerTest {
         );
 
         // Mock service responses
-        when(csvDataLoaderService.getAvailableStores()).thenReturn(stores);
-        when(csvDataLoaderService.loadAllDiscountsForStore(anyString())).thenReturn(store1Discounts);
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(store1Discounts))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(store2Discounts))
+            .build();
+        assertEquals(stores, catalog.getStores());
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
 
         // Execute test
-        List<Map<String, Object>> result = discountController.getDiscounts(date);
+        List<StoreDiscount> result = discountController.getDiscounts(date);
 
         // Verify results
         assertNotNull(result);
@@ -73,11 +90,15 @@ class DiscountControllerTest {
         );
 
         // Mock service responses
-        when(csvDataLoaderService.getAvailableStores()).thenReturn(stores);
-        when(csvDataLoaderService.loadAllDiscountsForStore(anyString())).thenReturn(store1Discounts);
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(store1Discounts))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(store2Discounts))
+            .build();
+        assertEquals(stores, catalog.getStores());
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
 
         // Execute test
-        List<Map<String, Object>> result = discountController.getBestDiscounts(date);
+        List<StoreDiscount> result = discountController.getBestDiscounts(date, 10);
 
         // Verify results
         assertNotNull(result);
@@ -100,16 +121,125 @@ class DiscountControllerTest {
         );
 
         // Mock service responses
-        when(csvDataLoaderService.getAvailableStores()).thenReturn(stores);
-        when(csvDataLoaderService.loadAllDiscountsForStore(anyString())).thenReturn(store1Discounts);
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(store1Discounts))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(store2Discounts))
+            .build();
+        assertEquals(stores, catalog.getStores());
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
 
         // Execute test
-        List<Map<String, Object>> result = discountController.getBestDiscountsForProductsWithDifferentName(date);
+        List<BestProductDiscount> result = discountController.getBestDiscountsForProductsWithDifferentName(date, 10);
 
         // Verify results
         assertNotNull(result);
-        // Allow empty or non-empty list
-        assertNotNull(result);
+        assertEquals(2, result.size());
+        assertEquals("Product 2", result.get(0).getProductName());
+        assertEquals("Store2", result.get(0).getStore());
+        assertEquals(20.0, result.get(0).getPercentage());
+        assertEquals(15.0, result.get(1).getPercentage());
+    }
+
+    @Test
+    void streamDiscounts_PagesMatchFullList() throws Exception {
+        // Prepare test data: one expired discount in the middle of each store's file
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 1", 10.0, "2024-03-20", "2024-03-27"),
+                createDiscount("Product 2", 5.0, "2024-03-01", "2024-03-07"),
+                createDiscount("Product 3", 7.0, "2024-03-18", "2024-03-22"))))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 1", 15.0, "2024-03-20", "2024-03-27"),
+                createDiscount("Product 2", 20.0, "2024-03-01", "2024-03-07"),
+                createDiscount("Product 4", 30.0, "2024-03-20", "2024-03-20"))))
+            .build();
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        JsonNode expected = mapper.valueToTree(discountController.getDiscounts("2024-03-20"));
+
+        // Execute test: pages of 3 until there is no next cursor
+        List<JsonNode> streamed = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            ResponseEntity<StreamingResponseBody> page = discountController.streamDiscounts("2024-03-20", 3, after);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            page.getBody().writeTo(out);
+            for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+                streamed.add(mapper.readTree(line));
+            }
+            after = page.getHeaders().getFirst(RowCursor.NEXT_CURSOR);
+            pages++;
+        } while (after != null);
+
+        // Verify results
+        assertEquals(2, pages);
+        assertEquals(4, expected.size());
+        assertEquals(expected, mapper.valueToTree(streamed));
+    }
+
+    @Test
+    void streamDiscounts_EveryPageSizeMatchesFullList() throws Exception {
+        // Prepare test data: a store with nothing valid between two that have, and rows out of start order
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("Store1_discounts_2024-03-10.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 1", 10.0, "2024-03-15", "2024-03-27"),
+                createDiscount("Product 2", 5.0, "2024-03-10", "2024-03-21"))))
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 3", 7.0, "2024-03-01", "2024-03-07"),
+                createDiscount("Product 4", 8.0, "2024-03-20", "2024-03-20"))))
+            .putDiscountTable("Store2_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 1", 15.0, "2024-03-01", "2024-03-07"))))
+            .putDiscountTable("Store3_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 5", 30.0, "2024-03-20", "2024-03-22"),
+                createDiscount("Product 6", 25.0, "2024-03-19", "2024-03-20"))))
+            .build();
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        JsonNode expected = mapper.valueToTree(discountController.getDiscounts("2024-03-20"));
+        assertEquals(5, expected.size());
+
+        for (int limit = 1; limit <= 6; limit++) {
+            // Execute test
+            List<JsonNode> streamed = new ArrayList<>();
+            String after = null;
+            int pages = 0;
+            do {
+                ResponseEntity<StreamingResponseBody> page = discountController.streamDiscounts("2024-03-20", limit, after);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                page.getBody().writeTo(out);
+                for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+                    streamed.add(mapper.readTree(line));
+                }
+                after = page.getHeaders().getFirst(RowCursor.NEXT_CURSOR);
+                pages++;
+            } while (after != null);
+
+            // Verify results
+            assertEquals((5 + limit - 1) / limit, pages);
+            assertEquals(expected, mapper.valueToTree(streamed));
+        }
+    }
+
+    @Test
+    void streamDiscounts_RejectsCursorOfAnotherQuery() {
+        // Prepare test data
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("Store1_discounts_2024-03-20.csv", DiscountTable.of(Arrays.asList(
+                createDiscount("Product 1", 10.0, "2024-03-20", "2024-03-27"),
+                createDiscount("Product 2", 5.0, "2024-03-20", "2024-03-27"))))
+            .build();
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
+        String after = discountController.streamDiscounts("2024-03-20", 1, null)
+            .getHeaders().getFirst(RowCursor.NEXT_CURSOR);
+        assertNotNull(after);
+
+        // Execute test and verify results
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+            () -> discountController.streamDiscounts("2024-03-21", 1, after));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
     }
 
     private Discount createDiscount(String productName, double percentage, String fromDate, String toDate) {
@@ -1,16 +1,21 @@
 package com.accesa.pricecomparator.controller;
 
 import com.accesa.pricecomparator.model.PriceAlert;
+import com.accesa.pricecomparator.model.TriggeredAlert;
 import com.accesa.pricecomparator.model.User;
+import com.accesa.pricecomparator.service.AlertEngine;
 import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.LoggingNotificationSender;
+import com.accesa.pricecomparator.service.NotificationOutbox;
 import com.accesa.pricecomparator.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,9 +24,14 @@ class PriceAlertControllerTest {
 
     private PriceAlertController priceAlertController;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
-        priceAlertController = new PriceAlertController();
+        UserService userService = new UserService(tempDir);
+        priceAlertController = new PriceAlertController(userService,
+            new AlertEngine(new CsvDataLoaderService(), userService, new NotificationOutbox(new LoggingNotificationSender())));
     }
 
     @Test
@@ -104,7 +114,7 @@ class PriceAlertControllerTest {
         priceAlertController.setAlert(userId, alert1);
         priceAlertController.setAlert(userId, alert2);
 
-        List<Map<String, Object>> result = priceAlertController.checkAlerts(userId, date);
+        List<TriggeredAlert> result = priceAlertController.checkAlerts(userId, date);
         assertNotNull(result);
     }
 
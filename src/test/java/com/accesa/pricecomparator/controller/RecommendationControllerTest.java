@@ -0,0 +1,125 @@
+package com.accesa.pricecomparator.controller;
+
+import com.accesa.pricecomparator.model.ValueOffer;
+import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.DiscountTable;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import com.accesa.pricecomparator.service.ProductTable;
+import com.accesa.pricecomparator.service.ResultCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class RecommendationControllerTest {
+
+    private static final String DATE = "2025-05-08";
+
+    @Mock
+    private CsvDataLoaderService csvDataLoaderService;
+
+    private RecommendationController recommendationController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        recommendationController = new RecommendationController(csvDataLoaderService, new ResultCache(1024 * 1024));
+    }
+
+    @Test
+    void getSubstitutes_SameCategoryAndUnitOnly() {
+        // Prepare test data
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("lidl_2025-05-08.csv", new ProductTable.Builder()
+                .add("P002", "iaurt grecesc", "lactate", "Lidl", 0.4, "kg", 11.6, "RON")
+                .add("P008", "brânză telemea", "lactate", "Pilos", 0.3, "kg", 12.9, "RON")
+                .add("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 1.0, "RON")
+                .add("P020", "zahăr", "alimente de bază", "Mărgăritar", 1, "kg", 5.0, "RON")
+                .build())
+            .putProductTable("profi_2025-05-08.csv", new ProductTable.Builder()
+                .add("P004", "iaurt grecesc", "lactate", "Proxi", 0.4, "kg", 11.4, "RON")
+                .add("P068", "iaurt de băut", "lactate", "Activia", 0.33, "kg", 5.0, "RON")
+                .build())
+            .putDiscountTable("profi_discounts_2025-05-08.csv", new DiscountTable.Builder()
+                .add("P068", "iaurt de băut", "Activia", 0.33, "kg", "lactate",
+                    LocalDate.parse("2025-05-08"), LocalDate.parse("2025-05-14"), 10)
+                .build())
+            .build();
+        when(csvDataLoaderService.getCatalog()).thenReturn(catalog);
+
+        // Execute test
+        List<ValueOffer> result = recommendationController.getSubstitutes("iaurt grecesc", null, DATE, 5);
+
+        // Verify results
+        assertEquals(2, result.size());
+        assertEquals("iaurt de băut", result.get(0).getProductName());
+        assertEquals(10.0, result.get(0).getDiscountPercent());
+        assertEquals(4.5, result.get(0).getFinalPrice());
+        assertEquals(1.36, result.get(0).getValuePerUnit());
+        assertEquals("per 100g", result.get(0).getValuePerUnitLabel());
+        assertEquals("brânză telemea", result.get(1).getProductName());
+
+        // With a brand, other brands of the same product are alternatives
+        List<ValueOffer> withBrand = recommendationController.getSubstitutes("iaurt grecesc", "Lidl", DATE, 2);
+        assertEquals("iaurt de băut", withBrand.get(0).getProductName());
+        assertEquals("Proxi", withBrand.get(1).getBrand());
+
+        assertTrue(recommendationController.getSubstitutes("nu există", null, DATE, 5).isEmpty());
+    }
+
+    @Test
+    void getSubstitutes_MatchesFullScan() {
+        // Prepare test data: random products and deep discounts in three stores
+        Random random = new Random(7);
+        String[] stores = {"kaufland", "lidl", "profi"};
+        String[] units = {"kg", "g"};
+        PriceCatalog.Builder builder = new PriceCatalog.Builder();
+        for (String store : stores) {
+            ProductTable.Builder products = new ProductTable.Builder()
+                .add("P000", "reference", "snacks", "Ref", 100, "g", 4.0, "RON");
+            DiscountTable.Builder discounts = new DiscountTable.Builder();
+            for (int i = 1; i < 300; i++) {
+                String unit = units[random.nextInt(units.length)];
+                double quantity = unit.equals("kg") ? 0.1 + random.nextInt(20) / 10.0 : 20 + random.nextInt(50) * 10;
+                products.add("P" + i, "product " + i, "snacks", "B" + i, quantity, unit,
+                    1 + random.nextInt(3000) / 100.0, "RON");
+                if (random.nextInt(4) == 0) {
+                    discounts.add("P" + i, "product " + i, "B" + i, quantity, unit, "snacks",
+                        LocalDate.parse("2025-05-01"), LocalDate.parse("2025-05-14"), 5 + random.nextInt(60));
+                }
+            }
+            builder.putProductTable(store + "_2025-05-08.csv", products.build())
+                .putDiscountTable(store + "_discounts_2025-05-08.csv", discounts.build());
+        }
+        when(csvDataLoaderService.getCatalog()).thenReturn(builder.build());
+
+        // Execute test
+        List<ValueOffer> result = recommendationController.getSubstitutes("reference", null, DATE, 10);
+
+        // Verify results against the value of every snacks product
+        List<Double> all = new ArrayList<>();
+        for (String store : stores) {
+            for (int i = 1; i < 300; i++) {
+                List<ValueOffer> offers = recommendationController.getBestValueProducts("product " + i, DATE);
+                for (ValueOffer offer : offers) {
+                    if (offer.getStore().equals(store)) all.add(offer.getValuePerUnit());
+                }
+            }
+        }
+        all.sort(null);
+        assertEquals(10, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(all.get(i), result.get(i).getValuePerUnit());
+        }
+    }
+}
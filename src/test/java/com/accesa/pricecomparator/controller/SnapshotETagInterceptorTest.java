@@ -0,0 +1,83 @@
+package com.accesa.pricecomparator.controller;
+
+import com.accesa.pricecomparator.service.CsvDataLoaderService;
+import com.accesa.pricecomparator.service.PriceCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class SnapshotETagInterceptorTest {
+
+    @Mock
+    private CsvDataLoaderService csvDataLoaderService;
+
+    private SnapshotETagInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        interceptor = new SnapshotETagInterceptor(csvDataLoaderService, CacheControl.maxAge(60, TimeUnit.SECONDS));
+        when(csvDataLoaderService.getCatalog()).thenReturn(new PriceCatalog.Builder().build());
+    }
+
+    @Test
+    void preHandle_MatchingETagReturnsNotModified() throws Exception {
+        // Prepare test data
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request("lidl", "2025-05-01"), first, null));
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+        assertEquals("max-age=60", first.getHeader("Cache-Control"));
+
+        // Execute test
+        MockHttpServletRequest again = request("lidl", "2025-05-01");
+        again.addHeader("If-None-Match", etag);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        boolean proceed = interceptor.preHandle(again, second, null);
+
+        // Verify results
+        assertFalse(proceed);
+        assertEquals(304, second.getStatus());
+        assertEquals(etag, second.getHeader("ETag"));
+    }
+
+    @Test
+    void etag_ChangesWithParamsAndVersion() {
+        String lidl = SnapshotETagInterceptor.etag(1, request("lidl", "2025-05-01"));
+        assertEquals(lidl, SnapshotETagInterceptor.etag(1, request("lidl", "2025-05-01")));
+        assertNotEquals(lidl, SnapshotETagInterceptor.etag(1, request("profi", "2025-05-01")));
+        assertNotEquals(lidl, SnapshotETagInterceptor.etag(2, request("lidl", "2025-05-01")));
+
+        MockHttpServletRequest ndjson = request("lidl", "2025-05-01");
+        ndjson.addHeader("Accept", "application/x-ndjson");
+        assertNotEquals(lidl, SnapshotETagInterceptor.etag(1, ndjson));
+    }
+
+    @Test
+    void preHandle_IgnoresNonReadRequests() throws Exception {
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/products");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(post, response, null));
+        assertNull(response.getHeader("ETag"));
+        verifyNoInteractions(csvDataLoaderService);
+    }
+
+    private MockHttpServletRequest request(String store, String date) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addParameter("store", store);
+        request.addParameter("date", date);
+        return request;
+    }
+}
@@ -0,0 +1,70 @@
+package com.accesa.pricecomparator.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ResponseSerializationTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void storeDiscount_WritesStoreThenDiscount() throws Exception {
+        // Prepare test data
+        Discount discount = new Discount();
+        discount.setProductId("P009");
+        discount.setProductName("brânză telemea");
+        discount.setFromDate(LocalDate.parse("2025-05-01"));
+        discount.setToDate(LocalDate.parse("2025-05-07"));
+        discount.setPercentageOfDiscount(10);
+
+        String json = mapper.writeValueAsString(new StoreDiscount("lidl", discount));
+
+        assertTrue(json.startsWith("{\"store\":\"lidl\",\"discount\":{\"productId\":\"P009\""));
+        assertTrue(json.contains("\"fromDate\":\"2025-05-01\""));
+        assertEquals(json, mapper.writeValueAsString(new StoreDiscount("lidl", discount)));
+        assertTrue(mapper.writeValueAsString(new BestProductDiscount("lidl", discount))
+            .startsWith("{\"store\":\"lidl\",\"productName\":\"brânză telemea\",\"percentage\":10.0,\"discount\":{"));
+    }
+
+    @Test
+    void basketSplit_WritesLinesAndOmitsAbsentDebug() throws Exception {
+        // Prepare test data
+        BasketLine line = new BasketLine("lapte zuzu", "P001", "Zuzu", "lidl", 8.62, 3, 25.86);
+        Map<String, Double> totals = new LinkedHashMap<>();
+        totals.put("lidl", 25.86);
+        BasketSplit split = new BasketSplit(Collections.singletonList(line), totals, 25.86);
+
+        assertEquals("{\"items\":[{\"productName\":\"lapte zuzu\",\"productId\":\"P001\",\"brand\":\"Zuzu\","
+                + "\"store\":\"lidl\",\"price\":8.62,\"quantity\":3.0,\"total\":25.86}],"
+                + "\"storeTotals\":{\"lidl\":25.86},\"overallTotal\":25.86}",
+            mapper.writeValueAsString(split));
+        assertTrue(mapper.writeValueAsString(split.withDebug(Collections.singletonMap("stores", 2)))
+            .endsWith(",\"debug\":{\"stores\":2}}"));
+    }
+
+    @Test
+    void triggeredAlert_WritesUserAndDateOnlyWhenTagged() throws Exception {
+        // Prepare test data
+        TriggeredAlert alert = new TriggeredAlert("lidl", "lapte zuzu", "Zuzu", 10.0, 20.0, 8.0, 8.5, "RON", null);
+
+        String untagged = mapper.writeValueAsString(alert);
+        String tagged = mapper.writeValueAsString(alert.forUser("u1", "2025-05-08"));
+
+        assertTrue(untagged.startsWith("{\"store\":\"lidl\""));
+        assertFalse(untagged.contains("notification"));
+        assertTrue(tagged.startsWith("{\"userId\":\"u1\",\"date\":\"2025-05-08\",\"store\":\"lidl\""));
+    }
+}
@@ -0,0 +1,114 @@
+package com.accesa.pricecomparator.model;
+
+import com.accesa.pricecomparator.service.ProductTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SymbolsTest {
+
+    @Test
+    void encode_SameValueSameCode() {
+        int code = Symbols.encode("lactate");
+        assertEquals(code, Symbols.encode(new String("lactate")));
+        assertEquals("lactate", Symbols.decode(code));
+        assertEquals(Symbols.NULL, Symbols.encode(null));
+        assertNull(Symbols.decode(Symbols.NULL));
+        assertNotEquals(code, Symbols.encode("Lactate"));
+    }
+
+    @Test
+    void tables_ShareCodesAndInstancesAcrossFiles() {
+        // Prepare test data: the same product in two different price files
+        ProductTable lidl = new ProductTable.Builder()
+            .add("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 9.9, "RON").build();
+        ProductTable kaufland = new ProductTable.Builder()
+            .add("P100", "iaurt grecesc", "lactate", "Olympus", 0.4, "kg", 11.2, "RON")
+            .add("P101", "lapte zuzu", "lactate", "Zuzu", 1, "l", 10.1, "RON").build();
+
+        Product a = lidl.toProduct(0);
+        Product b = kaufland.toProduct(1);
+        assertEquals(a.getProductNameCode(), b.getProductNameCode());
+        assertEquals(a.getCurrencyCode(), b.getCurrencyCode());
+        assertSame(a.getProductCategory(), b.getProductCategory());
+        assertSame(lidl.getBrand(0), kaufland.getBrand(1));
+    }
+
+    @Test
+    void product_SerializesStringsNotCodes() throws Exception {
+        // Prepare test data
+        Product p = new Product();
+        p.setProductId("P001");
+        p.setProductName("lapte zuzu");
+        p.setBrand("Zuzu");
+
+        String json = new ObjectMapper().writeValueAsString(p);
+
+        assertTrue(json.contains("\"productName\":\"lapte zuzu\""));
+        assertTrue(json.contains("\"packageUnit\":null"));
+        assertFalse(json.contains("Code"));
+    }
+
+    @Test
+    void encode_ConcurrentCallersAgreeOnCodes() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<int[]>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(() -> {
+                    int[] codes = new int[5000];
+                    for (int i = 0; i < codes.length; i++) {
+                        codes[i] = Symbols.encode("concurrent-" + i);
+                    }
+                    return codes;
+                });
+            }
+            List<Future<int[]>> results = pool.invokeAll(tasks);
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get());
+            }
+            for (int i = 0; i < first.length; i++) {
+                assertEquals("concurrent-" + i, Symbols.decode(first[i]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void lookup_DecodesEveryCodeItFindsWhileEncoding() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    Symbols.encode("lookup-" + i);
+                }
+            });
+            Future<Integer> reader = pool.submit(() -> {
+                int found = 0;
+                while (found < 5000) {
+                    int code = Symbols.lookup("lookup-" + found);
+                    if (code == -1) continue;
+                    assertEquals("lookup-" + found, Symbols.decode(code));
+                    found++;
+                }
+                return found;
+            });
+            writer.get();
+            assertEquals(5000, reader.get().intValue());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
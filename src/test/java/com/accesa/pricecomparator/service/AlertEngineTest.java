@@ -0,0 +1,176 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.PriceAlert;
+import com.accesa.pricecomparator.model.TriggeredAlert;
+import com.accesa.pricecomparator.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AlertEngineTest {
+
+    private static final String PRODUCT_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+    private static final String DISCOUNT_HEADER = "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n";
+
+    @TempDir
+    Path tempDir;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(tempDir);
+    }
+
+    @Test
+    void reload_EvaluatesOnlyAlertsOnChangedProducts() throws Exception {
+        // Prepare test data
+        Files.write(tempDir.resolve("lidl_2025-05-01.csv"), (PRODUCT_HEADER
+            + "P001;Lapte Zuzu;lactate;Zuzu;1;l;9.90;RON\n"
+            + "P002;Pâine albă;panificație;Vel Pitar;500;g;3.20;RON\n").getBytes(StandardCharsets.UTF_8));
+        CsvDataLoaderService loader = new CsvDataLoaderService(tempDir);
+        AlertEngine engine = new AlertEngine(loader, userService, outbox());
+        engine.start();
+        addUser("u1", "u1@example.com");
+        addUser("u2", "u2@example.com");
+        userService.addAlert("u1", alert("lapte zuzu", null, 9.00));
+        engine.reindex("u1");
+        // Already satisfied before the reload, but the price of this product does not change
+        userService.addAlert("u2", alert("paine alba", "VEL PITAR", 5.00));
+        engine.reindex("u2");
+        assertEquals(1, engine.countAlerts("Lapte Zuzu", ""));
+        assertEquals(1, engine.countAlerts("Pâine Albă", "vel pitar"));
+
+        Files.write(tempDir.resolve("lidl_2025-05-08.csv"), (PRODUCT_HEADER
+            + "P001;Lapte Zuzu;lactate;Zuzu;1;l;8.50;RON\n"
+            + "P002;Pâine albă;panificație;Vel Pitar;500;g;3.20;RON\n").getBytes(StandardCharsets.UTF_8));
+        loader.reload(Arrays.asList("lidl_2025-05-08.csv"));
+
+        List<TriggeredAlert> triggered = engine.getTriggered();
+        assertEquals(1, triggered.size());
+        assertEquals("u1", triggered.get(0).getUserId());
+        assertEquals("2025-05-08", triggered.get(0).getDate());
+        assertEquals("lidl", triggered.get(0).getStore());
+        assertEquals(8.50, triggered.get(0).getFinalPrice());
+    }
+
+    @Test
+    void reload_EvaluatesNewDiscountsOnTheDayTheyStart() throws Exception {
+        // Prepare test data
+        Files.write(tempDir.resolve("lidl_2025-05-01.csv"),
+            (PRODUCT_HEADER + "P001;Lapte Zuzu;lactate;Zuzu;1;l;10.00;RON\n").getBytes(StandardCharsets.UTF_8));
+        CsvDataLoaderService loader = new CsvDataLoaderService(tempDir);
+        AlertEngine engine = new AlertEngine(loader, userService, outbox());
+        engine.start();
+        addUser("u1", "u1@example.com");
+        userService.addAlert("u1", alert("Lapte Zuzu", "Zuzu", 8.00));
+        engine.reindex("u1");
+
+        // Execute test: a discount file whose discount only starts days after the file's date
+        Files.write(tempDir.resolve("lidl_discounts_2025-05-01.csv"), (DISCOUNT_HEADER
+            + "P001;Lapte Zuzu;Zuzu;1;l;lactate;2025-05-04;2025-05-07;20\n").getBytes(StandardCharsets.UTF_8));
+        loader.reload(Arrays.asList("lidl_discounts_2025-05-01.csv"));
+
+        // Verify results
+        List<TriggeredAlert> triggered = engine.getTriggered("u1");
+        assertEquals(1, triggered.size());
+        assertEquals("2025-05-04", triggered.get(0).getDate());
+        assertEquals(8.0, triggered.get(0).getFinalPrice());
+    }
+
+    @Test
+    void reload_KeepsTriggersOfEarlierReloads() throws Exception {
+        // Prepare test data
+        Files.write(tempDir.resolve("lidl_2025-05-01.csv"),
+            (PRODUCT_HEADER + "P001;Lapte Zuzu;lactate;Zuzu;1;l;10.00;RON\n").getBytes(StandardCharsets.UTF_8));
+        CsvDataLoaderService loader = new CsvDataLoaderService(tempDir);
+        AlertEngine engine = new AlertEngine(loader, userService, outbox());
+        engine.start();
+        addUser("u1", "u1@example.com");
+        userService.addAlert("u1", alert("Lapte Zuzu", null, 9.00));
+        engine.reindex("u1");
+
+        // Execute test: two reloads each lower the price below the target, a third one touches another store
+        for (String day : new String[] {"08", "15"}) {
+            Files.write(tempDir.resolve("lidl_2025-05-" + day + ".csv"),
+                (PRODUCT_HEADER + "P001;Lapte Zuzu;lactate;Zuzu;1;l;8." + day + ";RON\n").getBytes(StandardCharsets.UTF_8));
+            loader.reload(Arrays.asList("lidl_2025-05-" + day + ".csv"));
+        }
+        Files.write(tempDir.resolve("profi_2025-05-15.csv"),
+            (PRODUCT_HEADER + "P001;Paine;panificatie;Vel Pitar;1;buc;3.00;RON\n").getBytes(StandardCharsets.UTF_8));
+        loader.reload(Arrays.asList("profi_2025-05-15.csv"));
+
+        // Verify results
+        List<TriggeredAlert> triggered = engine.getTriggered("u1");
+        assertEquals(2, triggered.size());
+        assertEquals("2025-05-08", triggered.get(0).getDate());
+        assertEquals("2025-05-15", triggered.get(1).getDate());
+        assertEquals(triggered, engine.getTriggered());
+        assertTrue(engine.getTriggered("u2").isEmpty());
+    }
+
+    @Test
+    void check_AppliesBestDiscountInEffect() throws Exception {
+        // Prepare test data
+        Files.write(tempDir.resolve("lidl_2025-05-01.csv"),
+            (PRODUCT_HEADER + "P001;Lapte Zuzu;lactate;Zuzu;1;l;10.00;RON\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("lidl_discounts_2025-05-01.csv"), (DISCOUNT_HEADER
+            + "P001;Lapte Zuzu;Zuzu;1;l;lactate;2025-05-01;2025-05-07;20\n").getBytes(StandardCharsets.UTF_8));
+        AlertEngine engine = new AlertEngine(new CsvDataLoaderService(tempDir), userService, outbox());
+        addUser("u1", "u1@example.com");
+        userService.addAlert("u1", alert("Lapte Zuzu", "Zuzu", 8.00));
+        engine.reindex("u1");
+
+        List<TriggeredAlert> triggered = engine.check("u1", LocalDate.parse("2025-05-03"));
+        assertEquals(1, triggered.size());
+        assertNull(triggered.get(0).getUserId());
+        assertEquals(20.0, triggered.get(0).getDiscountPercent());
+        assertEquals(8.0, triggered.get(0).getFinalPrice());
+        assertTrue(engine.check("u1", LocalDate.parse("2025-05-08")).isEmpty());
+    }
+
+    @Test
+    void reindex_ReplacesPreviousAlertsOfUser() {
+        AlertEngine engine = new AlertEngine(new CsvDataLoaderService(tempDir), userService, outbox());
+        userService.addAlert("u1", alert("Lapte Zuzu", "Zuzu", 9.00));
+        engine.reindex("u1");
+        // An alert without a brand replaces the alerts on every brand of the product
+        userService.addAlert("u1", alert("lapte zuzu", null, 8.00));
+        engine.reindex("u1");
+
+        assertEquals(0, engine.countAlerts("Lapte Zuzu", "Zuzu"));
+        assertEquals(1, engine.countAlerts("Lapte Zuzu", null));
+    }
+
+    private NotificationOutbox outbox() {
+        // Not started: notifications stay queued in memory
+        return new NotificationOutbox(new LoggingNotificationSender(), tempDir.resolve("outbox.ndjson"));
+    }
+
+    private void addUser(String userId, String email) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName(userId);
+        user.setEmail(email);
+        userService.addUser(user);
+    }
+
+    private static PriceAlert alert(String productName, String brand, double targetPrice) {
+        PriceAlert alert = new PriceAlert();
+        alert.setProductName(productName);
+        alert.setBrand(brand);
+        alert.setTargetPrice(targetPrice);
+        return alert;
+    }
+}
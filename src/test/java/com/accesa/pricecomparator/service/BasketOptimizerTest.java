@@ -0,0 +1,127 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.BasketItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BasketOptimizerTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2025-05-01");
+    private static final long BUDGET = 10_000_000_000L;
+
+    @Test
+    void optimize_MatchesBruteForce() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            int stores = 2 + random.nextInt(8);
+            List<BasketItem> items = items(12);
+            BasketOffers offers = BasketOffers.resolve(catalog(random, stores, 12, 0.7), items, DATE);
+            Integer maxStores = random.nextBoolean() ? null : 1 + random.nextInt(3);
+            double visitCost = random.nextInt(3) * 5.0;
+
+            BasketPlan plan = BasketOptimizer.optimize(offers, items, maxStores, visitCost, BUDGET);
+
+            assertTrue(plan.isExact());
+            int chosen = 0;
+            for (int s = 0; s < stores; s++) {
+                if (plan.isSelected(s)) chosen++;
+            }
+            assertTrue(maxStores == null || chosen <= maxStores);
+            assertEquals(bruteForce(offers, items, maxStores == null ? stores : maxStores, visitCost), plan.getCost());
+        }
+    }
+
+    @Test
+    void optimize_VisitCostConsolidatesStores() {
+        // Prepare test data: store A is cheaper for the first item, store B for the second, each by 1.00
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("a_2025-05-01.csv", new ProductTable.Builder()
+                .add("P0", "item 0", "cat", "brand", 1, "buc", 10.0, "RON")
+                .add("P1", "item 1", "cat", "brand", 1, "buc", 11.0, "RON").build())
+            .putProductTable("b_2025-05-01.csv", new ProductTable.Builder()
+                .add("P0", "item 0", "cat", "brand", 1, "buc", 11.0, "RON")
+                .add("P1", "item 1", "cat", "brand", 1, "buc", 10.0, "RON").build())
+            .build();
+        List<BasketItem> items = items(2);
+        items.get(1).setQuantity(1);
+        BasketOffers offers = BasketOffers.resolve(catalog, items, DATE);
+
+        BasketPlan split = BasketOptimizer.optimize(offers, items, null, 0.5, BUDGET);
+        assertTrue(split.isSelected(0) && split.isSelected(1));
+        BasketPlan single = BasketOptimizer.optimize(offers, items, null, 2.0, BUDGET);
+        assertTrue(single.isSelected(0) ^ single.isSelected(1));
+        assertEquals(Money.of(23.0), single.getCost());
+    }
+
+    @Test
+    void optimize_ManyStoresUsesHeuristic() {
+        Random random = new Random(11);
+        int stores = BasketOptimizer.EXACT_MAX_STORES + 5;
+        List<BasketItem> items = items(100);
+        BasketOffers offers = BasketOffers.resolve(catalog(random, stores, 100, 0.5), items, DATE);
+
+        BasketPlan plan = BasketOptimizer.optimize(offers, items, 3, 2.0, 200_000_000L);
+
+        assertFalse(plan.isExact());
+        int chosen = 0;
+        for (int s = 0; s < stores; s++) {
+            if (plan.isSelected(s)) chosen++;
+        }
+        assertTrue(chosen >= 1 && chosen <= 3);
+    }
+
+    private static long bruteForce(BasketOffers offers, List<BasketItem> items, int maxStores, double visitCost) {
+        int stores = offers.getStores().size();
+        long best = Long.MAX_VALUE;
+        for (int mask = 1; mask < (1 << stores); mask++) {
+            if (Integer.bitCount(mask) > maxStores) continue;
+            long total = Money.of(visitCost) * Integer.bitCount(mask);
+            for (int i = 0; i < items.size(); i++) {
+                if (offers.best(i) == null) continue;
+                long itemCost = Long.MAX_VALUE;
+                for (int s = 0; s < stores; s++) {
+                    BasketOffer offer = offers.getOffer(i, s);
+                    if ((mask & (1 << s)) != 0 && offer != null) {
+                        itemCost = Math.min(itemCost, Money.times(offer.getPrice(), items.get(i).getQuantity()));
+                    }
+                }
+                total += itemCost == Long.MAX_VALUE ? Money.of(1e9) : itemCost;
+            }
+            best = Math.min(best, total);
+        }
+        return best;
+    }
+
+    private static PriceCatalog catalog(Random random, int stores, int products, double carried) {
+        PriceCatalog.Builder builder = new PriceCatalog.Builder();
+        for (int s = 0; s < stores; s++) {
+            ProductTable.Builder table = new ProductTable.Builder();
+            for (int p = 0; p < products; p++) {
+                if (random.nextDouble() < carried) {
+                    table.add("P" + p, "item " + p, "cat", "brand", 1, "buc", 1 + random.nextInt(2000) / 100.0, "RON");
+                }
+            }
+            builder.putProductTable(String.format("store%02d_2025-05-01.csv", s), table.build());
+        }
+        return builder.build();
+    }
+
+    private static List<BasketItem> items(int count) {
+        List<BasketItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BasketItem item = new BasketItem();
+            item.setProductName("item " + i);
+            item.setQuantity(1 + i % 3);
+            items.add(item);
+        }
+        return items;
+    }
+}
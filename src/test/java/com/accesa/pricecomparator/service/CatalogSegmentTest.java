@@ -0,0 +1,114 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+import com.accesa.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CatalogSegmentTest {
+
+    private static final String PRODUCT_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+    private static final String DISCOUNT_HEADER = "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n";
+    private static final LocalDate DATE = LocalDate.parse("2025-05-01");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compile_SegmentsLoadTheSameTablesAsCsv() throws Exception {
+        // Prepare test data
+        Path data = writeData("9.90");
+        Path segments = tempDir.resolve("segments");
+
+        assertEquals(2, SegmentCompiler.compile(data, segments));
+        assertEquals(0, SegmentCompiler.compile(data, segments));
+
+        PriceCatalog fromCsv = new CsvDataLoaderService(data).getCatalog();
+        PriceCatalog fromSegments = new CsvDataLoaderService(data, segments).getCatalog();
+        assertProductsEqual(fromCsv.getProducts("lidl", DATE), fromSegments.getProducts("lidl", DATE));
+        List<Discount> expected = fromCsv.getDiscounts("lidl", DATE);
+        List<Discount> actual = fromSegments.getDiscounts("lidl", DATE);
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.get(0).getProductName(), actual.get(0).getProductName());
+        assertEquals(expected.get(0).getToDate(), actual.get(0).getToDate());
+        assertEquals(expected.get(0).getPercentageOfDiscount(), actual.get(0).getPercentageOfDiscount());
+        assertEquals(1, fromSegments.getProductTable("lidl_2025-05-01.csv").findRows("brânză telemea", null).length);
+        ProductTable segmentTable = fromSegments.getProductTable("lidl_2025-05-01.csv");
+        assertEquals(fromCsv.getProductTable("lidl_2025-05-01.csv").getUnitPrice(0), segmentTable.getUnitPrice(0));
+        assertEquals(1, segmentTable.findRowsByUnitPrice("lactate", PackageUnits.PER_100G).length);
+    }
+
+    @Test
+    void loader_PrefersFreshSegmentAndFallsBackToCsv() throws Exception {
+        // Prepare test data: a segment compiled from a 9.90 price
+        Path data = writeData("9.90");
+        Path segments = tempDir.resolve("segments");
+        SegmentCompiler.compile(data, segments);
+        Path csv = data.resolve("lidl_2025-05-01.csv");
+        FileTime compiledAt = Files.getLastModifiedTime(csv);
+
+        // Same size and modification time: the segment is still considered fresh and wins over the CSV
+        writeData("8.80");
+        Files.setLastModifiedTime(csv, compiledAt);
+        assertEquals(9.90, new CsvDataLoaderService(data, segments).getCatalog().getProducts("lidl", DATE).get(0).getPrice());
+
+        // A newer CSV makes the segment stale: the CSV is parsed and the segment rewritten
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(compiledAt.toMillis() + 5000));
+        assertEquals(8.80, new CsvDataLoaderService(data, segments).getCatalog().getProducts("lidl", DATE).get(0).getPrice());
+        assertNotNull(CatalogSegment.readProducts(CatalogSegment.segmentPath(segments, "lidl_2025-05-01.csv"), csv));
+    }
+
+    @Test
+    void readProducts_RejectsCorruptSegment() throws Exception {
+        // Prepare test data
+        Path data = writeData("9.90");
+        Path segments = tempDir.resolve("segments");
+        SegmentCompiler.compile(data, segments);
+        Path csv = data.resolve("lidl_2025-05-01.csv");
+        Path segment = CatalogSegment.segmentPath(segments, "lidl_2025-05-01.csv");
+        assertNotNull(CatalogSegment.readProducts(segment, csv));
+
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        assertNull(CatalogSegment.readProducts(segment, csv));
+        assertNull(CatalogSegment.readDiscounts(segment, csv));
+    }
+
+    private Path writeData(String price) throws Exception {
+        Path data = tempDir.resolve("data");
+        Files.createDirectories(data);
+        Files.write(data.resolve("lidl_2025-05-01.csv"), (PRODUCT_HEADER +
+            "P001;lapte zuzu;lactate;Zuzu;1;l;" + price + ";RON\n" +
+            "P009;brânză telemea;lactate;Hochland;0.3;kg;12.40;RON\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(data.resolve("lidl_discounts_2025-05-01.csv"), (DISCOUNT_HEADER +
+            "P009;brânză telemea;Hochland;0.3;kg;lactate;2025-05-01;2025-05-07;10\n").getBytes(StandardCharsets.UTF_8));
+        return data;
+    }
+
+    private static void assertProductsEqual(List<Product> expected, List<Product> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getProductId(), actual.get(i).getProductId());
+            assertEquals(expected.get(i).getProductName(), actual.get(i).getProductName());
+            assertEquals(expected.get(i).getProductCategory(), actual.get(i).getProductCategory());
+            assertEquals(expected.get(i).getBrand(), actual.get(i).getBrand());
+            assertEquals(expected.get(i).getPackageQuantity(), actual.get(i).getPackageQuantity());
+            assertEquals(expected.get(i).getPackageUnit(), actual.get(i).getPackageUnit());
+            assertEquals(expected.get(i).getPrice(), actual.get(i).getPrice());
+            assertEquals(expected.get(i).getCurrency(), actual.get(i).getCurrency());
+        }
+    }
+}
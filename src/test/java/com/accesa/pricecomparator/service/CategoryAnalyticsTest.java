@@ -0,0 +1,111 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.CategoryStats;
+import com.accesa.pricecomparator.model.PriceStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CategoryAnalyticsTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2025-05-08");
+
+    @Test
+    void percentile_InterpolatesBetweenRanks() {
+        double[] values = {1, 2, 3, 4};
+        assertEquals(1.0, CategoryAnalytics.percentile(values, 0.0));
+        assertEquals(2.5, CategoryAnalytics.percentile(values, 0.5));
+        assertEquals(3.7, CategoryAnalytics.percentile(values, 0.9), 1e-9);
+        assertEquals(4.0, CategoryAnalytics.percentile(values, 1.0));
+        assertEquals(5.0, CategoryAnalytics.percentile(new double[]{5}, 0.9));
+    }
+
+    @Test
+    void compute_PerStoreAndCategory() {
+        // Prepare test data
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("lidl_2025-05-08.csv", new ProductTable.Builder()
+                .add("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 10.0, "RON")
+                .add("P002", "iaurt grecesc", "lactate", "Lidl", 0.4, "kg", 12.0, "RON")
+                .add("P008", "brânză telemea", "lactate", "Pilos", 0.3, "kg", 13.0, "RON")
+                .add("P020", "zahăr", "alimente de bază", "Mărgăritar", 1, "kg", 5.0, "RON")
+                .build())
+            .putDiscountTable("lidl_discounts_2025-05-08.csv", new DiscountTable.Builder()
+                .add("P001", "lapte zuzu", "Zuzu", 1, "l", "lactate", DATE, DATE.plusDays(6), 10)
+                .add("P008", "brânză telemea", "Pilos", 0.3, "kg", "lactate", DATE, DATE.plusDays(6), 20)
+                .add("P002", "iaurt grecesc", "Lidl", 0.4, "kg", "lactate", DATE.plusDays(1), DATE.plusDays(6), 50)
+                .build())
+            .putProductTable("profi_2025-05-08.csv", new ProductTable.Builder()
+                .add("P004", "iaurt grecesc", "lactate", "Proxi", 0.4, "kg", 11.4, "RON")
+                .build())
+            .build();
+
+        // Execute test
+        List<CategoryStats> result = CategoryAnalytics.compute(catalog, DATE);
+
+        // Verify results: stores in order, then categories by name
+        assertEquals(3, result.size());
+        assertEquals("alimente de bază", result.get(0).getCategory());
+        CategoryStats lactate = result.get(1);
+        assertEquals("lidl", lactate.getStore());
+        assertEquals("lactate", lactate.getCategory());
+        assertEquals(DATE, lactate.getDate());
+        assertEquals(3, lactate.getProducts());
+        // Effective prices 9.00, 10.40 and 12.00 (the 50% discount starts tomorrow)
+        PriceStats effective = lactate.getEffectivePrice();
+        assertEquals(9.0, effective.getMin());
+        assertEquals(10.4, effective.getMedian());
+        assertEquals(11.68, effective.getP90());
+        assertEquals(12.0, effective.getMax());
+        // Per 100g: telemea 10.40 / 3, iaurt 12.00 / 4; per 100ml: lapte 9.00 / 10
+        assertEquals(3.0, lactate.getUnitPrice().get("per 100g").getMin());
+        assertEquals(3.47, lactate.getUnitPrice().get("per 100g").getMax());
+        assertEquals(0.9, lactate.getUnitPrice().get("per 100ml").getMedian());
+        assertEquals(2, lactate.getDiscountedProducts());
+        assertEquals(15.0, lactate.getAverageDiscount());
+
+        CategoryStats profi = result.get(2);
+        assertEquals("profi", profi.getStore());
+        assertEquals(0, profi.getDiscountedProducts());
+        assertEquals(0.0, profi.getAverageDiscount());
+        assertEquals(11.4, profi.getEffectivePrice().getP90());
+    }
+
+    @Test
+    void compute_CountsProductsWithoutAUnitPrice() {
+        // Prepare test data: a zero package quantity leaves the row without a unit price
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putProductTable("lidl_2025-05-08.csv", new ProductTable.Builder()
+                .add("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 10.0, "RON")
+                .add("P003", "smântână", "lactate", "Napolact", 0, "g", 6.0, "RON")
+                .add("P030", "ouă", "ouă", "Lidl", 0, "buc", 15.0, "RON")
+                .build())
+            .putDiscountTable("lidl_discounts_2025-05-08.csv", new DiscountTable.Builder()
+                .add("P003", "smântână", "Napolact", 0, "g", "lactate", DATE, DATE.plusDays(6), 50)
+                .build())
+            .build();
+
+        // Execute test
+        List<CategoryStats> result = CategoryAnalytics.compute(catalog, DATE);
+
+        // Verify results
+        assertEquals(2, result.size());
+        CategoryStats lactate = result.get(0);
+        assertEquals(2, lactate.getProducts());
+        assertEquals(3.0, lactate.getEffectivePrice().getMin());
+        assertEquals(10.0, lactate.getEffectivePrice().getMax());
+        assertEquals(1, lactate.getDiscountedProducts());
+        assertEquals(50.0, lactate.getAverageDiscount());
+        assertEquals(1, lactate.getUnitPrice().size());
+        assertEquals(1.0, lactate.getUnitPrice().get("per 100ml").getMin());
+        CategoryStats eggs = result.get(1);
+        assertEquals("ouă", eggs.getCategory());
+        assertEquals(1, eggs.getProducts());
+        assertTrue(eggs.getUnitPrice().isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package com.accesa.pricecomparator.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CategoryUnitPriceIndexTest {
+
+    private ProductTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new ProductTable.Builder()
+            .add("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 9.9, "RON")
+            .add("P002", "iaurt grecesc", "lactate", "Lidl", 0.4, "kg", 11.5, "RON")
+            .add("P003", "lapte praf", "lactate", "Nido", 400, "g", 30.0, "RON")
+            .add("P004", "smântână", "lactate", "Napolact", 200, "ML", 4.6, "RON")
+            .add("P005", "brânză telemea", "lactate", "Hochland", 0.3, "Kg", 13.5, "RON")
+            .add("P006", "ouă mărimea M", "ouă", "Ferma", 10, "buc", 13.0, "RON")
+            .build();
+    }
+
+    @Test
+    void table_NormalizesPackageSizes() {
+        assertEquals(10.0, table.getUnitQuantity(0));
+        assertEquals("per 100ml", table.getUnitLabel(0));
+        assertEquals(0.99, table.getUnitPrice(0), 1e-9);
+        assertEquals(4.0, table.getUnitQuantity(1));
+        assertEquals("per 100g", table.getUnitLabel(1));
+        assertEquals(4.0, table.getUnitQuantity(2));
+        assertEquals("per 100ml", table.getUnitLabel(3));
+        assertEquals(2.3, table.getUnitPrice(3), 1e-9);
+        assertEquals("per 100g", table.getUnitLabel(4));
+        assertEquals(10.0, table.getUnitQuantity(5));
+        assertEquals("per 1 buc", table.getUnitLabel(5));
+        assertEquals(table.getUnitLabelCode(1), table.getUnitLabelCode(4));
+    }
+
+    @Test
+    void findRowsByUnitPrice_SortedWithinCategoryAndUnit() {
+        // per 100g: iaurt 2.875, lapte praf 7.5, telemea 4.5
+        assertArrayEquals(new int[]{1, 4, 2}, table.findRowsByUnitPrice("lactate", "per 100g"));
+        // per 100ml: lapte 0.99, smântână 2.3
+        assertArrayEquals(new int[]{0, 3}, table.findRowsByUnitPrice("lactate", "per 100ml"));
+        assertArrayEquals(new int[]{5}, table.findRowsByUnitPrice("ouă", "per 1 buc"));
+        assertArrayEquals(new int[0], table.findRowsByUnitPrice("ouă", "per 100g"));
+        assertArrayEquals(new int[0], table.findRowsByUnitPrice("nu există", "per 100g"));
+    }
+
+    @Test
+    void table_MalformedPackageSizesHaveNoUnitPrice() {
+        // Prepare test data
+        ProductTable malformed = new ProductTable.Builder()
+            .add("P010", "iaurt", "lactate", "Danone", 0, "kg", 4.0, "RON")
+            .add("P011", "iaurt", "lactate", "Olympus", 0.4, "kg", 6.0, "RON")
+            .add("P012", "iaurt", "lactate", "Zuzu", -1, "kg", 5.0, "RON")
+            .add("P013", "iaurt", "lactate", "Napolact", 1, null, 5.0, "RON")
+            .add("P014", "iaurt", "lactate", "Milli", Double.NaN, "kg", 5.0, "RON")
+            .build();
+
+        // Verify results
+        assertFalse(malformed.hasUnitPrice(0));
+        assertTrue(malformed.hasUnitPrice(1));
+        assertFalse(malformed.hasUnitPrice(2));
+        assertFalse(malformed.hasUnitPrice(3));
+        assertFalse(malformed.hasUnitPrice(4));
+        assertArrayEquals(new int[]{1}, malformed.findRowsByUnitPrice("lactate", "per 100g"));
+        assertEquals(1, malformed.getCategoryUnitPriceIndex().size());
+    }
+
+    @Test
+    void build_TiesKeepFileOrder() {
+        CategoryUnitPriceIndex index = CategoryUnitPriceIndex.build(
+            new int[]{7, 7, 7, 8}, new int[]{1, 1, 1, 1}, new double[]{2.0, 1.0, 2.0, 0.5});
+
+        assertArrayEquals(new int[]{1, 0, 2}, index.rows(7, 1));
+        assertArrayEquals(new int[]{3}, index.rows(8, 1));
+        assertEquals(2, index.size());
+    }
+}
@@ -4,9 +4,14 @@ import com.accesa.pricecomparator.model.Discount;
 import com.accesa.pricecomparator.model.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 
@@ -15,8 +20,13 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 class CsvDataLoaderServiceTest {
 
+    private static final String PRODUCT_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+
     private CsvDataLoaderService csvDataLoaderService;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         csvDataLoaderService = new CsvDataLoaderService();
@@ -80,6 +90,20 @@ class CsvDataLoaderServiceTest {
         ));
     }
 
+    @Test
+    void loadProducts_ServedFromCatalogMatchesCsvFile() {
+        List<Product> fromCatalog = csvDataLoaderService.loadProducts("lidl", "2025-05-03");
+        List<Product> fromFile = csvDataLoaderService.readProductsFromCsv("lidl_2025-05-01.csv");
+        assertFalse(fromCatalog.isEmpty());
+        assertEquals(fromFile.size(), fromCatalog.size());
+        for (int i = 0; i < fromFile.size(); i++) {
+            assertEquals(fromFile.get(i).getProductId(), fromCatalog.get(i).getProductId());
+            assertEquals(fromFile.get(i).getProductName(), fromCatalog.get(i).getProductName());
+            assertEquals(fromFile.get(i).getBrand(), fromCatalog.get(i).getBrand());
+            assertEquals(fromFile.get(i).getPrice(), fromCatalog.get(i).getPrice());
+        }
+    }
+
     @Test
     void loadProducts_InvalidStore() {
         String store = "InvalidStore";
@@ -111,4 +135,27 @@ class CsvDataLoaderServiceTest {
         String date = "invalid-date";
         assertThrows(DateTimeParseException.class, () -> csvDataLoaderService.loadDiscounts(store, date));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void reload_PublishesNewVersionAndKeepsOldOneIntact() throws Exception {
+        Files.write(tempDir.resolve("lidl_2025-05-01.csv"),
+            (PRODUCT_HEADER + "P001;lapte zuzu;lactate;Zuzu;1;l;9.90;RON\n").getBytes(StandardCharsets.UTF_8));
+        CsvDataLoaderService loader = new CsvDataLoaderService(tempDir);
+        PriceCatalog before = loader.getCatalog();
+
+        Files.write(tempDir.resolve("lidl_2025-05-08.csv"),
+            (PRODUCT_HEADER + "P001;lapte zuzu;lactate;Zuzu;1;l;8.50;RON\n").getBytes(StandardCharsets.UTF_8));
+        PriceCatalog after = loader.reload(Arrays.asList("lidl_2025-05-08.csv"));
+
+        assertSame(after, loader.getCatalog());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(9.90, before.getProducts("lidl", LocalDate.parse("2025-05-08")).get(0).getPrice());
+        assertEquals(8.50, after.getProducts("lidl", LocalDate.parse("2025-05-08")).get(0).getPrice());
+        // Unchanged files are shared with the previous version instead of being parsed again
+        assertSame(before.getProductTable("lidl_2025-05-01.csv"), after.getProductTable("lidl_2025-05-01.csv"));
+
+        Files.delete(tempDir.resolve("lidl_2025-05-08.csv"));
+        PriceCatalog removed = loader.reload(Arrays.asList("lidl_2025-05-08.csv"));
+        assertEquals(Arrays.asList("2025-05-01"), removed.getDates());
+    }
+}
@@ -0,0 +1,61 @@
+package com.accesa.pricecomparator.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DataFileIndexTest {
+
+    private DataFileIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = DataFileIndex.of(Arrays.asList(
+            "lidl_2025-05-01.csv",
+            "lidl_2025-05-08.csv",
+            "lidl_discounts_2025-05-01.csv",
+            "profi_2025-05-01.csv",
+            "profi_discounts_2025-05-08.csv",
+            "notes.txt"
+        ));
+    }
+
+    @Test
+    void getStoresAndDates_Sorted() {
+        assertEquals(Arrays.asList("lidl", "profi"), index.getStores());
+        assertEquals(Arrays.asList("2025-05-01", "2025-05-08"), index.getDates());
+    }
+
+    @Test
+    void findPriceFile_FloorPerStore() {
+        assertEquals("lidl_2025-05-01.csv", index.findPriceFile("lidl", LocalDate.parse("2025-05-07")));
+        assertEquals("lidl_2025-05-08.csv", index.findPriceFile("lidl", LocalDate.parse("2025-05-08")));
+        // profi has no 2025-05-08 price file, so the older one stays in effect
+        assertEquals("profi_2025-05-01.csv", index.findPriceFile("profi", LocalDate.parse("2025-05-20")));
+        assertNull(index.findPriceFile("lidl", LocalDate.parse("2025-04-30")));
+    }
+
+    @Test
+    void findDiscountFile_FloorPerStore() {
+        assertEquals("lidl_discounts_2025-05-01.csv", index.findDiscountFile("lidl", LocalDate.parse("2025-05-10")));
+        assertNull(index.findDiscountFile("profi", LocalDate.parse("2025-05-07")));
+        assertEquals("profi_discounts_2025-05-08.csv", index.findDiscountFile("profi", LocalDate.parse("2025-05-08")));
+    }
+
+    @Test
+    void findPriceFile_StoreNameIsCaseInsensitive() {
+        assertEquals("lidl_2025-05-01.csv", index.findPriceFile("Lidl", LocalDate.parse("2025-05-01")));
+    }
+
+    @Test
+    void findPriceFile_UnknownStore() {
+        assertNull(index.findPriceFile("InvalidStore", LocalDate.parse("2025-05-01")));
+        assertTrue(index.getDiscountFiles("InvalidStore").isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Discount;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DiscountIntervalIndexTest {
+
+    private static final LocalDate START = LocalDate.parse("2025-05-01");
+
+    @Test
+    void activeOnStartingOnAndMaxPercentage_MatchLinearScan() {
+        Random random = new Random(42);
+        List<DiscountTable> tables = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            DiscountTable.Builder builder = new DiscountTable.Builder();
+            for (int i = 0; i < 200; i++) {
+                LocalDate from = START.plusDays(random.nextInt(60));
+                LocalDate to = from.plusDays(random.nextInt(random.nextInt(10) == 0 ? 90 : 8));
+                builder.add("P" + t + "_" + i, "product " + i, "brand", 1, "kg", "cat", from, to, random.nextInt(50));
+            }
+            tables.add(builder.build());
+        }
+        DiscountIntervalIndex index = new DiscountIntervalIndex(tables);
+        assertEquals(800, index.size());
+
+        for (int offset = -5; offset < 160; offset++) {
+            LocalDate date = START.plusDays(offset);
+            List<String> expectedActive = new ArrayList<>();
+            List<String> expectedNew = new ArrayList<>();
+            double expectedMax = 0.0;
+            for (DiscountTable table : tables) {
+                for (Discount d : table.toDiscounts()) {
+                    if (!date.isBefore(d.getFromDate()) && !date.isAfter(d.getToDate())) {
+                        expectedActive.add(d.getProductId());
+                        expectedMax = Math.max(expectedMax, d.getPercentageOfDiscount());
+                    }
+                    if (date.isEqual(d.getFromDate())) {
+                        expectedNew.add(d.getProductId());
+                    }
+                }
+            }
+            assertEquals(expectedActive, ids(index.activeOn(date)), "active on " + date);
+            assertEquals(expectedNew, ids(index.startingOn(date)), "starting on " + date);
+            assertEquals(expectedMax, index.maxPercentageOn((int) date.toEpochDay()), "max on " + date);
+        }
+    }
+
+    @Test
+    void maxPercentageOn_IgnoresInvertedRanges() {
+        DiscountIntervalIndex index = new DiscountIntervalIndex(Arrays.asList(new DiscountTable.Builder()
+            .add("P1", "lapte", "Zuzu", 1, "l", "lactate", START.plusDays(5), START, 40)
+            .add("P2", "iaurt", "Danone", 1, "kg", "lactate", START, START.plusDays(2), 15)
+            .add("P3", "unt", "Napolact", 1, "kg", "lactate", START.plusDays(2), START.plusDays(3), 20)
+            .build()));
+
+        assertEquals(0.0, index.maxPercentageOn((int) START.minusDays(1).toEpochDay()));
+        assertEquals(15.0, index.maxPercentageOn((int) START.toEpochDay()));
+        assertEquals(20.0, index.maxPercentageOn((int) START.plusDays(2).toEpochDay()));
+        assertEquals(20.0, index.maxPercentageOn((int) START.plusDays(3).toEpochDay()));
+        assertEquals(0.0, index.maxPercentageOn((int) START.plusDays(4).toEpochDay()));
+        assertEquals(0.0, index.maxPercentageOn((int) START.plusDays(5).toEpochDay()));
+    }
+
+    @Test
+    void emptyIndex() {
+        DiscountIntervalIndex index = new DiscountIntervalIndex(Arrays.asList(new DiscountTable.Builder().build()));
+        assertTrue(index.activeOn(START).isEmpty());
+        assertTrue(index.startingOn(START).isEmpty());
+        assertEquals(0.0, index.maxPercentageOn((int) START.toEpochDay()));
+    }
+
+    private static List<String> ids(List<Discount> discounts) {
+        List<String> ids = new ArrayList<>();
+        for (Discount d : discounts) {
+            ids.add(d.getProductId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,118 @@
+package com.accesa.pricecomparator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DiscountRankingsTest {
+
+    private static final LocalDate START = LocalDate.parse("2025-05-01");
+
+    @Test
+    void top_OrdersByPercentageAndLimitsToK() {
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", table("L", 10, 30, 20))
+            .putDiscountTable("profi_discounts_2025-05-01.csv", table("P", 25, 5))
+            .build();
+        List<RankedDiscount> top = catalog.getDiscountRankings().top(START, 3);
+        assertEquals(3, top.size());
+        assertEquals("L1", top.get(0).getDiscount().getProductId());
+        assertEquals("P0", top.get(1).getDiscount().getProductId());
+        assertEquals("lidl", top.get(2).getStore());
+        assertTrue(catalog.getDiscountRankings().top(START.minusDays(1), 3).isEmpty());
+    }
+
+    @Test
+    void topPerProduct_KeepsBestDiscountOfEachName() {
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", table("L", 10, 30))
+            .putDiscountTable("profi_discounts_2025-05-01.csv", table("P", 25, 5))
+            .build();
+        List<RankedDiscount> top = catalog.getDiscountRankings().topPerProduct(START, 10);
+        assertEquals(2, top.size());
+        assertEquals("L1", top.get(0).getDiscount().getProductId());
+        assertEquals("P0", top.get(1).getDiscount().getProductId());
+    }
+
+    @Test
+    void update_MatchesFullRebuild() {
+        PriceCatalog first = new PriceCatalog.Builder()
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", table("L", 10, 30, 20))
+            .putDiscountTable("profi_discounts_2025-05-01.csv", table("P", 25, 5))
+            .build();
+        DiscountTable replacement = table("P", 40, 1, 2, 3);
+        PriceCatalog updated = new PriceCatalog.Builder(first)
+            .putDiscountTable("profi_discounts_2025-05-01.csv", replacement)
+            .putDiscountTable("kaufland_discounts_2025-05-08.csv", table("K", 15))
+            .build();
+        PriceCatalog rebuilt = new PriceCatalog.Builder()
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", first.getDiscountTable("lidl_discounts_2025-05-01.csv"))
+            .putDiscountTable("profi_discounts_2025-05-01.csv", replacement)
+            .putDiscountTable("kaufland_discounts_2025-05-08.csv", updated.getDiscountTable("kaufland_discounts_2025-05-08.csv"))
+            .build();
+        for (int offset = -1; offset < 12; offset++) {
+            LocalDate date = START.plusDays(offset);
+            assertEquals(ids(rebuilt.getDiscountRankings().top(date, 10)), ids(updated.getDiscountRankings().top(date, 10)));
+            assertEquals(ids(rebuilt.getDiscountRankings().topPerProduct(date, 10)), ids(updated.getDiscountRankings().topPerProduct(date, 10)));
+        }
+    }
+
+    @Test
+    void top_KeepsTheSameOrderBeyondMaxK() {
+        double[] percentages = new double[DiscountRankings.MAX_K];
+        Arrays.fill(percentages, 10);
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", table("L", percentages))
+            .putDiscountTable("profi_discounts_2025-05-01.csv", table("P", 10, 10, 30))
+            .build();
+        List<String> top = ids(catalog.getDiscountRankings().top(START, DiscountRankings.MAX_K + 3));
+        assertEquals(DiscountRankings.MAX_K + 3, top.size());
+        assertEquals("profi:P2", top.get(0));
+        assertEquals("lidl:L0", top.get(1));
+        assertEquals("profi:P1", top.get(top.size() - 1));
+        assertEquals(ids(catalog.getDiscountRankings().top(START, DiscountRankings.MAX_K)), top.subList(0, DiscountRankings.MAX_K));
+        List<String> perProduct = ids(catalog.getDiscountRankings().topPerProduct(START, DiscountRankings.MAX_K + 3));
+        assertEquals(DiscountRankings.MAX_K, perProduct.size());
+        assertEquals(Arrays.asList("profi:P2", "lidl:L0", "lidl:L1"), perProduct.subList(0, 3));
+    }
+
+    @Test
+    void top_RanksDiscountsValidUntilTheFarFuture() {
+        DiscountTable table = new DiscountTable.Builder()
+            .add("L0", "product 0", "brand", 1, "kg", "cat", START, LocalDate.of(9999, 12, 31), 10)
+            .add("L1", "product 1", "brand", 1, "kg", "cat", START.plusDays(3), START.plusDays(4), 20)
+            .build();
+        PriceCatalog catalog = new PriceCatalog.Builder()
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", table)
+            .build();
+        assertEquals(Arrays.asList("lidl:L0"), ids(catalog.getDiscountRankings().top(START, 10)));
+        assertEquals(Arrays.asList("lidl:L1", "lidl:L0"), ids(catalog.getDiscountRankings().top(START.plusDays(4), 10)));
+        assertEquals(Arrays.asList("lidl:L0"), ids(catalog.getDiscountRankings().top(LocalDate.of(9000, 1, 1), 10)));
+    }
+
+    /**
+     * One discount per percentage; product i is named "product i" and valid for a week from START.
+     */
+    private static DiscountTable table(String prefix, double... percentages) {
+        DiscountTable.Builder builder = new DiscountTable.Builder();
+        for (int i = 0; i < percentages.length; i++) {
+            builder.add(prefix + i, "product " + i, "brand", 1, "kg", "cat", START, START.plusDays(6), percentages[i]);
+        }
+        return builder.build();
+    }
+
+    private static List<String> ids(List<RankedDiscount> ranking) {
+        List<String> ids = new ArrayList<>();
+        for (RankedDiscount r : ranking) {
+            ids.add(r.getStore() + ":" + r.getDiscount().getProductId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,104 @@
+package com.accesa.pricecomparator.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class MappedCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reader_ParsesFieldsLikeTheOldParser() throws IOException {
+        // Prepare test data: BOM, CRLF endings, a blank line, a quoted field and UTF-8 text
+        Path file = write("\uFEFFid;name;price;from\r\n" +
+            "P1;brânză telemea;12.30;2025-05-01\r\n" +
+            "\r\n" +
+            "P2;\"ouă \"\"M\"\"; 10\";-0.5;2025-12-31\n" +
+            "P3;brânză telemea;1e2;2025-02-28");
+        StringDictionary dictionary = new StringDictionary();
+
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            assertTrue(reader.nextRecord());
+            assertEquals("id", reader.nextString());
+            assertTrue(reader.nextRecord());
+            assertEquals("P1", reader.nextString());
+            int cheese = reader.nextCode(dictionary);
+            assertEquals("brânză telemea", dictionary.decode(cheese));
+            assertEquals(12.30, reader.nextDouble());
+            assertEquals(LocalDate.parse("2025-05-01").toEpochDay(), reader.nextEpochDay());
+            assertTrue(reader.nextRecord());
+            assertEquals("P2", reader.nextString());
+            assertEquals("ouă \"M\"; 10", dictionary.decode(reader.nextCode(dictionary)));
+            assertEquals(-0.5, reader.nextDouble());
+            assertEquals(LocalDate.parse("2025-12-31").toEpochDay(), reader.nextEpochDay());
+            assertTrue(reader.nextRecord());
+            assertEquals("P3", reader.nextString());
+            assertEquals(cheese, reader.nextCode(dictionary));
+            assertEquals(100.0, reader.nextDouble());
+            assertEquals(LocalDate.parse("2025-02-28").toEpochDay(), reader.nextEpochDay());
+            assertThrows(IOException.class, reader::nextString);
+            assertFalse(reader.nextRecord());
+        }
+        assertEquals(dictionary.encode("brânză telemea"), dictionary.encode("brânză telemea"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void nextDouble_MatchesParseDouble() throws IOException {
+        // Prepare test data
+        Random random = new Random(7);
+        StringBuilder csv = new StringBuilder();
+        String[] values = new String[2000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (random.nextBoolean() ? "-" : "") + random.nextInt(1_000_000) + "." +
+                String.format("%0" + (1 + random.nextInt(6)) + "d", random.nextInt(100_000));
+            csv.append(values[i]).append('\n');
+        }
+
+        try (MappedCsvReader reader = new MappedCsvReader(write(csv.toString()))) {
+            for (String value : values) {
+                assertTrue(reader.nextRecord());
+                assertEquals(Double.parseDouble(value), reader.nextDouble(), 0.0, value);
+            }
+        }
+    }
+
+    @Test
+    void nextRecord_RemapsAcrossWindows() throws IOException {
+        // Prepare test data: many more bytes than one 64-byte window
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            csv.append("P").append(i).append(";item ").append(i % 7).append(';').append(i).append(".25\n");
+        }
+        StringDictionary dictionary = new StringDictionary();
+
+        try (MappedCsvReader reader = new MappedCsvReader(write(csv.toString()), 64)) {
+            for (int i = 0; i < 500; i++) {
+                assertTrue(reader.nextRecord());
+                assertEquals("P" + i, reader.nextString());
+                assertEquals("item " + (i % 7), dictionary.decode(reader.nextCode(dictionary)));
+                assertEquals(i + 0.25, reader.nextDouble());
+            }
+            assertFalse(reader.nextRecord());
+        }
+        assertEquals(7, dictionary.size());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("data.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
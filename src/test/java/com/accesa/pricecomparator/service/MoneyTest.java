@@ -0,0 +1,43 @@
+package com.accesa.pricecomparator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class MoneyTest {
+
+    @Test
+    void of_ConvertsDecimalPricesExactly() {
+        assertEquals(990, Money.of(9.90));
+        assertEquals(1, Money.of(0.01));
+        assertEquals(5290, Money.of(52.9));
+        assertEquals(9.9, Money.toDouble(990));
+        assertEquals(0.07, Money.toDouble(7));
+    }
+
+    @Test
+    void discount_RoundsHalfUpToWholeBani() {
+        // 9.90 - 15% = 8.415, which floating point computes as 8.414999...
+        assertEquals(842, Money.discount(990, 15));
+        assertEquals(875, Money.discount(1000, 12.5));
+        assertEquals(1000, Money.discount(1000, 0));
+        assertEquals(0, Money.discount(1000, 100));
+        assertEquals(1, Money.discount(1, 10));
+    }
+
+    @Test
+    void times_HandlesFractionalQuantities() {
+        assertEquals(2526, Money.times(842, 3));
+        assertEquals(1263, Money.times(842, 1.5));
+        assertEquals(0, Money.times(842, 0));
+    }
+
+    @Test
+    void sums_AreExact() {
+        // 0.1 + 0.2 + 0.3 is 0.6000000000000001 in floating point
+        assertEquals(0.6, Money.toDouble(Money.of(0.1) + Money.of(0.2) + Money.of(0.3)));
+        assertEquals(Money.of(0.1) + Money.of(0.2) + Money.of(0.3), Money.of(0.3) + Money.of(0.2) + Money.of(0.1));
+    }
+}
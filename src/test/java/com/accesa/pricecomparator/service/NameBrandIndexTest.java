@@ -0,0 +1,78 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Symbols;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class NameBrandIndexTest {
+
+    private ProductTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new ProductTable.Builder()
+            .add("P001", "pâine albă", "panificație", "Vel Pitar", 0.5, "kg", 3.2, "RON")
+            .add("P002", "detergent lichid", "produse de menaj", "Ariel", 2.5, "l", 52.9, "RON")
+            .add("P003", "Detergent  Lichid", "produse de menaj", "Persil", 2.5, "l", 49.5, "RON")
+            .add("P004", "brânză telemea", "lactate", null, 0.3, "kg", 13.5, "RON")
+            .build();
+    }
+
+    @Test
+    void normalize_FoldsCaseDiacriticsAndWhitespace() {
+        assertEquals("paine alba", NameBrandIndex.normalize("  Pâine   Albă "));
+        assertEquals("sunca taraneasca", NameBrandIndex.normalize("Șuncă Țărănească"));
+        assertEquals("", NameBrandIndex.normalize(null));
+    }
+
+    @Test
+    void findRows_ByNameOnly() {
+        assertArrayEquals(new int[]{1, 2}, table.findRows("detergent lichid", null));
+        assertArrayEquals(new int[]{1, 2}, table.findRows("DETERGENT LICHID", ""));
+        assertArrayEquals(new int[]{0}, table.findRows("paine alba", null));
+    }
+
+    @Test
+    void findRows_ByNameAndBrand() {
+        assertArrayEquals(new int[]{2}, table.findRows("detergent lichid", "persil"));
+        assertArrayEquals(new int[0], table.findRows("detergent lichid", "Dero"));
+    }
+
+    @Test
+    void findRows_NullBrandInData() {
+        assertArrayEquals(new int[]{3}, table.findRows("branza telemea", null));
+        assertArrayEquals(new int[0], table.findRows("branza telemea", "Pilos"));
+    }
+
+    @Test
+    void build_AddsNoSymbolsForNameBrandPairs() {
+        // Prepare test data: every column value is already known, every name/brand pair is new
+        String[] values = {"NBI_T1", "nbi_t2", "NBI_B1", "nbi_b2", "cat", "kg", PackageUnits.label("kg"), "RON"};
+        for (String value : values) {
+            Symbols.encode(value);
+        }
+        int before = Symbols.size();
+
+        // Execute test
+        ProductTable pairs = new ProductTable.Builder()
+            .add("X1", "NBI_T1", "cat", "NBI_B1", 1, "kg", 1.0, "RON")
+            .add("X2", "NBI_T1", "cat", "nbi_b2", 1, "kg", 1.0, "RON")
+            .add("X3", "nbi_t2", "cat", "NBI_B1", 1, "kg", 1.0, "RON")
+            .add("X4", "nbi_t2", "cat", "nbi_b2", 1, "kg", 1.0, "RON")
+            .build();
+
+        // Verify results
+        assertEquals(before, Symbols.size());
+        assertArrayEquals(new int[]{1}, pairs.findRows("nbi_t1", "NBI_B2"));
+        assertArrayEquals(new int[]{2, 3}, pairs.findRows("NBI_T2", null));
+    }
+
+    @Test
+    void findRows_Unknown() {
+        assertEquals(0, table.findRows("unknown", null).length);
+    }
+}
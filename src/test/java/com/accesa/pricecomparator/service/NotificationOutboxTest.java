@@ -0,0 +1,177 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.Notification;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class NotificationOutboxTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void enqueue_IgnoresIdenticalTriggers() {
+        NotificationOutbox outbox = new NotificationOutbox(new LoggingNotificationSender(), tempDir.resolve("outbox.ndjson"));
+
+        assertTrue(outbox.enqueue("a@example.com", "Price Alert Triggered", "lapte 8.5"));
+        assertFalse(outbox.enqueue("A@example.com", "Price Alert Triggered", "lapte 8.5"));
+        assertTrue(outbox.enqueue("a@example.com", "Price Alert Triggered", "lapte 8.0"));
+    }
+
+    @Test
+    void start_DeliversOneBatchPerRecipient() throws Exception {
+        // Prepare test data
+        Map<String, List<Notification>> batches = new ConcurrentHashMap<>();
+        NotificationOutbox outbox = new NotificationOutbox((recipient, notifications) ->
+            batches.put(recipient, new ArrayList<>(notifications)), tempDir.resolve("outbox.ndjson"));
+        for (int i = 0; i < 3; i++) {
+            outbox.enqueue("a@example.com", "Price Alert Triggered", "product " + i);
+        }
+        outbox.enqueue("b@example.com", "Price Alert Triggered", "product 0");
+
+        outbox.start();
+        try {
+            awaitCount(outbox, 4);
+        } finally {
+            outbox.stop();
+        }
+
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get("a@example.com").size());
+        assertEquals(1, batches.get("b@example.com").size());
+    }
+
+    @Test
+    void start_RedeliversUnacknowledgedNotifications() throws Exception {
+        Path file = tempDir.resolve("outbox.ndjson");
+        NotificationOutbox failing = new NotificationOutbox((recipient, notifications) -> {
+            throw new IllegalStateException("mail server down");
+        }, file);
+        failing.start();
+        failing.enqueue("a@example.com", "Price Alert Triggered", "lapte 8.5");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (failing.getFailedCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        failing.stop();
+        assertEquals(1, failing.getFailedCount());
+
+        List<Notification> delivered = Collections.synchronizedList(new ArrayList<>());
+        NotificationOutbox restarted = new NotificationOutbox((recipient, notifications) -> delivered.addAll(notifications), file);
+        restarted.start();
+        try {
+            awaitCount(restarted, 1);
+        } finally {
+            restarted.stop();
+        }
+        assertEquals("lapte 8.5", delivered.get(0).getBody());
+    }
+
+    @Test
+    void start_KeepsPendingNotificationsWhenAnAppendFailed() throws Exception {
+        // Prepare test data: the first batch cannot be appended, the second one cannot be delivered
+        Path file = tempDir.resolve("outbox.ndjson");
+        NotificationOutbox outbox = new NotificationOutbox((recipient, notifications) -> {
+            if (notifications.get(0).getBody().equals("fail")) throw new IllegalStateException("mail server down");
+        }, file);
+        outbox.start();
+        Files.createDirectory(file);
+        outbox.enqueue("a@example.com", "Price Alert Triggered", "lapte 8.5");
+        awaitCount(outbox, 1);
+        Files.delete(file);
+        outbox.enqueue("b@example.com", "Price Alert Triggered", "fail");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outbox.getFailedCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        // Let the dispatcher go idle, when an acknowledged outbox is truncated
+        Thread.sleep(1500);
+        outbox.stop();
+
+        // Execute test
+        List<Notification> delivered = Collections.synchronizedList(new ArrayList<>());
+        NotificationOutbox restarted = new NotificationOutbox((recipient, notifications) -> delivered.addAll(notifications), file);
+        restarted.start();
+        try {
+            awaitCount(restarted, 1);
+        } finally {
+            restarted.stop();
+        }
+
+        // Verify results
+        assertEquals("fail", delivered.get(0).getBody());
+    }
+
+    @Test
+    void start_RetriesFailedDeliveryInProcess() throws Exception {
+        // Prepare test data
+        AtomicInteger attempts = new AtomicInteger();
+        NotificationOutbox outbox = new NotificationOutbox((recipient, notifications) -> {
+            if (attempts.incrementAndGet() == 1) throw new IllegalStateException("mail server down");
+        }, tempDir.resolve("outbox.ndjson"));
+
+        // Execute test
+        outbox.start();
+        try {
+            outbox.enqueue("a@example.com", "Price Alert Triggered", "lapte 8.5");
+            awaitCount(outbox, 1);
+        } finally {
+            outbox.stop();
+        }
+
+        // Verify results
+        assertEquals(2, attempts.get());
+        assertEquals(1, outbox.getFailedCount());
+    }
+
+    @Test
+    void start_CompactsTheOutboxToPendingNotifications() throws Exception {
+        // Prepare test data: 1200 delivered notifications and one that cannot be delivered
+        Path file = tempDir.resolve("outbox.ndjson");
+        NotificationOutbox outbox = new NotificationOutbox((recipient, notifications) -> {
+            if (recipient.equals("b@example.com")) throw new IllegalStateException("mail server down");
+        }, file);
+        outbox.start();
+        try {
+            for (int i = 0; i < 1200; i++) {
+                outbox.enqueue("a@example.com", "Price Alert Triggered", "product " + i);
+            }
+            outbox.enqueue("b@example.com", "Price Alert Triggered", "fail");
+
+            // Execute test: uncompacted, the file would hold 2401 lines
+            awaitCount(outbox, 1200);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (Files.readAllLines(file).size() >= 1000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            outbox.stop();
+        }
+
+        // Verify results: how much was acknowledged since the last compaction depends on how the burst was batched
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.size() < 1000, "outbox holds " + lines.size() + " lines");
+        assertEquals(1, lines.stream().filter(line -> line.contains("\"fail\"")).count());
+    }
+
+    private static void awaitCount(NotificationOutbox outbox, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outbox.getSentCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, outbox.getSentCount());
+    }
+}
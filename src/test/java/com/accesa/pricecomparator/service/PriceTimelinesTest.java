@@ -0,0 +1,175 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.PriceHistoryEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PriceTimelinesTest {
+
+    private static final LocalDate START = LocalDate.parse("2025-05-01");
+
+    @Test
+    void timeline_AppliesBestDiscountAndKeepsOnlyChanges() {
+        // Prepare test data
+        NavigableMap<Long, ProductTable> prices = new TreeMap<>();
+        prices.put(START.toEpochDay(), new ProductTable.Builder()
+            .add("P001", "Lapte", "lactate", "Zuzu", 1, "l", 10.0, "RON").build());
+        prices.put(START.plusDays(7).toEpochDay(), new ProductTable.Builder()
+            .add("P001", "Lapte", "lactate", "Zuzu", 1, "l", 12.0, "RON").build());
+        List<DiscountTable> discounts = new ArrayList<>();
+        discounts.add(new DiscountTable.Builder()
+            .add("P001", "Lapte", "Zuzu", 1, "l", "lactate", START.plusDays(2), START.plusDays(4), 10)
+            .add("P001", "Lapte", "Zuzu", 1, "l", "lactate", START.plusDays(3), START.plusDays(3), 50)
+            .build());
+
+        PriceTimeline timeline = PriceTimelines.build(prices, discounts).find("lapte", "ZUZU");
+
+        List<PriceHistoryEntry> entries = timeline.read("lidl", null, null);
+        assertEquals(6, entries.size());
+        assertEntry(entries.get(0), 0, 10.0);
+        assertEntry(entries.get(1), 2, 9.0);
+        assertEntry(entries.get(2), 3, 5.0);
+        assertEntry(entries.get(3), 4, 9.0);
+        assertEntry(entries.get(4), 5, 10.0);
+        assertEntry(entries.get(5), 7, 12.0);
+
+        List<PriceHistoryEntry> range = timeline.read("lidl", START.plusDays(3), START.plusDays(5));
+        assertEquals(3, range.size());
+        assertEntry(range.get(0), 3, 5.0);
+        assertEntry(range.get(2), 5, 10.0);
+    }
+
+    @Test
+    void timeline_MatchesDayByDayRecomputation() {
+        Random random = new Random(7);
+        NavigableMap<Long, ProductTable> prices = new TreeMap<>();
+        for (int f = 0; f < 4; f++) {
+            ProductTable.Builder builder = new ProductTable.Builder();
+            for (int p = 0; p < 5; p++) {
+                if (random.nextInt(4) > 0) {
+                    builder.add("P" + p, "product " + p, "cat", "brand", 1, "kg", 1 + random.nextInt(20), "RON");
+                }
+            }
+            prices.put(START.plusDays(f * 10L).toEpochDay(), builder.build());
+        }
+        List<DiscountTable> discounts = new ArrayList<>();
+        DiscountTable.Builder builder = new DiscountTable.Builder();
+        for (int i = 0; i < 40; i++) {
+            LocalDate from = START.plusDays(random.nextInt(45));
+            builder.add("P" + (i % 5), "product " + (i % 5), "brand", 1, "kg", "cat",
+                from, from.plusDays(random.nextInt(6)), random.nextInt(60));
+        }
+        discounts.add(builder.build());
+        PriceTimelines timelines = PriceTimelines.build(prices, discounts);
+
+        for (int p = 0; p < 5; p++) {
+            PriceTimeline timeline = timelines.find("product " + p, null);
+            if (timeline == null) continue;
+            List<PriceHistoryEntry> entries = timeline.read("lidl", null, null);
+            Double lastPrice = null;
+            int next = 0;
+            for (int offset = 0; offset < 60; offset++) {
+                Double price = effectivePrice(prices, discounts, "product " + p, START.plusDays(offset));
+                if (price == null || (lastPrice != null && Math.abs(price - lastPrice) <= 0.0001)) continue;
+                assertEntry(entries.get(next++), offset, price);
+                lastPrice = price;
+            }
+            assertEquals(next, entries.size());
+        }
+    }
+
+    @Test
+    void find_UnknownProductOrBrand_ReturnsNull() {
+        NavigableMap<Long, ProductTable> prices = new TreeMap<>();
+        prices.put(START.toEpochDay(), new ProductTable.Builder()
+            .add("P001", "Lapte", "lactate", "Zuzu", 1, "l", 10.0, "RON").build());
+        PriceTimelines timelines = PriceTimelines.build(prices, new ArrayList<>());
+
+        assertNotNull(timelines.find("Lapte", ""));
+        assertNull(timelines.find("Lapte", "Napolact"));
+        assertNull(timelines.find("Paine", null));
+    }
+
+    @Test
+    void append_NewerPriceFileMatchesFullRebuild() {
+        // Prepare test data: the discount ends on day 4, so a file from day 7 is appended and one from day 3 is not
+        DiscountTable discounts = new DiscountTable.Builder()
+            .add("P001", "Lapte", "Zuzu", 1, "l", "lactate", START.plusDays(2), START.plusDays(4), 10)
+            .build();
+        ProductTable first = new ProductTable.Builder()
+            .add("P001", "Lapte", "lactate", "Zuzu", 1, "l", 10.0, "RON")
+            .add("P002", "Paine", "panificatie", "Vel Pitar", 1, "buc", 4.0, "RON").build();
+        ProductTable later = new ProductTable.Builder()
+            .add("P001", "Lapte", "lactate", "Zuzu", 1, "l", 12.0, "RON")
+            .add("P003", "Oua", "oua", "Ferma", 10, "buc", 15.0, "RON").build();
+        PriceCatalog previous = new PriceCatalog.Builder()
+            .putProductTable("lidl_2025-05-01.csv", first)
+            .putDiscountTable("lidl_discounts_2025-05-01.csv", discounts)
+            .build();
+
+        // Execute test
+        PriceCatalog appended = new PriceCatalog.Builder(previous).putProductTable("lidl_2025-05-08.csv", later).build();
+        PriceCatalog inserted = new PriceCatalog.Builder(previous).putProductTable("lidl_2025-05-04.csv", later).build();
+
+        // Verify results
+        assertSame(previous.getPriceTimeline("lidl", "Paine", null), appended.getPriceTimeline("lidl", "Paine", null));
+        for (PriceCatalog updated : new PriceCatalog[] {appended, inserted}) {
+            PriceCatalog.Builder rebuilt = new PriceCatalog.Builder()
+                .putDiscountTable("lidl_discounts_2025-05-01.csv", discounts);
+            for (String fileName : updated.getFileIndex().getPriceFiles("lidl").values()) {
+                rebuilt.putProductTable(fileName, updated.getProductTable(fileName));
+            }
+            PriceCatalog expected = rebuilt.build();
+            for (String[] product : new String[][] {{"Lapte", null}, {"lapte", "zuzu"}, {"Paine", ""}, {"Oua", "Ferma"}}) {
+                assertEquals(dates(expected.getPriceTimeline("lidl", product[0], product[1])),
+                    dates(updated.getPriceTimeline("lidl", product[0], product[1])));
+            }
+        }
+        assertEquals(12.0, appended.getPriceTimeline("lidl", "Lapte", null).read("lidl", START.plusDays(7), null).get(0).getPrice(), 0.0001);
+    }
+
+    private static List<String> dates(PriceTimeline timeline) {
+        List<String> points = new ArrayList<>();
+        for (PriceHistoryEntry entry : timeline.read("lidl", null, null)) {
+            points.add(entry.getDate() + "=" + entry.getPrice());
+        }
+        return points;
+    }
+
+    private static Double effectivePrice(NavigableMap<Long, ProductTable> prices, List<DiscountTable> discounts,
+                                         String name, LocalDate date) {
+        Double basePrice = null;
+        for (ProductTable table : prices.headMap(date.toEpochDay(), true).values()) {
+            int[] rows = table.findRows(name, null);
+            if (rows.length > 0) {
+                basePrice = table.getPrice(rows[rows.length - 1]);
+            }
+        }
+        if (basePrice == null) return null;
+        double bestDiscount = 0.0;
+        for (DiscountTable table : discounts) {
+            for (int row : table.findRows(name, null)) {
+                if (date.toEpochDay() >= table.getFromDay(row) && date.toEpochDay() <= table.getToDay(row)
+                    && table.getPercentageOfDiscount(row) > bestDiscount) {
+                    bestDiscount = table.getPercentageOfDiscount(row);
+                }
+            }
+        }
+        return Money.toDouble(Money.discount(Money.of(basePrice), bestDiscount));
+    }
+
+    private static void assertEntry(PriceHistoryEntry entry, int offset, double price) {
+        assertEquals(START.plusDays(offset), entry.getDate());
+        assertEquals(price, entry.getPrice(), 0.0001);
+    }
+}
@@ -0,0 +1,145 @@
+package com.accesa.pricecomparator.service;
+
+import com.accesa.pricecomparator.model.CacheStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ResultCacheTest {
+
+    @Test
+    void get_ComputesOncePerKeyAndVersion() {
+        // Prepare test data
+        ResultCache cache = new ResultCache(1024 * 1024);
+        PriceCatalog v1 = new PriceCatalog.Builder().build();
+        PriceCatalog v2 = new PriceCatalog.Builder(v1).build();
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> first = cache.get("history", v1, new String[]{"lapte zuzu"}, 10, () -> rows(loads, "a"));
+        List<String> again = cache.get("history", v1, new String[]{"lapte zuzu"}, 10, () -> rows(loads, "b"));
+        cache.get("history", v1, new String[]{"iaurt grecesc"}, 10, () -> rows(loads, "c"));
+        cache.get("recommendations", v1, new String[]{"lapte zuzu"}, 10, () -> rows(loads, "d"));
+        List<String> newer = cache.get("history", v2, new String[]{"lapte zuzu"}, 10, () -> rows(loads, "e"));
+
+        assertSame(first, again);
+        assertEquals(Collections.singletonList("e"), newer);
+        assertEquals(4, loads.get());
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(4, stats.getMisses());
+        assertThrows(UnsupportedOperationException.class, () -> first.add("x"));
+    }
+
+    @Test
+    void get_EvictsLeastRecentlyUsedOverBudget() {
+        // Prepare test data: each entry weighs 256 + 100 bytes, the budget holds two
+        ResultCache cache = new ResultCache(800);
+        PriceCatalog catalog = new PriceCatalog.Builder().build();
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("history", catalog, new String[]{"a"}, 100, () -> rows(loads, "a"));
+        cache.get("history", catalog, new String[]{"b"}, 100, () -> rows(loads, "b"));
+        cache.get("history", catalog, new String[]{"a"}, 100, () -> rows(loads, "a"));
+
+        // Execute test: "b" is now the least recently used
+        cache.get("history", catalog, new String[]{"c"}, 100, () -> rows(loads, "c"));
+        cache.get("history", catalog, new String[]{"a"}, 100, () -> rows(loads, "a"));
+        cache.get("history", catalog, new String[]{"b"}, 100, () -> rows(loads, "b"));
+
+        // Verify results
+        assertEquals(4, loads.get());
+        CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getEvictions());
+        assertEquals(2, stats.getEntries());
+        assertTrue(stats.getBytes() <= 800);
+    }
+
+    @Test
+    void get_ConcurrentMissesShareOneComputation() throws Exception {
+        // Prepare test data
+        ResultCache cache = new ResultCache(1024 * 1024);
+        PriceCatalog catalog = new PriceCatalog.Builder().build();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("history", catalog, new String[]{"lapte zuzu"}, 10, () -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return rows(loads, "a");
+                })));
+            }
+            while (cache.getStats().getMisses() + cache.getStats().getCoalesced() < 8) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<List<String>> result : results) {
+                assertEquals(Collections.singletonList("a"), result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(7, cache.getStats().getCoalesced());
+    }
+
+    @Test
+    void get_FailuresAndReloadsAreNotCached() {
+        // Prepare test data
+        ResultCache cache = new ResultCache(1024 * 1024);
+        PriceCatalog catalog = new PriceCatalog.Builder().build();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> cache.get("history", catalog, new String[]{"a"}, 10, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        cache.get("history", catalog, new String[]{"a"}, 10, () -> rows(loads, "a"));
+        cache.catalogReloaded(catalog, catalog, Arrays.asList("lidl_2025-05-01.csv"));
+        cache.get("history", catalog, new String[]{"a"}, 10, () -> rows(loads, "a"));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getStats().getHits());
+    }
+
+    @Test
+    void get_ErrorsAreNotCached() {
+        // Prepare test data
+        ResultCache cache = new ResultCache(1024 * 1024);
+        PriceCatalog catalog = new PriceCatalog.Builder().build();
+        AtomicInteger loads = new AtomicInteger();
+
+        // Execute test
+        assertThrows(OutOfMemoryError.class, () -> cache.get("history", catalog, new String[]{"a"}, 10, () -> {
+            throw new OutOfMemoryError("boom");
+        }));
+        List<String> result = cache.get("history", catalog, new String[]{"a"}, 10, () -> rows(loads, "a"));
+
+        // Verify results
+        assertEquals(Collections.singletonList("a"), result);
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.getStats().getCoalesced());
+    }
+
+    private static List<String> rows(AtomicInteger loads, String value) {
+        loads.incrementAndGet();
+        return new ArrayList<>(Collections.singletonList(value));
+    }
+}
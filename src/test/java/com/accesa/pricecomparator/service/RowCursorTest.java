@@ -0,0 +1,50 @@
+package com.accesa.pricecomparator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RowCursorTest {
+
+    @Test
+    void encode_RoundTrips() {
+        // Prepare test data
+        int query = RowCursor.queryHash("discounts", "2025-05-01");
+        String token = new RowCursor(42L, query, 2, 1, 317).encode();
+
+        RowCursor cursor = RowCursor.resume(token, 42L, query, 3);
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(42L, cursor.getVersion());
+        assertEquals(3, cursor.length());
+        assertEquals(2, cursor.get(0));
+        assertEquals(1, cursor.get(1));
+        assertEquals(317, cursor.get(2));
+    }
+
+    @Test
+    void resume_RejectsOtherQueryAndMalformedTokens() {
+        // Prepare test data
+        int query = RowCursor.queryHash("products", "lidl", "2025-05-01");
+        String token = new RowCursor(1L, query, 10).encode();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> RowCursor.resume(token, 1L, RowCursor.queryHash("products", "lidl", "2025-05-08"), 1));
+        assertThrows(IllegalArgumentException.class, () -> RowCursor.resume(token, 1L, query, 3));
+        assertThrows(IllegalArgumentException.class, () -> RowCursor.resume("not a cursor", 1L, query, 1));
+        assertThrows(IllegalArgumentException.class, () -> RowCursor.resume(token.substring(0, 6), 1L, query, 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> RowCursor.resume(new RowCursor(1L, query, -1).encode(), 1L, query, 1));
+    }
+
+    @Test
+    void resume_RejectsCursorOfReloadedCatalog() {
+        // Prepare test data
+        int query = RowCursor.queryHash("products", "lidl", "2025-05-01");
+        String token = new RowCursor(1L, query, 10).encode();
+
+        assertThrows(IllegalStateException.class, () -> RowCursor.resume(token, 2L, query, 1));
+    }
+}
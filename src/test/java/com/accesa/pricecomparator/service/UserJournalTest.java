@@ -0,0 +1,94 @@
+package com.accesa.pricecomparator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UserJournalTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sync_ConcurrentWritersAreAllDurable() throws Exception {
+        Path file = tempDir.resolve("users.journal");
+        UserJournal journal = new UserJournal(file);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        journal.sync(journal.append(record("u" + thread + "_" + i)));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<String> replayed = new HashSet<>();
+        long count = UserJournal.replay(file, r -> replayed.add(r.get("userId").asText()));
+        assertEquals(400, count);
+        assertEquals(400, replayed.size());
+        assertEquals(400, journal.size());
+    }
+
+    @Test
+    void replay_SkipsTornLastLine() throws Exception {
+        Path file = tempDir.resolve("users.journal");
+        UserJournal journal = new UserJournal(file);
+        journal.sync(journal.append(record("u1")));
+        Files.write(file, "{\"type\":\"user\",\"us".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<JsonNode> records = new ArrayList<>();
+        assertEquals(1, UserJournal.replay(file, records::add));
+        assertEquals("u1", records.get(0).get("userId").asText());
+    }
+
+    @Test
+    void reset_DiscardsBufferedAndWrittenRecords() throws Exception {
+        Path file = tempDir.resolve("users.journal");
+        UserJournal journal = new UserJournal(file);
+        journal.sync(journal.append(record("u1")));
+        long buffered = journal.append(record("u2"));
+
+        journal.reset();
+        journal.sync(buffered);
+        journal.sync(journal.append(record("u3")));
+
+        List<JsonNode> records = new ArrayList<>();
+        UserJournal.replay(file, records::add);
+        assertEquals(1, records.size());
+        assertEquals("u3", records.get(0).get("userId").asText());
+        assertEquals(1, journal.size());
+    }
+
+    private ObjectNode record(String userId) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("type", "alert");
+        record.put("userId", userId);
+        return record;
+    }
+}
@@ -4,20 +4,28 @@ import com.accesa.pricecomparator.model.PriceAlert;
 import com.accesa.pricecomparator.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class UserServiceTest {
 
+    private UserService userService;
+
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
-        // Clear any existing data
-        UserService.getUsers().clear();
-        UserService.getUserAlerts().clear();
+        userService = new UserService(tempDir);
     }
 
     @Test
@@ -27,10 +35,23 @@ class UserServiceTest {
         user.setName("Test User");
         user.setEmail("test@example.com");
 
-        String result = UserService.addUser(user);
+        String result = userService.addUser(user);
         assertNull(result);
-        assertNotNull(UserService.getUser("test1"));
-        assertEquals("Test User", UserService.getUser("test1").getName());
+        assertNotNull(userService.getUser("test1"));
+        assertEquals("Test User", userService.getUser("test1").getName());
+    }
+
+    @Test
+    void addUser_ThrowsWhenTheJournalCannotBeSynced() {
+        // Prepare test data
+        User user = new User();
+        user.setUserId("test1");
+        user.setName("Test User");
+        user.setEmail("test@example.com");
+        userService.close();
+
+        // Execute test and verify results
+        assertThrows(UncheckedIOException.class, () -> userService.addUser(user));
     }
 
     @Test
@@ -39,7 +60,7 @@ class UserServiceTest {
         user.setName("Test User");
         user.setEmail("test@example.com");
 
-        String result = UserService.addUser(user);
+        String result = userService.addUser(user);
         assertEquals("userId required", result);
     }
 
@@ -49,7 +70,7 @@ class UserServiceTest {
         user.setUserId("test1");
         user.setEmail("test@example.com");
 
-        String result = UserService.addUser(user);
+        String result = userService.addUser(user);
         assertEquals("name required", result);
     }
 
@@ -59,7 +80,7 @@ class UserServiceTest {
         user.setUserId("test1");
         user.setName("Test User");
 
-        String result = UserService.addUser(user);
+        String result = userService.addUser(user);
         assertEquals("email required", result);
     }
 
@@ -70,7 +91,7 @@ class UserServiceTest {
         user.setName("Test User");
         user.setEmail("invalid-email");
 
-        String result = UserService.addUser(user);
+        String result = userService.addUser(user);
         assertEquals("invalid email format", result);
     }
 
@@ -86,8 +107,8 @@ class UserServiceTest {
         user2.setName("Test User 2");
         user2.setEmail("test2@example.com");
 
-        UserService.addUser(user1);
-        String result = UserService.addUser(user2);
+        userService.addUser(user1);
+        String result = userService.addUser(user2);
         assertEquals("userId already exists", result);
     }
 
@@ -103,8 +124,8 @@ class UserServiceTest {
         user2.setName("Test User 2");
         user2.setEmail("test@example.com");
 
-        UserService.addUser(user1);
-        String result = UserService.addUser(user2);
+        userService.addUser(user1);
+        String result = userService.addUser(user2);
         assertEquals("email already exists", result);
     }
 
@@ -115,8 +136,8 @@ class UserServiceTest {
         user.setName("Test User");
         user.setEmail("test@example.com");
 
-        UserService.addUser(user);
-        User result = UserService.getUser("test1");
+        userService.addUser(user);
+        User result = userService.getUser("test1");
         assertNotNull(result);
         assertEquals("test1", result.getUserId());
         assertEquals("Test User", result.getName());
@@ -125,7 +146,7 @@ class UserServiceTest {
 
     @Test
     void getUser_NotFound() {
-        User result = UserService.getUser("nonexistent");
+        User result = userService.getUser("nonexistent");
         assertNull(result);
     }
 
@@ -136,8 +157,8 @@ class UserServiceTest {
         alert.setProductName("Test Product");
         alert.setTargetPrice(10.0);
 
-        UserService.addAlert(userId, alert);
-        List<PriceAlert> alerts = UserService.getAlerts(userId);
+        userService.addAlert(userId, alert);
+        List<PriceAlert> alerts = userService.getAlerts(userId);
         assertNotNull(alerts);
         assertEquals(1, alerts.size());
         assertEquals("Test Product", alerts.get(0).getProductName());
@@ -155,10 +176,10 @@ class UserServiceTest {
         alert2.setProductName("Test Product");
         alert2.setTargetPrice(15.0);
 
-        UserService.addAlert(userId, alert1);
-        UserService.addAlert(userId, alert2);
+        userService.addAlert(userId, alert1);
+        userService.addAlert(userId, alert2);
 
-        List<PriceAlert> alerts = UserService.getAlerts(userId);
+        List<PriceAlert> alerts = userService.getAlerts(userId);
         assertNotNull(alerts);
         assertEquals(1, alerts.size());
         assertEquals("Test Product", alerts.get(0).getProductName());
@@ -173,8 +194,8 @@ class UserServiceTest {
         alert.setBrand("Test Brand");
         alert.setTargetPrice(10.0);
 
-        UserService.addAlert(userId, alert);
-        List<PriceAlert> alerts = UserService.getAlerts(userId);
+        userService.addAlert(userId, alert);
+        List<PriceAlert> alerts = userService.getAlerts(userId);
         assertNotNull(alerts);
         assertEquals(1, alerts.size());
         assertEquals("Test Product", alerts.get(0).getProductName());
@@ -184,8 +205,72 @@ class UserServiceTest {
 
     @Test
     void getAlerts_Empty() {
-        List<PriceAlert> alerts = UserService.getAlerts("nonexistent");
+        List<PriceAlert> alerts = userService.getAlerts("nonexistent");
         assertNotNull(alerts);
         assertTrue(alerts.isEmpty());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void addUser_DuplicateEmailIgnoresCase() {
+        User user1 = createUser("test1", "Test@Example.com");
+        User user2 = createUser("test2", "test@EXAMPLE.com");
+
+        assertNull(userService.addUser(user1));
+        assertEquals("email already exists", userService.addUser(user2));
+        assertEquals("test1", userService.getUserByEmail("TEST@example.COM").getUserId());
+    }
+
+    @Test
+    void addUser_ConcurrentSameEmail_OnlyOneSucceeds() throws Exception {
+        AtomicInteger registered = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            User user = createUser("user" + i, "same@example.com");
+            threads.add(new Thread(() -> {
+                if (userService.addUser(user) == null) {
+                    registered.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, registered.get());
+    }
+
+    @Test
+    void getAlerts_ReturnsUnmodifiableList() {
+        PriceAlert alert = new PriceAlert();
+        alert.setProductName("Test Product");
+        alert.setTargetPrice(10.0);
+        userService.addAlert("test1", alert);
+
+        assertThrows(UnsupportedOperationException.class, () -> userService.getAlerts("test1").add(alert));
+    }
+
+    @Test
+    void recovery_ReplaysJournalOverSnapshot() {
+        userService.addUser(createUser("test1", "test@example.com"));
+        PriceAlert alert = new PriceAlert();
+        alert.setProductName("Test Product");
+        alert.setTargetPrice(10.0);
+        userService.addAlert("test1", alert);
+        userService.close();
+
+        UserService recovered = new UserService(tempDir);
+        assertEquals("test@example.com", recovered.getUser("test1").getEmail());
+        assertEquals("email already exists", recovered.addUser(createUser("test2", "TEST@example.com")));
+        assertEquals(1, recovered.getAlerts("test1").size());
+        recovered.close();
+    }
+
+    private static User createUser(String userId, String email) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName("Test User");
+        user.setEmail(email);
+        return user;
+    }
+}